@@ -0,0 +1,72 @@
+package com.github.himeraoo.library.benchmark;
+
+import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.Genre;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Синтетический каталог для бенчмарков: жанры и авторы общие для всех книг, как после сборки из БД.
+ */
+public final class BenchmarkData {
+
+    private static final int GENRES = 20;
+    private static final int AUTHORS = 1000;
+
+    private BenchmarkData() {
+    }
+
+    public static List<Book> books(int count) {
+        Genre[] genres = new Genre[GENRES];
+        for (int i = 0; i < GENRES; i++) {
+            genres[i] = new Genre();
+            genres[i].setId(i + 1);
+            genres[i].setName("genre" + (i + 1));
+        }
+        Author[] authors = new Author[AUTHORS];
+        for (int i = 0; i < AUTHORS; i++) {
+            authors[i] = new Author();
+            authors[i].setId(i + 1);
+            authors[i].setName("author_name" + (i + 1));
+            authors[i].setSurname("author_surname" + (i + 1));
+        }
+
+        List<Book> books = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            Book book = new Book();
+            book.setId(id);
+            book.setTitle("book" + id);
+            book.setGenre(genres[id % GENRES]);
+            book.setAuthorList(new ArrayList<>(Arrays.asList(authors[id % AUTHORS], authors[(id + 1) % AUTHORS])));
+            books.add(book);
+        }
+        return books;
+    }
+
+    public static List<BookDTO> bookDTOs(int count) {
+        List<BookDTO> bookDTOs = new ArrayList<>(count);
+        for (Book b : books(count)) {
+            bookDTOs.add(new BookDTO(b.getId(), b.getTitle(), b.getGenre(), b.getAuthorList()));
+        }
+        return bookDTOs;
+    }
+
+    /**
+     * Поток, который отбрасывает данные: измеряется сериализация, а не копирование в буфер.
+     */
+    public static final class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
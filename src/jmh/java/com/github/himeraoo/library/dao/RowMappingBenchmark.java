@@ -0,0 +1,60 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка сущностей из строк LEFT JOIN запросов в BookDAOImpl и AuthorDAOImpl.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RowMappingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private PreparedStatement bookStatement;
+    private PreparedStatement authorStatement;
+
+    @Setup
+    public void setUp() {
+        bookStatement = SyntheticResultSet.bookRows(rows);
+        authorStatement = SyntheticResultSet.authorRows(rows);
+    }
+
+    @Benchmark
+    public List<Book> getBooksWithAuthors() throws SQLException {
+        return BookDAOImpl.getBooksWithAuthors(bookStatement, new IdentityMap());
+    }
+
+    @Benchmark
+    public void streamBooksWithAuthors(Blackhole blackhole) throws SQLException {
+        BookDAOImpl.streamBooksWithAuthors(bookStatement, IdentityMap.forStreaming(), blackhole::consume);
+    }
+
+    @Benchmark
+    public List<Author> getAuthorsWithBooks() throws SQLException {
+        return AuthorDAOImpl.getAuthorsWithBooks(authorStatement, new IdentityMap());
+    }
+}
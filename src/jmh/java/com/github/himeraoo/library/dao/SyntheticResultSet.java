@@ -0,0 +1,164 @@
+package com.github.himeraoo.library.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResultSet в памяти для бенчмарков маппинга строк: значения колонок подготовлены заранее,
+ * поэтому измеряется только работа DAO, а не генерация данных.
+ */
+final class SyntheticResultSet implements InvocationHandler {
+
+    private final Map<String, Integer> labels;
+    private final Object[][] columns;
+    private final int rowCount;
+    private int row = -1;
+    private boolean wasNull;
+
+    private SyntheticResultSet(Map<String, Integer> labels, Object[][] columns, int rowCount) {
+        this.labels = labels;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Строки LEFT JOIN запроса QUERY_BookFindAll: у каждой книги два автора, у каждой десятой авторов нет.
+     */
+    static PreparedStatement bookRows(int rows) {
+        Builder builder = new Builder("bid", "btitle", "gid", "gname", "aid", "aname", "asurname");
+        int bookId = 0;
+        while (builder.size() < rows) {
+            bookId++;
+            int genreId = bookId % 20 + 1;
+            if (bookId % 10 == 0) {
+                builder.add(bookId, "book" + bookId, genreId, "genre" + genreId, null, null, null);
+                continue;
+            }
+            for (int i = 0; i < 2 && builder.size() < rows; i++) {
+                int authorId = (bookId + i) % 1000 + 1;
+                builder.add(bookId, "book" + bookId, genreId, "genre" + genreId,
+                        authorId, "author_name" + authorId, "author_surname" + authorId);
+            }
+        }
+        return builder.statement();
+    }
+
+    /**
+     * Строки LEFT JOIN запроса QUERY_AuthorFindAll: у каждого автора две книги, у каждого десятого книг нет.
+     */
+    static PreparedStatement authorRows(int rows) {
+        Builder builder = new Builder("aid", "aname", "asurname", "bid", "btitle", "gid", "gname");
+        int authorId = 0;
+        while (builder.size() < rows) {
+            authorId++;
+            if (authorId % 10 == 0) {
+                builder.add(authorId, "author_name" + authorId, "author_surname" + authorId, null, null, null, null);
+                continue;
+            }
+            for (int i = 0; i < 2 && builder.size() < rows; i++) {
+                int bookId = (authorId + i) % 1000 + 1;
+                int genreId = bookId % 20 + 1;
+                builder.add(authorId, "author_name" + authorId, "author_surname" + authorId,
+                        bookId, "book" + bookId, genreId, "genre" + genreId);
+            }
+        }
+        return builder.statement();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "next":
+                return ++row < rowCount;
+            case "findColumn":
+                return index(args[0]);
+            case "getInt": {
+                Object value = column(args[0])[row];
+                wasNull = value == null;
+                return wasNull ? 0 : (Integer) value;
+            }
+            case "getString": {
+                Object value = column(args[0])[row];
+                wasNull = value == null;
+                return value;
+            }
+            case "wasNull":
+                return wasNull;
+            case "close":
+                return null;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    //колонка запрашивается по метке или по индексу с единицы, как в JDBC
+    private Object[] column(Object column) {
+        int index = column instanceof Integer ? (Integer) column : index(column);
+        return columns[index - 1];
+    }
+
+    private int index(Object label) {
+        Integer index = labels.get(label);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown column " + label);
+        }
+        return index;
+    }
+
+    private static final class Builder {
+
+        private final String[] labels;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        private Builder(String... labels) {
+            this.labels = labels;
+        }
+
+        private void add(Object... values) {
+            rows.add(values);
+        }
+
+        private int size() {
+            return rows.size();
+        }
+
+        private PreparedStatement statement() {
+            Map<String, Integer> labelIndexes = new HashMap<>();
+            Object[][] columns = new Object[labels.length][];
+            for (int c = 0; c < labels.length; c++) {
+                Object[] column = new Object[rows.size()];
+                for (int r = 0; r < rows.size(); r++) {
+                    column[r] = rows.get(r)[c];
+                }
+                columns[c] = column;
+                labelIndexes.put(labels[c], c + 1);
+            }
+            int rowCount = rows.size();
+
+            //каждый executeQuery() отдаёт новый курсор по тем же данным
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "executeQuery":
+                                return Proxy.newProxyInstance(
+                                        ResultSet.class.getClassLoader(),
+                                        new Class<?>[]{ResultSet.class},
+                                        new SyntheticResultSet(labelIndexes, columns, rowCount));
+                            case "close":
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+}
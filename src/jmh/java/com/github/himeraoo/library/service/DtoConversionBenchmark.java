@@ -0,0 +1,60 @@
+package com.github.himeraoo.library.service;
+
+import com.github.himeraoo.library.benchmark.BenchmarkData;
+import com.github.himeraoo.library.dao.BookDAO;
+import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.exception.ElementHasNotFoundException;
+import com.github.himeraoo.library.models.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование сущностей в DTO в BookServiceImpl.findAll, DAO отдаёт готовый список.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DtoConversionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private BookService bookService;
+
+    @Setup
+    public void setUp() {
+        List<Book> books = BenchmarkData.books(rows);
+        BookDAO bookDAO = (BookDAO) Proxy.newProxyInstance(
+                BookDAO.class.getClassLoader(),
+                new Class<?>[]{BookDAO.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return books;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        bookService = new BookServiceImpl(bookDAO);
+    }
+
+    @Benchmark
+    public List<BookDTO> findAll() throws SQLException, ElementHasNotFoundException {
+        return bookService.findAll();
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.himeraoo.library.dto.BookDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Разбор тела PUT/POST запроса: строка через новый ObjectMapper на каждый запрос (до JsonCodec)
+ * против общего ObjectReader, читающего прямо из потока.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private static final String BODY = "{ \"id\": 1, \"title\": \"book1\", \"genre\": { \"id\": 1, \"name\": \"genre1\" }, \"authorList\": [ { \"id\": 1, \"name\": \"author_name1\", \"surname\": \"author_surname1\", \"bookList\": [] }, { \"id\": 0, \"name\": \"author_name5\", \"surname\": \"author_surname5\", \"bookList\": [] } ] }";
+
+    private byte[] body;
+    private JsonCodec jsonCodec;
+
+    @Setup
+    public void setUp() {
+        body = BODY.getBytes(StandardCharsets.UTF_8);
+        jsonCodec = new JsonCodec();
+    }
+
+    @Benchmark
+    public BookDTO newMapperFromString() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        String json = reader.lines().collect(Collectors.joining());
+        return new ObjectMapper().readValue(json, BookDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO sharedReaderFromStream() throws IOException {
+        return jsonCodec.reader(BookDTO.class).readValue(new ByteArrayInputStream(body));
+    }
+}
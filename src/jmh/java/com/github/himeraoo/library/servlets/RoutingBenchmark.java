@@ -0,0 +1,61 @@
+package com.github.himeraoo.library.servlets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор пути GET запроса к книгам: String.matches и split с Integer.parseInt на каждый запрос (до RestPath)
+ * против сравнения с префиксом и чтения id из символов пути.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+
+    private static final String[] PATHS = {"/api/rest/book/", "/api/rest/book/17", "/api/rest/book/123456", "/api/rest/book/abc"};
+    private static final RestPath PATH = new RestPath("book");
+
+    @Benchmark
+    public int matchesAndSplit() {
+        int result = 0;
+        for (String requestPath : PATHS) {
+            if (requestPath.matches("^/api/rest/book/$")) {
+                result--;
+            } else {
+                String[] pathPart = requestPath.split("/");
+                try {
+                    result += Integer.parseInt(pathPart[4]);
+                } catch (NumberFormatException e) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int restPath() {
+        int result = 0;
+        for (String requestPath : PATHS) {
+            if (PATH.isCollection(requestPath)) {
+                result--;
+            } else {
+                int bookId = PATH.id(requestPath);
+                result += bookId != RestPath.NO_ID ? bookId : 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.himeraoo.library.benchmark.BenchmarkData;
+import com.github.himeraoo.library.dto.BookDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация списка BookDTO так, как это делают сервлеты:
+ * строкой через новый ObjectMapper (до JsonCodec), строкой через общий кодек и напрямую в поток.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private List<BookDTO> bookDTOs;
+    private JsonCodec jsonCodec;
+
+    @Setup
+    public void setUp() {
+        bookDTOs = BenchmarkData.bookDTOs(rows);
+        jsonCodec = new JsonCodec();
+    }
+
+    @Benchmark
+    public String newMapperToString() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(bookDTOs);
+    }
+
+    @Benchmark
+    public String sharedWriterToString() throws JsonProcessingException {
+        return jsonCodec.listWriter(BookDTO.class).writeValueAsString(bookDTOs);
+    }
+
+    @Benchmark
+    public void sharedWriterToStream() throws IOException {
+        jsonCodec.listWriter(BookDTO.class).writeValue(new BenchmarkData.NullOutputStream(), bookDTOs);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.himeraoo.library.cache;
+
+import java.util.Properties;
+
+public class CacheConfig {
+
+    private boolean enabled = true;
+    private long maxWeight = 10_000;
+    private long ttlMs = 300_000;
+
+    public CacheConfig() {
+    }
+
+    public static CacheConfig fromProperties(Properties properties) {
+        CacheConfig config = new CacheConfig();
+        config.setEnabled(Boolean.parseBoolean(properties.getProperty("cacheEnabled", String.valueOf(config.enabled))));
+        config.setMaxWeight(Long.parseLong(properties.getProperty("cacheMaxWeight", String.valueOf(config.maxWeight))));
+        config.setTtlMs(Long.parseLong(properties.getProperty("cacheTtlMs", String.valueOf(config.ttlMs))));
+        return config;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("cacheMaxWeight must be greater than 0");
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheConfig{" +
+                "enabled=" + enabled +
+                ", maxWeight=" + maxWeight +
+                ", ttlMs=" + ttlMs +
+                '}';
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.himeraoo.library.cache;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ограниченный по весу LRU кэш сущностей по id с TTL и счётчиками попаданий, промахов и вытеснений.
+ * Вес записи задаёт weigher, например 1 + размер списка связанных сущностей.
+ * Загрузка выполняется вне блокировки; если за время загрузки была инвалидация,
+ * загруженное значение не кладётся в кэш, чтобы не вернуть туда данные до записи.
+ */
+public class EntityCache<V> {
+
+    private final String name;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToIntFunction<V> weigher;
+    private final LongSupplier ticker;
+
+    private final LinkedHashMap<Integer, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long invalidationStamp;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public EntityCache(String name, CacheConfig config, ToIntFunction<V> weigher) {
+        this(name, config, weigher, System::nanoTime);
+    }
+
+    EntityCache(String name, CacheConfig config, ToIntFunction<V> weigher, LongSupplier ticker) {
+        this.name = name;
+        this.maxWeight = config.getMaxWeight();
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(config.getTtlMs());
+        this.weigher = weigher;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Загрузчик сущности из БД, пустой Optional означает, что сущности нет.
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        Optional<V> load(int id) throws SQLException;
+    }
+
+    public Optional<V> get(int id, Loader<V> loader) throws SQLException {
+        return get(id, null, loader);
+    }
+
+    /**
+     * Чтение для ответа с версией (ETag): version прочитана до вызова, и запись кэша подходит, только если она
+     * загружена при той же версии. Иначе сущность загружается заново и кладётся с этой версией. Так запись,
+     * которую ещё не инвалидировали после изменения в БД, не уйдёт клиенту с новой версией.
+     *
+     * @param version версия сущности в БД или null, тогда подходит любая запись
+     */
+    public Optional<V> get(int id, Object version, Loader<V> loader) throws SQLException {
+        long stamp;
+        synchronized (this) {
+            Entry<V> entry = entries.get(id);
+            if (entry != null) {
+                if (isExpired(entry)) {
+                    remove(id);
+                    expirations.increment();
+                } else if (version == null || version.equals(entry.version)) {
+                    hits.increment();
+                    return Optional.of(entry.value);
+                }
+            }
+            misses.increment();
+            stamp = invalidationStamp;
+        }
+
+        //отсутствующие сущности не кэшируются, следующий запрос снова пойдёт в БД
+        Optional<V> loaded = loader.load(id);
+        loaded.ifPresent(value -> put(id, value, version, stamp));
+        return loaded;
+    }
+
+    public synchronized void invalidate(int id) {
+        invalidationStamp++;
+        if (remove(id) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void invalidateIf(Predicate<V> predicate) {
+        invalidationStamp++;
+        Iterator<Map.Entry<Integer, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> entry = iterator.next().getValue();
+            if (predicate.test(entry.value)) {
+                iterator.remove();
+                weight -= entry.weight;
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidationStamp++;
+        invalidations.add(entries.size());
+        entries.clear();
+        weight = 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache{" +
+                "name='" + name + '\'' +
+                ", size=" + size() +
+                ", weight=" + weight() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                ", expirations=" + getExpirationCount() +
+                ", invalidations=" + getInvalidationCount() +
+                '}';
+    }
+
+    private synchronized void put(int id, V value, Object version, long stamp) {
+        //пока шла загрузка, данные изменились: значение могло устареть
+        if (stamp != invalidationStamp) {
+            return;
+        }
+        int entryWeight = Math.max(1, weigher.applyAsInt(value));
+        if (entryWeight > maxWeight) {
+            return;
+        }
+
+        remove(id);
+        entries.put(id, new Entry<>(value, version, entryWeight, ticker.getAsLong()));
+        weight += entryWeight;
+
+        //вытесняем давно не использованные записи, первой в порядке доступа идёт самая старая
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Entry<V> eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.weight;
+            evictions.increment();
+        }
+    }
+
+    private Entry<V> remove(int id) {
+        Entry<V> removed = entries.remove(id);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+        return removed;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlNanos > 0 && ticker.getAsLong() - entry.createdAt > ttlNanos;
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        //версия, с которой запись загружена через get(id, version, loader), иначе null
+        private final Object version;
+        private final int weight;
+        private final long createdAt;
+
+        private Entry(V value, Object version, int weight, long createdAt) {
+            this.value = value;
+            this.version = version;
+            this.weight = weight;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.himeraoo.library.cache;
+
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.Genre;
+
+/**
+ * Кэши книг, авторов и жанров. Общие для всех кэширующих DAO, так как изменение одной сущности
+ * меняет вложенные списки в других: книга хранит авторов, автор хранит книги с жанрами.
+ */
+public class EntityCaches {
+
+    private final EntityCache<Book> books;
+    private final EntityCache<Author> authors;
+    private final EntityCache<Genre> genres;
+
+    public EntityCaches(CacheConfig config) {
+        this.books = new EntityCache<>("book", config, book -> 1 + book.getAuthorList().size());
+        this.authors = new EntityCache<>("author", config, author -> 1 + author.getBookList().size());
+        this.genres = new EntityCache<>("genre", config, genre -> 1);
+    }
+
+    public EntityCache<Book> books() {
+        return books;
+    }
+
+    public EntityCache<Author> authors() {
+        return authors;
+    }
+
+    public EntityCache<Genre> genres() {
+        return genres;
+    }
+}
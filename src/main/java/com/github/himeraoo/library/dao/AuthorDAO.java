@@ -1,6 +1,7 @@
 package com.github.himeraoo.library.dao;
 
 import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.EntityVersion;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -9,8 +10,30 @@ import java.util.Optional;
 public interface AuthorDAO {
     Optional<Author> findById(int authorId) throws SQLException;
 
+    /**
+     * Версия автора для условного GET, дешевле {@link #findById(int)}; пусто, если автора нет.
+     */
+    Optional<EntityVersion> findVersionById(int authorId) throws SQLException;
+
+    /**
+     * То же, что {@link #findById(int)}, для ответа с версией version, прочитанной перед этим через
+     * {@link #findVersionById(int)}: данные не старше этой версии. Чтение из БД всегда такое, кэш его переопределяет.
+     */
+    default Optional<Author> findById(int authorId, EntityVersion version) throws SQLException {
+        return findById(authorId);
+    }
+
     List<Author> findAll() throws SQLException;
 
+    /**
+     * Версия списка всех авторов, её же получают страницы списка.
+     */
+    EntityVersion findAllVersion() throws SQLException;
+
+    List<Author> findAll(int afterAuthorId, int limit) throws SQLException;
+
+    <E extends Exception> void streamAll(EntityConsumer<Author, E> consumer) throws SQLException, E;
+
     int save(Author author) throws SQLException;
 
     int update(Author author) throws SQLException;
@@ -1,6 +1,8 @@
 package com.github.himeraoo.library.dao;
 
+import com.github.himeraoo.library.jdbc.FetchConfig;
 import com.github.himeraoo.library.jdbc.SessionManager;
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.models.Author;
 import com.github.himeraoo.library.models.Book;
 import com.github.himeraoo.library.models.Genre;
@@ -9,84 +11,119 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeSet;
 
-import static com.github.himeraoo.library.dao.BookDAOImpl.getBooksWithAuthors;
-import static com.github.himeraoo.library.dao.BookDAOImpl.getBooksWithoutAuthors;
+import static com.github.himeraoo.library.dao.BookDAOImpl.findBooksByTitles;
 import static com.github.himeraoo.library.dao.BookDAOImpl.saveNewBook;
-import static com.github.himeraoo.library.dao.GenreDAOImpl.findAllGenre;
-import static com.github.himeraoo.library.dao.GenreDAOImpl.saveNewGenre;
+import static com.github.himeraoo.library.dao.BookDAOImpl.touchBooks;
+import static com.github.himeraoo.library.dao.ConstraintViolations.isDuplicateKey;
+import static com.github.himeraoo.library.dao.ConstraintViolations.isMissingReference;
+import static com.github.himeraoo.library.dao.GenreDAOImpl.findGenresByNames;
+import static com.github.himeraoo.library.dao.GenreDAOImpl.resolveGenre;
 
 
 public class AuthorDAOImpl implements AuthorDAO {
     private final SessionManager sessionManager;
+    private final FetchConfig fetchConfig;
+    private final GenreRegistry genreRegistry;
 
     public AuthorDAOImpl(SessionManager sessionManager) {
+        this(sessionManager, new FetchConfig());
+    }
+
+    public AuthorDAOImpl(SessionManager sessionManager, FetchConfig fetchConfig) {
         this.sessionManager = sessionManager;
+        this.fetchConfig = fetchConfig;
+        this.genreRegistry = GenreRegistry.forSession(sessionManager);
     }
 
-    protected static List<Author> getAuthorsWithoutBooks(Connection connection) throws SQLException {
-        List<Author> authorsWithoutBooks;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AuthorFindAllWithoutBooks.QUERY)) {
-            try (ResultSet rs = pst.executeQuery()) {
-                authorsWithoutBooks = new ArrayList<>();
-                while (rs.next()) {
-                    Author dbAuthor = new Author();
-                    dbAuthor.setId(Integer.parseInt(rs.getString("aid")));
-                    dbAuthor.setName(rs.getString("aname"));
-                    dbAuthor.setSurname(rs.getString("asurname"));
-                    authorsWithoutBooks.add(dbAuthor);
+    //строки LEFT JOIN запроса собираются в авторов за один проход, ключ - id автора
+    protected static List<Author> getAuthorsWithBooks(PreparedStatement pst, IdentityMap identityMap) throws SQLException {
+        Map<Integer, Author> integerAuthorHashMap = new LinkedHashMap<>();
+        try (ResultSet rs = pst.executeQuery()) {
+            AuthorRowMapper mapper = new AuthorRowMapper(rs, true, identityMap);
+            while (rs.next()) {
+                int authorId = mapper.authorId();
+                Author dbAuthor = integerAuthorHashMap.get(authorId);
+                if (dbAuthor == null) {
+                    dbAuthor = mapper.mapAuthor(authorId);
+                    integerAuthorHashMap.put(authorId, dbAuthor);
                 }
+                mapper.addBook(dbAuthor);
             }
         }
-        return authorsWithoutBooks;
+        return new ArrayList<>(integerAuthorHashMap.values());
     }
 
-    protected static List<Author> getAuthorsWithBooks(Connection connection) throws SQLException {
-        List<Author> authorsWithBooks;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AuthorFindAllWithBooks.QUERY)) {
+    //строки должны быть упорядочены по id автора: автор отдаётся, как только начинаются строки следующего
+    protected static <E extends Exception> void streamAuthorsWithBooks(PreparedStatement pst, IdentityMap identityMap, EntityConsumer<Author, E> consumer) throws SQLException, E {
+        try (ResultSet rs = pst.executeQuery()) {
+            AuthorRowMapper mapper = new AuthorRowMapper(rs, true, identityMap);
+            Author dbAuthor = null;
+            while (rs.next()) {
+                int authorId = mapper.authorId();
+                if (dbAuthor == null || dbAuthor.getId() != authorId) {
+                    if (dbAuthor != null) {
+                        consumer.accept(dbAuthor);
+                    }
+                    dbAuthor = mapper.mapAuthor(authorId);
+                }
+                mapper.addBook(dbAuthor);
+            }
+            if (dbAuthor != null) {
+                consumer.accept(dbAuthor);
+            }
+        }
+    }
+
+    //ищет в БД только авторов с переданными именем и фамилией, ключ - NameKey автора, значение - автор из БД (без книг)
+    protected static Map<String, Author> findAuthorsByNames(Collection<Author> authors, Connection connection, IdentityMap identityMap) throws SQLException {
+        Map<String, Author> authorsFromDB = new HashMap<>();
+        Collection<Author> names = authorsByName(authors).values();
+        if (names.isEmpty()) {
+            return authorsFromDB;
+        }
+
+        try (PreparedStatement pst = SQLQuery.QUERY_AuthorFindByNamesAndSurnames.prepareWithParameters(connection, names.size(), 2)) {
+            int index = 1;
+            for (Author author : names) {
+                pst.setString(index++, author.getName());
+                pst.setString(index++, author.getSurname());
+            }
             try (ResultSet rs = pst.executeQuery()) {
-                HashMap<Integer, Author> integerAuthorHashMap = new HashMap<>();
+                AuthorRowMapper mapper = new AuthorRowMapper(rs, false, identityMap);
                 while (rs.next()) {
-                    Author dbAuthor = new Author();
-                    dbAuthor.setId(Integer.parseInt(rs.getString("aid")));
-                    dbAuthor.setName(rs.getString("aname"));
-                    dbAuthor.setSurname(rs.getString("asurname"));
-
-                    Book authorBook = new Book();
-                    authorBook.setId(Integer.parseInt(rs.getString("bid")));
-                    authorBook.setTitle(rs.getString("btitle"));
-                    authorBook.setAuthorList(new ArrayList<>());
-
-                    Genre bookGenre = new Genre();
-                    bookGenre.setId((Integer.parseInt(rs.getString("gid"))));
-                    bookGenre.setName((rs.getString("gname")));
-
-                    authorBook.setGenre(bookGenre);
-
-                    if (integerAuthorHashMap.containsKey(dbAuthor.getId())) {
-                        integerAuthorHashMap.get(dbAuthor.getId()).getBookList().add(authorBook);
-                    } else {
-                        List<Book> bookList = new ArrayList<>();
-                        bookList.add(authorBook);
-                        dbAuthor.setBookList(bookList);
-                        integerAuthorHashMap.put(dbAuthor.getId(), dbAuthor);
-                    }
+                    Author dbAuthor = mapper.mapAuthor(mapper.authorId());
+                    authorsFromDB.put(NameKey.of(dbAuthor), dbAuthor);
                 }
-                authorsWithBooks = new ArrayList<>(integerAuthorHashMap.values());
             }
         }
-        return authorsWithBooks;
+        return authorsFromDB;
+    }
+
+    //автора однозначно определяют имя и фамилия без учёта регистра (уникальный индекс), повторы в списке отсекаются по ним
+    protected static Map<String, Author> authorsByName(Collection<Author> authors) {
+        Map<String, Author> authorsByName = new LinkedHashMap<>();
+        for (Author author : authors) {
+            authorsByName.putIfAbsent(NameKey.of(author), author);
+        }
+        return authorsByName;
     }
 
     protected static int saveNewAuthor(Author author, Connection connection) throws SQLException {
         int authorId = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AuthorSave.QUERY, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_AuthorSave.prepareReturningKeys(connection)) {
             pst.setString(1, author.getName());
             pst.setString(2, author.getSurname());
             pst.executeUpdate();
@@ -100,13 +137,51 @@ public class AuthorDAOImpl implements AuthorDAO {
         return authorId;
     }
 
+    //версия автора при изменении его связей с книгами, см. BookDAOImpl.touchBooks
+    protected static void touchAuthors(Collection<Integer> authorIds, Connection connection) throws SQLException {
+        if (authorIds.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pst = SQLQuery.QUERY_AuthorTouchById.prepare(connection)) {
+            for (int authorId : new TreeSet<>(authorIds)) {
+                pst.setInt(1, authorId);
+                pst.addBatch();
+            }
+            pst.executeBatch();
+        }
+    }
+
+    //сохраняет авторов одним пакетом и проставляет им сгенерированные id
+    protected static void saveNewAuthors(List<Author> authors, Connection connection) throws SQLException {
+        if (authors.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pst = SQLQuery.QUERY_AuthorSave.prepareReturningKeys(connection)) {
+            for (Author author : authors) {
+                pst.setString(1, author.getName());
+                pst.setString(2, author.getSurname());
+                pst.addBatch();
+            }
+            pst.executeBatch();
+
+            //ключи возвращаются в порядке добавления в пакет
+            try (ResultSet rs = pst.getGeneratedKeys()) {
+                for (Author author : authors) {
+                    if (rs.next()) {
+                        author.setId(rs.getInt(1));
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public Optional<Author> findById(int authorId) throws SQLException {
         sessionManager.beginSession();
 
         Author author = null;
         try (Connection connection = sessionManager.getCurrentSession()) {
-            author = getAuthorFromBD(authorId, connection);
+            author = getAuthorFromBD(authorId, connection, new IdentityMap());
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
@@ -115,17 +190,32 @@ public class AuthorDAOImpl implements AuthorDAO {
         return Optional.ofNullable(author);
     }
 
+    @Override
+    public Optional<EntityVersion> findVersionById(int authorId) throws SQLException {
+        sessionManager.beginSession();
+
+        EntityVersion version;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_AuthorFindVersionById.prepare(connection)) {
+                pst.setInt(1, authorId);
+                version = VersionDigest.read(pst);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return Optional.ofNullable(version);
+    }
+
     @Override
     public List<Author> findAll() throws SQLException {
         sessionManager.beginSession();
-        List<Author> authorList = new ArrayList<>();
-        List<Author> authorsWithBooks;
-        List<Author> authorsWithoutBooks;
+        List<Author> authorList;
         try (Connection connection = sessionManager.getCurrentSession()) {
-            authorsWithBooks = getAuthorsWithBooks(connection);
-            authorsWithoutBooks = getAuthorsWithoutBooks(connection);
-            authorList.addAll(authorsWithBooks);
-            authorList.addAll(authorsWithoutBooks.stream().filter(author -> !authorsWithBooks.contains(author)).collect(Collectors.toList()));
+            try (PreparedStatement pst = SQLQuery.QUERY_AuthorFindAll.prepare(connection, fetchConfig)) {
+                authorList = getAuthorsWithBooks(pst, new IdentityMap());
+            }
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
@@ -134,34 +224,94 @@ public class AuthorDAOImpl implements AuthorDAO {
         return authorList;
     }
 
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        sessionManager.beginSession();
+
+        EntityVersion version;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_CatalogFindListVersion.prepare(connection)) {
+                version = VersionDigest.read(pst);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return version;
+    }
+
+    @Override
+    public List<Author> findAll(int afterAuthorId, int limit) throws SQLException {
+        sessionManager.beginSession();
+        List<Author> authorList;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_AuthorFindPage.prepare(connection, fetchConfig)) {
+                pst.setInt(1, afterAuthorId);
+                pst.setInt(2, limit);
+                authorList = getAuthorsWithBooks(pst, new IdentityMap());
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return authorList;
+    }
+
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<Author, E> consumer) throws SQLException, E {
+        sessionManager.beginSession();
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_AuthorFindAll.prepare(connection, fetchConfig)) {
+                streamAuthorsWithBooks(pst, IdentityMap.forStreaming(), consumer);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+    }
+
     @Override
     public int save(Author author) throws SQLException {
         sessionManager.beginSession();
         int authorId = 0;
+        IdentityMap identityMap = new IdentityMap();
+        long registryVersion = genreRegistry.version();
 
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
-            //проверяем наличие авторов с такими именами и фамилиями
-            int authorCount = getAuthorCount(author, connection);
-            //если нет, начинаем добавление
-            if (authorCount == 0) {
-                //сохранение автора
-                authorId = saveNewAuthor(author, connection);
+            //сохранение автора, автора с такими именем и фамилией отсекает уникальный индекс
+            authorId = saveAuthorIfAbsent(author, connection);
+            if (authorId != -1) {
                 //сохранение списка книг автора и добавление связей
                 //получаем список книг автора
                 List<Book> bookList = author.getBookList();
                 //если список авторов у книги не пустой
-                checkAndSaveBooksListWithGenreFromAuthorOnSave(authorId, connection, bookList);
-            } else {
-                authorId = -1;
+                if (!checkAndSaveBooksListWithGenreFromAuthorOnSave(authorId, connection, bookList, identityMap)) {
+                    authorId = -1;
+                }
             }
 
-            sessionManager.commitSession();
+            if (authorId != -1) {
+                sessionManager.commitSession();
+            } else {
+                //автор и жанры, сохранённые до конфликта, тоже не нужны
+                sessionManager.rollbackSession();
+            }
             sessionManager.finishTransaction();
+            if (authorId != -1) {
+                genreRegistry.registerAll(identityMap.savedGenres(), registryVersion);
+            }
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
+            if (isMissingReference(ex)) {
+                //жанр из справочника удалён в обход этого процесса
+                genreRegistry.invalidate();
+            }
             throw ex;
         }
         return authorId;
@@ -170,194 +320,52 @@ public class AuthorDAOImpl implements AuthorDAO {
     @Override
     public int update(Author author) throws SQLException {
         int rowsUpdated = 0;
+        IdentityMap identityMap = new IdentityMap();
+        long registryVersion = genreRegistry.version();
         sessionManager.beginSession();
 
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
             //ищем автора в БД которого надо обновить
-            Author authorFromBD = getAuthorFromBD(author.getId(), connection);
+            Author authorFromBD = getAuthorFromBD(author.getId(), connection, identityMap);
             //Если автор есть, то с ним работаем, если ее нет - то не найден.
             if (authorFromBD != null) {
                 //если name и surname одинаковые проверяем остальные поля
                 if (author.getName().equals(authorFromBD.getName()) && author.getSurname().equals(authorFromBD.getSurname())) {
-                    //сравнение списков книг
-                    List<Book> bookList = author.getBookList();
-                    List<Book> bookListFromDB = authorFromBD.getBookList();
-                    List<Book> differenceBookListFromDB = bookListFromDB.stream().filter(i -> !bookList.contains(i)).collect(Collectors.toList());
-                    List<Book> differenceBookList = bookList.stream().filter(i -> !bookListFromDB.contains(i)).collect(Collectors.toList());
-                    //если списки книг не одинаковые, то проводим изменения
-                    if ((!differenceBookListFromDB.isEmpty()) || (!differenceBookList.isEmpty()) || (bookList.size() != bookListFromDB.size())) {
-                        //получаем список книг автора
-                        List<Book> authorBookList = author.getBookList();
-                        //список книг связанных с автором
-                        List<Book> authorBookListFromBD = getAuthorBookListFromBD(author.getId(), connection);
-                        //если список книг у автора не пустой
-                        if (!authorBookList.isEmpty()) {
-                            //общие книги между переданным списком и тех что в БД. Им связи не меняем.
-                            List<Book> commonAuthorElements = authorBookList.stream().filter(authorBookListFromBD::contains).collect(Collectors.toList());
-                            //новые книги которые надо проверить на наличие в БД, при необходимости добавить в БД и добавить связи с автором.
-                            List<Book> toAdd = authorBookList.stream().filter(book -> !commonAuthorElements.contains(book)).collect(Collectors.toList());
-                            //книги с которыми надо удалить связи
-                            List<Book> forRemoveRelation = authorBookListFromBD.stream().filter(book -> !commonAuthorElements.contains(book)).collect(Collectors.toList());
-                            //Проверка наличия книг с которыми добавляются связи вновь
-                            //получаем список книг из всей БД
-                            List<Book> listBooksFromDB = new ArrayList<>();
-                            List<Book> booksWithAuthors;
-                            List<Book> booksWithoutAuthors;
-
-                            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindAll_WithAuthors.QUERY)) {
-                                booksWithAuthors = getBooksWithAuthors(pst);
-                            }
-                            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindAll_WithoutAuthors.QUERY)) {
-                                booksWithoutAuthors = getBooksWithoutAuthors(pst);
-                            }
-                            listBooksFromDB.addAll(booksWithAuthors);
-                            listBooksFromDB.addAll(booksWithoutAuthors.stream().filter(book -> !booksWithAuthors.contains(book)).collect(Collectors.toList()));
-                            //Общие книги между списком добавления автору и тех что в БД. Для них надо добавить связи.
-                            List<Book> commonElements = toAdd.stream().filter(listBooksFromDB::contains).collect(Collectors.toList());
-                            //Новые книги, которых нет в БД. Их нужно сохранить и добавить связи.
-                            List<Book> newToAddInBD = toAdd.stream().filter(book -> !commonElements.contains(book)).collect(Collectors.toList());
-                            //Получение списка жанров из БД
-                            List<Genre> genreList = new ArrayList<>();
-                            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreFindAll.QUERY)) {
-                                genreList = findAllGenre(pst);
-                            }
-                            //Добавление новых книг в БД и добавление связей их с автором.
-                            for (Book book : newToAddInBD) {
-                                //Получаем жанр из книги
-                                Genre genre = book.getGenre();
-                                //Проверяем наличие в БД
-                                if (!genreList.contains(genre)) {
-                                    //если нет добавляем жанр и обновляем в книге
-                                    int addedGenre = saveNewGenre(genre, connection);
-                                    genre.setId(addedGenre);
-                                    book.setGenre(genre);
-                                } else {
-                                    //если есть, получаем из списка БД и обновляем в книге
-                                    Genre genreDB = genreList.get(genreList.indexOf(genre));
-                                    book.setGenre(genreDB);
-                                }
-                                //Сохраняем в книгу
-                                int bookId = 0;
-                                bookId = saveNewBook(book, connection);
-                                //добавляем связь с автором
-                                try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                                    pst.setInt(1, author.getId());
-                                    pst.setInt(2, bookId);
-                                    pst.executeUpdate();
-                                }
-                            }
-                            //Добавление связей между книгой и авторами, которые уже есть в БД
-                            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                                for (Book book : commonElements) {
-                                    int bookId = listBooksFromDB.get(listBooksFromDB.indexOf(book)).getId();
-                                    pst.setInt(1, author.getId());
-                                    pst.setInt(2, bookId);
-                                    pst.executeUpdate();
-                                }
-                            }
-                            //удаление связей
-                            removeRelationAuthorBooks(author.getId(), forRemoveRelation, connection);
-                        } else {
-                            //удаление связей
-                            removeRelationAuthorBooks(author.getId(), authorBookListFromBD, connection);
-                        }
-                        rowsUpdated = 1;
+                    //сравнение списков книг как множеств
+                    if (!new HashSet<>(author.getBookList()).equals(new HashSet<>(authorFromBD.getBookList()))) {
+                        rowsUpdated = checkAndSaveBooksListFromAuthorOnUpdate(author, authorFromBD.getBookList(), connection, identityMap) ? 1 : -1;
                     }
                 } else {
-                    //если поля не одинаковые, проверяем конфликты возможных изменений
-                    int authorCount = getAuthorCount(author, connection);
-                    if (authorCount == 0) {
-                        //если изменение возможно, сохраняем автора
-                        rowsUpdated = updateAuthor(author, connection);
+                    //если поля не одинаковые, сохраняем автора, конфликт с другим автором отсекает уникальный индекс
+                    rowsUpdated = updateAuthorIfUnique(author, connection);
+                    if (rowsUpdated != -1) {
                         //обновление связей с книгами и при необходимости создание новых с жанрами
-                        //получаем список книг автора
-                        List<Book> authorBookList = author.getBookList();
-                        //список книг связанных с автором
-                        List<Book> authorBookListFromBD = getAuthorBookListFromBD(author.getId(), connection);
-                        //если список книг у автора не пустой
-                        if (!authorBookList.isEmpty()) {
-                            //общие книги между переданным списком и тех что в БД. Им связи не меняем.
-                            List<Book> commonAuthorElements = authorBookList.stream().filter(authorBookListFromBD::contains).collect(Collectors.toList());
-                            //новые книги которые надо проверить на наличие в БД, при необходимости добавить в БД и добавить связи с автором.
-                            List<Book> toAdd = authorBookList.stream().filter(book -> !commonAuthorElements.contains(book)).collect(Collectors.toList());
-                            //книги с которыми надо удалить связи
-                            List<Book> forRemoveRelation = authorBookListFromBD.stream().filter(book -> !commonAuthorElements.contains(book)).collect(Collectors.toList());
-                            //Проверка наличия книг с которыми добавляются связи вновь
-                            //получаем список книг из всей БД
-                            List<Book> listBooksFromDB = new ArrayList<>();
-                            List<Book> booksWithAuthors;
-                            List<Book> booksWithoutAuthors;
-                            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindAll_WithAuthors.QUERY)) {
-                                booksWithAuthors = getBooksWithAuthors(pst);
-                            }
-                            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindAll_WithoutAuthors.QUERY)) {
-                                booksWithoutAuthors = getBooksWithoutAuthors(pst);
-                            }
-                            listBooksFromDB.addAll(booksWithAuthors);
-                            listBooksFromDB.addAll(booksWithoutAuthors.stream().filter(book -> !booksWithAuthors.contains(book)).collect(Collectors.toList()));
-                            //Общие книги между списком добавления автору и тех что в БД. Для них надо добавить связи.
-                            List<Book> commonElements = toAdd.stream().filter(listBooksFromDB::contains).collect(Collectors.toList());
-                            //Новые книги, которых нет в БД. Их нужно сохранить и добавить связи.
-                            List<Book> newToAddInBD = toAdd.stream().filter(book -> !commonElements.contains(book)).collect(Collectors.toList());
-                            //Получение списка жанров из БД
-                            List<Genre> genreList;
-                            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreFindAll.QUERY)) {
-                                genreList = findAllGenre(pst);
-                            }
-                            //Добавление новых книг в БД и добавление связей их с автором.
-                            for (Book book : newToAddInBD) {
-                                //Получаем жанр из книги
-                                Genre genre = book.getGenre();
-                                //Проверяем наличие в БД
-                                if (!genreList.contains(genre)) {
-                                    //если нет добавляем жанр и обновляем в книге
-                                    int addedGenre = saveNewGenre(genre, connection);
-                                    genre.setId(addedGenre);
-                                    book.setGenre(genre);
-                                } else {
-                                    //если есть, получаем из списка БД и обновляем в книге
-                                    Genre genreDB = genreList.get(genreList.indexOf(genre));
-                                    book.setGenre(genreDB);
-                                }
-                                //Сохраняем в книгу
-                                int bookId = 0;
-                                bookId = saveNewBook(book, connection);
-                                //добавляем связь с автором
-                                try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                                    pst.setInt(1, author.getId());
-                                    pst.setInt(2, bookId);
-                                    pst.executeUpdate();
-                                }
-                            }
-                            //Добавление связей между книгой и авторами, которые уже есть в БД
-                            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                                for (Book book : commonElements) {
-                                    int bookId = listBooksFromDB.get(listBooksFromDB.indexOf(book)).getId();
-                                    pst.setInt(1, author.getId());
-                                    pst.setInt(2, bookId);
-                                    pst.executeUpdate();
-                                }
-                            }
-                            //удаление связей
-                            removeRelationAuthorBooks(author.getId(), forRemoveRelation, connection);
-                        } else {
-                            //удаление связей
-                            removeRelationAuthorBooks(author.getId(), authorBookListFromBD, connection);
+                        if (!checkAndSaveBooksListFromAuthorOnUpdate(author, authorFromBD.getBookList(), connection, identityMap)) {
+                            rowsUpdated = -1;
                         }
-                    } else {
-                        //нельзя обновить, так как с такими name и surname уже существуют записи
-                        rowsUpdated = -1;
                     }
                 }
             }
 
-            sessionManager.commitSession();
+            if (rowsUpdated != -1) {
+                sessionManager.commitSession();
+            } else {
+                //изменения, сделанные до конфликта, тоже не нужны
+                sessionManager.rollbackSession();
+            }
             sessionManager.finishTransaction();
+            if (rowsUpdated != -1) {
+                genreRegistry.registerAll(identityMap.savedGenres(), registryVersion);
+            }
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
+            if (isMissingReference(ex)) {
+                //жанр из справочника удалён в обход этого процесса
+                genreRegistry.invalidate();
+            }
             throw ex;
         }
         return rowsUpdated;
@@ -371,7 +379,7 @@ public class AuthorDAOImpl implements AuthorDAO {
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
-            Author authorFromBD = getAuthorFromBD(authorId, connection);
+            Author authorFromBD = getAuthorFromBD(authorId, connection, new IdentityMap());
             if (authorFromBD != null) {
                 removeRelationAuthorBooks(authorId, authorFromBD.getBookList(), connection);
                 rowsUpdated = deleteAuthor(authorId, connection);
@@ -387,12 +395,12 @@ public class AuthorDAOImpl implements AuthorDAO {
         return rowsUpdated;
     }
 
-    private Author getAuthorFromBD(int authorId, Connection connection) throws SQLException {
+    private Author getAuthorFromBD(int authorId, Connection connection, IdentityMap identityMap) throws SQLException {
         Author author = null;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AuthorFindByIdWithBooks.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_AuthorFindByIdWithBooks.prepare(connection)) {
             pst.setInt(1, authorId);
             try (ResultSet rs = pst.executeQuery()) {
-                Author dbAuthor = getAuthorWithBooks(rs);
+                Author dbAuthor = getAuthor(rs, true, identityMap);
                 if (dbAuthor.getId() != 0) {
                     author = dbAuthor;
                 }
@@ -400,10 +408,10 @@ public class AuthorDAOImpl implements AuthorDAO {
         }
 
         if (author == null) {
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AuthorFindByIdWithoutBooks.QUERY)) {
+            try (PreparedStatement pst = SQLQuery.QUERY_AuthorFindByIdWithoutBooks.prepare(connection)) {
                 pst.setInt(1, authorId);
                 try (ResultSet rs = pst.executeQuery()) {
-                    Author dbAuthor = getAuthorWithoutBooks(rs);
+                    Author dbAuthor = getAuthor(rs, false, identityMap);
                     if (dbAuthor.getId() != 0) {
                         author = dbAuthor;
                     }
@@ -413,117 +421,147 @@ public class AuthorDAOImpl implements AuthorDAO {
         return author;
     }
 
-    private Author getAuthorWithBooks(ResultSet rs) throws SQLException {
-        List<Book> books = new ArrayList<>();
+    //если строк нет, возвращается автор с id 0
+    private Author getAuthor(ResultSet rs, boolean withBooks, IdentityMap identityMap) throws SQLException {
+        AuthorRowMapper mapper = new AuthorRowMapper(rs, withBooks, identityMap);
         Author dbAuthor = new Author();
         while (rs.next()) {
-            dbAuthor.setId(Integer.parseInt(rs.getString("aid")));
-            dbAuthor.setName(rs.getString("aname"));
-            dbAuthor.setSurname(rs.getString("asurname"));
+            if (dbAuthor.getId() == 0) {
+                dbAuthor = mapper.mapAuthor(mapper.authorId());
+            }
+            if (withBooks) {
+                mapper.addBook(dbAuthor);
+            }
+        }
+        return dbAuthor;
+    }
 
-            Book book = new Book();
-            book.setId(Integer.parseInt(rs.getString("bid")));
-            book.setTitle(rs.getString("btitle"));
-            book.setAuthorList(new ArrayList<>());
+    //книга однозначно определяется названием без учёта регистра (уникальный индекс book.title), поэтому повторы в списке отсекаются по нему
+    private static Map<String, Book> booksByTitle(Collection<Book> books) {
+        Map<String, Book> booksByTitle = new LinkedHashMap<>();
+        for (Book book : books) {
+            booksByTitle.putIfAbsent(NameKey.of(book.getTitle()), book);
+        }
+        return booksByTitle;
+    }
 
-            Genre genre = new Genre();
-            genre.setId((Integer.parseInt(rs.getString("gid"))));
-            genre.setName((rs.getString("gname")));
+    //возвращает false, если книгу с названием из списка параллельно сохранила другая транзакция
+    private boolean checkAndSaveBooksListWithGenreFromAuthorOnSave(int authorId, Connection connection, List<Book> bookList, IdentityMap identityMap) throws SQLException {
+        //дубликаты в переданном списке связываются с автором один раз
+        return addRelationAuthorBooks(authorId, booksByTitle(bookList).values(), connection, identityMap);
+    }
 
-            book.setGenre(genre);
-            books.add(book);
+    //возвращает false, если книгу с названием из списка параллельно сохранила другая транзакция
+    private boolean checkAndSaveBooksListFromAuthorOnUpdate(Author author, List<Book> authorBookListFromBD, Connection connection, IdentityMap identityMap) throws SQLException {
+        //переданные книги автора и книги, связанные с автором в БД, сравниваются по названию:
+        //книга с тем же названием и другим жанром - это та же книга из БД
+        Map<String, Book> authorBooks = booksByTitle(author.getBookList());
+        Map<String, Book> authorBooksFromBD = booksByTitle(authorBookListFromBD);
+
+        //новые книги автора: найти в БД или сохранить вместе с жанром и добавить связи
+        List<Book> toAdd = new ArrayList<>();
+        for (Map.Entry<String, Book> entry : authorBooks.entrySet()) {
+            if (!authorBooksFromBD.containsKey(entry.getKey())) {
+                toAdd.add(entry.getValue());
+            }
+        }
+        //книги, с которыми надо удалить связи
+        List<Book> forRemoveRelation = new ArrayList<>();
+        for (Book book : authorBookListFromBD) {
+            if (!authorBooks.containsKey(NameKey.of(book.getTitle()))) {
+                forRemoveRelation.add(book);
+            }
         }
-        dbAuthor.setBookList(books);
-        return dbAuthor;
-    }
 
-    private Author getAuthorWithoutBooks(ResultSet rs) throws SQLException {
-        Author dbAuthor = new Author();
-        while (rs.next()) {
-            dbAuthor.setId(Integer.parseInt(rs.getString("aid")));
-            dbAuthor.setName(rs.getString("aname"));
-            dbAuthor.setSurname(rs.getString("asurname"));
+        if (!addRelationAuthorBooks(author.getId(), toAdd, connection, identityMap)) {
+            return false;
         }
-        return dbAuthor;
+        removeRelationAuthorBooks(author.getId(), forRemoveRelation, connection);
+        return true;
     }
 
-    private void checkAndSaveBooksListWithGenreFromAuthorOnSave(int authorId, Connection connection, List<Book> bookList) throws SQLException {
-        if (!bookList.isEmpty()) {
-            //получаем список книг из всей БД
-            List<Book> listBooksFromDB = new ArrayList<>();
-            List<Book> booksWithAuthors;
-            List<Book> booksWithoutAuthors;
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindAll_WithAuthors.QUERY)) {
-                booksWithAuthors = getBooksWithAuthors(pst);
-            }
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindAll_WithoutAuthors.QUERY)) {
-                booksWithoutAuthors = getBooksWithoutAuthors(pst);
-            }
-            listBooksFromDB.addAll(booksWithAuthors);
-            listBooksFromDB.addAll(booksWithoutAuthors.stream().filter(book -> !booksWithAuthors.contains(book)).collect(Collectors.toList()));
-            //Общие книги между списком автора и тех что в БД. Для них надо добавить связи.
-            List<Book> commonElements = bookList.stream().filter(listBooksFromDB::contains).collect(Collectors.toList());
-            //Новые книги, которых нет в БД. Их нужно сохранить и добавить связи.
-            List<Book> toAdd = bookList.stream().filter(book -> !commonElements.contains(book)).collect(Collectors.toList());
-            //Получаем список жанров из БД
-            List<Genre> genreList;
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreFindAll.QUERY)) {
-                genreList = findAllGenre(pst);
-            }
-            //Добавление новых книг в БД и добавление связей их с автором.
-            for (Book book : toAdd) {
-                //Получаем жанр из книги
-                Genre genre = book.getGenre();
-                //Проверяем наличие в БД
-                if (!genreList.contains(genre)) {
-                    //если нет добавляем жанр и обновляем в книге
-                    int addedGenre = saveNewGenre(genre, connection);
-                    genre.setId(addedGenre);
-                    book.setGenre(genre);
+    //ищет переданные книги в БД по названию, отсутствующие сохраняет вместе с жанром, и добавляет связи с автором,
+    //названия в списке не повторяются; возвращает false, если книгу параллельно сохранила другая транзакция
+    private boolean addRelationAuthorBooks(int authorId, Collection<Book> books, Connection connection, IdentityMap identityMap) throws SQLException {
+        if (books.isEmpty()) {
+            return true;
+        }
+        Map<String, Book> booksFromDB = findBooksByTitles(books, connection, identityMap);
+        //жанры запрашиваются только для книг, которых нет в БД
+        List<Genre> newBookGenres = new ArrayList<>();
+        for (Book book : books) {
+            if (!booksFromDB.containsKey(NameKey.of(book.getTitle()))) {
+                newBookGenres.add(book.getGenre());
+            }
+        }
+        Map<String, Genre> genresFromDB = findGenresByNames(newBookGenres, connection, identityMap, genreRegistry);
+
+        List<Integer> bookIds = new ArrayList<>();
+        try (PreparedStatement pst = SQLQuery.QUERY_AddRelationAuthorsBooks.prepare(connection)) {
+            for (Book book : books) {
+                Book bookFromDB = booksFromDB.get(NameKey.of(book.getTitle()));
+                int bookId;
+                if (bookFromDB != null) {
+                    bookId = bookFromDB.getId();
                 } else {
-                    //если есть, получаем из списка БД и обновляем в книге
-                    Genre genreDB = genreList.get(genreList.indexOf(genre));
-                    book.setGenre(genreDB);
-                }
-                //Сохраняем в книгу
-                int bookId = 0;
-                bookId = saveNewBook(book, connection);
-                //добавляем связь с автором
-                try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                    pst.setInt(1, authorId);
-                    pst.setInt(2, bookId);
-                    pst.executeUpdate();
+                    book.setGenre(resolveGenre(book.getGenre(), genresFromDB, connection, identityMap));
+                    bookId = saveBookIfAbsent(book, connection);
+                    if (bookId == -1) {
+                        return false;
+                    }
                 }
+                pst.setInt(1, authorId);
+                pst.setInt(2, bookId);
+                pst.addBatch();
+                bookIds.add(bookId);
             }
-            //Добавление связей между книгой и авторами, которые уже есть в БД
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                for (Book b : commonElements) {
-                    int bookId = listBooksFromDB.get(listBooksFromDB.indexOf(b)).getId();
-                    pst.setInt(1, authorId);
-                    pst.setInt(2, bookId);
-                    pst.executeUpdate();
-                }
+            //связи отправляются в БД одним пакетом
+            pst.executeBatch();
+        }
+        touchBooks(bookIds, connection);
+        touchAuthors(Collections.singleton(authorId), connection);
+        return true;
+    }
+
+    //возвращает -1, если книга с таким title уже есть
+    private int saveBookIfAbsent(Book book, Connection connection) throws SQLException {
+        try {
+            return saveNewBook(book, connection);
+        } catch (SQLException ex) {
+            if (!isDuplicateKey(ex)) {
+                throw ex;
             }
+            return -1;
         }
     }
 
-    private int getAuthorCount(Author author, Connection connection) throws SQLException {
-        int authorCount = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_CountAuthorByNameAndSurname.QUERY)) {
-            pst.setString(1, author.getName());
-            pst.setString(2, author.getSurname());
-            try (ResultSet rs = pst.executeQuery()) {
-                if (rs.next()) {
-                    authorCount = rs.getInt("Count(*)");
-                }
+    //возвращает -1, если автор с такими name и surname уже есть
+    private int saveAuthorIfAbsent(Author author, Connection connection) throws SQLException {
+        try {
+            return saveNewAuthor(author, connection);
+        } catch (SQLException ex) {
+            if (!isDuplicateKey(ex)) {
+                throw ex;
             }
+            return -1;
+        }
+    }
+
+    //возвращает -1, если name и surname уже заняты другим автором
+    private int updateAuthorIfUnique(Author author, Connection connection) throws SQLException {
+        try {
+            return updateAuthor(author, connection);
+        } catch (SQLException ex) {
+            if (!isDuplicateKey(ex)) {
+                throw ex;
+            }
+            return -1;
         }
-        return authorCount;
     }
 
     private int updateAuthor(Author author, Connection connection) throws SQLException {
         int rowsUpdated = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AuthorUpdateById.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_AuthorUpdateById.prepare(connection)) {
             pst.setString(1, author.getName());
             pst.setString(2, author.getSurname());
             pst.setInt(3, author.getId());
@@ -535,45 +573,25 @@ public class AuthorDAOImpl implements AuthorDAO {
 
     private void removeRelationAuthorBooks(int authorId, List<Book> bookList, Connection connection) throws SQLException {
         if (!bookList.isEmpty()) {
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_RemoveRelationAuthorsBooks.QUERY)) {
+            List<Integer> bookIds = new ArrayList<>();
+            try (PreparedStatement pst = SQLQuery.QUERY_RemoveRelationAuthorsBooks.prepare(connection)) {
                 for (Book book : bookList) {
                     pst.setInt(1, authorId);
                     pst.setInt(2, book.getId());
-                    pst.executeUpdate();
-                }
-            }
-        }
-    }
-
-    private List<Book> getAuthorBookListFromBD(int authorId, Connection connection) throws SQLException {
-        List<Book> authorBookListFromBD = new ArrayList<>();
-
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AllBookFindByAuthorId.QUERY)) {
-            pst.setInt(1, authorId);
-
-            try (ResultSet rs = pst.executeQuery()) {
-                while (rs.next()) {
-                    Book book = new Book();
-                    book.setId(Integer.parseInt(rs.getString("bid")));
-                    book.setTitle(rs.getString("btitle"));
-                    book.setAuthorList(new ArrayList<>());
-
-                    Genre genre = new Genre();
-                    genre.setId(Integer.parseInt(rs.getString("gid")));
-                    genre.setName(rs.getString("gname"));
-
-                    book.setGenre(genre);
-
-                    authorBookListFromBD.add(book);
+                    pst.addBatch();
+                    bookIds.add(book.getId());
                 }
+                //связи отправляются в БД одним пакетом
+                pst.executeBatch();
             }
+            touchBooks(bookIds, connection);
+            touchAuthors(Collections.singleton(authorId), connection);
         }
-        return authorBookListFromBD;
     }
 
     private int deleteAuthor(int authorId, Connection connection) throws SQLException {
         int rowsUpdated = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AuthorDeleteById.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_AuthorDeleteById.prepare(connection)) {
             pst.setInt(1, authorId);
 
             rowsUpdated = pst.executeUpdate();
@@ -0,0 +1,88 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.Genre;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Сборка авторов из строк запросов с колонками aid, aname, asurname и, для запросов с книгами, bid, btitle, gid, gname.
+ * Индексы колонок находятся один раз на ResultSet, книга, жанр и автор без книг берутся из {@link IdentityMap} операции.
+ */
+final class AuthorRowMapper {
+
+    private final ResultSet rs;
+    private final int authorIdColumn;
+    private final int authorNameColumn;
+    private final int authorSurnameColumn;
+    private final int bookIdColumn;
+    private final int bookTitleColumn;
+    private final int genreIdColumn;
+    private final int genreNameColumn;
+    private final boolean withBooks;
+    private final IdentityMap identityMap;
+
+    AuthorRowMapper(ResultSet rs, boolean withBooks, IdentityMap identityMap) throws SQLException {
+        this.rs = rs;
+        this.withBooks = withBooks;
+        this.identityMap = identityMap;
+        this.authorIdColumn = rs.findColumn("aid");
+        this.authorNameColumn = rs.findColumn("aname");
+        this.authorSurnameColumn = rs.findColumn("asurname");
+        this.bookIdColumn = withBooks ? rs.findColumn("bid") : 0;
+        this.bookTitleColumn = withBooks ? rs.findColumn("btitle") : 0;
+        this.genreIdColumn = withBooks ? rs.findColumn("gid") : 0;
+        this.genreNameColumn = withBooks ? rs.findColumn("gname") : 0;
+    }
+
+    int authorId() throws SQLException {
+        return rs.getInt(authorIdColumn);
+    }
+
+    //автор со списком книг всегда новый, его список заполняет addBook
+    Author mapAuthor(int authorId) throws SQLException {
+        Author dbAuthor = withBooks ? null : identityMap.getAuthor(authorId);
+        if (dbAuthor == null) {
+            dbAuthor = new Author();
+            dbAuthor.setId(authorId);
+            dbAuthor.setName(rs.getString(authorNameColumn));
+            dbAuthor.setSurname(rs.getString(authorSurnameColumn));
+            if (!withBooks) {
+                identityMap.putAuthor(dbAuthor);
+            }
+        }
+        return dbAuthor;
+    }
+
+    //книга нескольких авторов - один объект в их списках книг, её список авторов остаётся пустым
+    void addBook(Author dbAuthor) throws SQLException {
+        int bookId = rs.getInt(bookIdColumn);
+        //у автора без книг поля книги равны NULL
+        if (rs.wasNull()) {
+            return;
+        }
+        Book book = identityMap.getBook(bookId);
+        if (book == null) {
+            book = new Book();
+            book.setId(bookId);
+            book.setTitle(rs.getString(bookTitleColumn));
+            book.setGenre(mapGenre());
+            identityMap.putBook(book);
+        }
+        dbAuthor.getBookList().add(book);
+    }
+
+    private Genre mapGenre() throws SQLException {
+        int genreId = rs.getInt(genreIdColumn);
+        Genre genre = identityMap.getGenre(genreId);
+        if (genre == null) {
+            genre = new Genre();
+            genre.setId(genreId);
+            genre.setName(rs.getString(genreNameColumn));
+            identityMap.putGenre(genre);
+        }
+        return genre;
+    }
+}
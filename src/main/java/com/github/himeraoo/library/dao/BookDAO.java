@@ -1,5 +1,6 @@
 package com.github.himeraoo.library.dao;
 
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.models.Book;
 
 import java.sql.SQLException;
@@ -10,10 +11,34 @@ public interface BookDAO {
 
     Optional<Book> findById(int bookId) throws SQLException;
 
+    /**
+     * Версия книги для условного GET, дешевле {@link #findById(int)}; пусто, если книги нет.
+     */
+    Optional<EntityVersion> findVersionById(int bookId) throws SQLException;
+
+    /**
+     * То же, что {@link #findById(int)}, для ответа с версией version, прочитанной перед этим через
+     * {@link #findVersionById(int)}: данные не старше этой версии. Чтение из БД всегда такое, кэш его переопределяет.
+     */
+    default Optional<Book> findById(int bookId, EntityVersion version) throws SQLException {
+        return findById(bookId);
+    }
+
     List<Book> findAll() throws SQLException;
 
+    /**
+     * Версия списка всех книг, её же получают страницы списка.
+     */
+    EntityVersion findAllVersion() throws SQLException;
+
+    List<Book> findAll(int afterBookId, int limit) throws SQLException;
+
+    <E extends Exception> void streamAll(EntityConsumer<Book, E> consumer) throws SQLException, E;
+
     int save(Book book) throws SQLException;
 
+    List<Integer> saveAll(List<Book> books) throws SQLException;
+
     int update(Book book) throws SQLException;
 
     int deleteById(int bookId) throws SQLException;
@@ -1,7 +1,9 @@
 package com.github.himeraoo.library.dao;
 
+import com.github.himeraoo.library.jdbc.FetchConfig;
 import com.github.himeraoo.library.jdbc.SessionManager;
 import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.models.Book;
 import com.github.himeraoo.library.models.Genre;
 
@@ -9,30 +11,48 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeSet;
 
-import static com.github.himeraoo.library.dao.AuthorDAOImpl.getAuthorsWithBooks;
-import static com.github.himeraoo.library.dao.AuthorDAOImpl.getAuthorsWithoutBooks;
+import static com.github.himeraoo.library.dao.AuthorDAOImpl.authorsByName;
+import static com.github.himeraoo.library.dao.AuthorDAOImpl.findAuthorsByNames;
 import static com.github.himeraoo.library.dao.AuthorDAOImpl.saveNewAuthor;
-import static com.github.himeraoo.library.dao.GenreDAOImpl.findAllGenre;
-import static com.github.himeraoo.library.dao.GenreDAOImpl.saveNewGenre;
+import static com.github.himeraoo.library.dao.AuthorDAOImpl.saveNewAuthors;
+import static com.github.himeraoo.library.dao.AuthorDAOImpl.touchAuthors;
+import static com.github.himeraoo.library.dao.ConstraintViolations.isDuplicateKey;
+import static com.github.himeraoo.library.dao.ConstraintViolations.isMissingReference;
+import static com.github.himeraoo.library.dao.GenreDAOImpl.findGenresByNames;
+import static com.github.himeraoo.library.dao.GenreDAOImpl.resolveGenre;
 
 public class BookDAOImpl implements BookDAO {
 
     private final SessionManager sessionManager;
+    private final FetchConfig fetchConfig;
+    private final GenreRegistry genreRegistry;
 
     public BookDAOImpl(SessionManager sessionManager) {
+        this(sessionManager, new FetchConfig());
+    }
+
+    public BookDAOImpl(SessionManager sessionManager, FetchConfig fetchConfig) {
         this.sessionManager = sessionManager;
+        this.fetchConfig = fetchConfig;
+        this.genreRegistry = GenreRegistry.forSession(sessionManager);
     }
 
     protected static int saveNewBook(Book book, Connection connection) throws SQLException {
         int bookId = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookSave.QUERY, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_BookSave.prepareReturningKeys(connection)) {
             pst.setString(1, book.getTitle());
             pst.setInt(2, book.getGenre().getId());
             pst.executeUpdate();
@@ -46,54 +66,108 @@ public class BookDAOImpl implements BookDAO {
         return bookId;
     }
 
-    protected static List<Book> getBooksWithoutAuthors(PreparedStatement pst) throws SQLException {
-        List<Book> booksWithoutAuthors = new ArrayList<>();
-        try (ResultSet rs = pst.executeQuery()) {
-            while (rs.next()) {
-                Book dbBook = new Book();
-                dbBook.setId(Integer.parseInt(rs.getString("bid")));
-                dbBook.setTitle(rs.getString("btitle"));
+    //связь с автором входит в ответ и книги, и автора, поэтому её изменение увеличивает версию обоих
+    protected static void touchBooks(Collection<Integer> bookIds, Connection connection) throws SQLException {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pst = SQLQuery.QUERY_BookTouchById.prepare(connection)) {
+            //строки блокируются в порядке id, чтобы встречные транзакции не ждали друг друга по кругу
+            for (int bookId : new TreeSet<>(bookIds)) {
+                pst.setInt(1, bookId);
+                pst.addBatch();
+            }
+            pst.executeBatch();
+        }
+    }
 
-                Genre genre = new Genre();
-                genre.setId((Integer.parseInt(rs.getString("gid"))));
-                genre.setName((rs.getString("gname")));
+    //сохраняет книги одним пакетом и проставляет им сгенерированные id
+    private static void saveNewBooks(List<Book> books, Connection connection) throws SQLException {
+        try (PreparedStatement pst = SQLQuery.QUERY_BookSave.prepareReturningKeys(connection)) {
+            for (Book book : books) {
+                pst.setString(1, book.getTitle());
+                pst.setInt(2, book.getGenre().getId());
+                pst.addBatch();
+            }
+            pst.executeBatch();
 
-                dbBook.setGenre(genre);
-                booksWithoutAuthors.add(dbBook);
+            //ключи возвращаются в порядке добавления в пакет
+            try (ResultSet rs = pst.getGeneratedKeys()) {
+                for (Book book : books) {
+                    if (rs.next()) {
+                        book.setId(rs.getInt(1));
+                    }
+                }
             }
         }
-        return booksWithoutAuthors;
     }
 
-    protected static List<Book> getBooksWithAuthors(PreparedStatement pst) throws SQLException {
-        HashMap<Integer, Book> integerBookHashMap = new HashMap<>();
+    //строки LEFT JOIN запроса собираются в книги за один проход, ключ - id книги
+    protected static List<Book> getBooksWithAuthors(PreparedStatement pst, IdentityMap identityMap) throws SQLException {
+        Map<Integer, Book> integerBookHashMap = new LinkedHashMap<>();
 
         try (ResultSet rs = pst.executeQuery()) {
+            BookRowMapper mapper = new BookRowMapper(rs, true, identityMap);
             while (rs.next()) {
-                Book dbBook = new Book();
-                dbBook.setId(Integer.parseInt(rs.getString("bid")));
-                dbBook.setTitle(rs.getString("btitle"));
-
-                Genre genre = new Genre();
-                genre.setId((Integer.parseInt(rs.getString("gid"))));
-                genre.setName((rs.getString("gname")));
+                int bookId = mapper.bookId();
+                Book dbBook = integerBookHashMap.get(bookId);
+                if (dbBook == null) {
+                    dbBook = mapper.mapBook(bookId);
+                    integerBookHashMap.put(bookId, dbBook);
+                }
+                mapper.addAuthor(dbBook);
+            }
+        }
+        return new ArrayList<>(integerBookHashMap.values());
+    }
 
-                dbBook.setGenre(genre);
+    //строки должны быть упорядочены по id книги: книга отдаётся, как только начинаются строки следующей
+    protected static <E extends Exception> void streamBooksWithAuthors(PreparedStatement pst, IdentityMap identityMap, EntityConsumer<Book, E> consumer) throws SQLException, E {
+        try (ResultSet rs = pst.executeQuery()) {
+            BookRowMapper mapper = new BookRowMapper(rs, true, identityMap);
+            Book dbBook = null;
+            while (rs.next()) {
+                int bookId = mapper.bookId();
+                if (dbBook == null || dbBook.getId() != bookId) {
+                    if (dbBook != null) {
+                        consumer.accept(dbBook);
+                    }
+                    dbBook = mapper.mapBook(bookId);
+                }
+                mapper.addAuthor(dbBook);
+            }
+            if (dbBook != null) {
+                consumer.accept(dbBook);
+            }
+        }
+    }
 
-                Author author = new Author();
-                author.setId(Integer.parseInt(rs.getString("aid")));
-                author.setName(rs.getString("aname"));
-                author.setSurname(rs.getString("asurname"));
+    //ищет в БД только книги с переданными названиями, ключ - NameKey названия, значение - книга из БД (название и жанр)
+    protected static Map<String, Book> findBooksByTitles(Collection<Book> books, Connection connection, IdentityMap identityMap) throws SQLException {
+        Map<String, Book> booksFromDB = new HashMap<>();
+        //названия, отличающиеся только регистром, запрашиваются один раз
+        Map<String, String> titles = new LinkedHashMap<>();
+        for (Book book : books) {
+            titles.putIfAbsent(NameKey.of(book.getTitle()), book.getTitle());
+        }
+        if (titles.isEmpty()) {
+            return booksFromDB;
+        }
 
-                if (integerBookHashMap.containsKey(dbBook.getId())) {
-                    integerBookHashMap.get(dbBook.getId()).getAuthorList().add(author);
-                } else {
-                    dbBook.getAuthorList().add(author);
-                    integerBookHashMap.put(dbBook.getId(), dbBook);
+        try (PreparedStatement pst = SQLQuery.QUERY_BookFindByTitles.prepareWithParameters(connection, titles.size(), 1)) {
+            int index = 1;
+            for (String title : titles.values()) {
+                pst.setString(index++, title);
+            }
+            try (ResultSet rs = pst.executeQuery()) {
+                BookRowMapper mapper = new BookRowMapper(rs, false, identityMap);
+                while (rs.next()) {
+                    Book dbBook = mapper.mapBook(mapper.bookId());
+                    booksFromDB.put(NameKey.of(dbBook.getTitle()), dbBook);
                 }
             }
         }
-        return new ArrayList<>(integerBookHashMap.values());
+        return booksFromDB;
     }
 
     @Override
@@ -102,7 +176,7 @@ public class BookDAOImpl implements BookDAO {
 
         Book book = null;
         try (Connection connection = sessionManager.getCurrentSession()) {
-            book = getBookFromDB(bookId, connection);
+            book = getBookFromDB(bookId, connection, new IdentityMap());
 
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
@@ -112,21 +186,67 @@ public class BookDAOImpl implements BookDAO {
         return Optional.ofNullable(book);
     }
 
+    @Override
+    public Optional<EntityVersion> findVersionById(int bookId) throws SQLException {
+        sessionManager.beginSession();
+
+        EntityVersion version;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_BookFindVersionById.prepare(connection)) {
+                pst.setInt(1, bookId);
+                version = VersionDigest.read(pst);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return Optional.ofNullable(version);
+    }
+
     @Override
     public List<Book> findAll() throws SQLException {
         sessionManager.beginSession();
-        List<Book> bookList = new ArrayList<>();
-        List<Book> booksWithAuthors;
-        List<Book> booksWithoutAuthors;
+        List<Book> bookList;
         try (Connection connection = sessionManager.getCurrentSession()) {
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindAll_WithAuthors.QUERY)) {
-                booksWithAuthors = getBooksWithAuthors(pst);
+            try (PreparedStatement pst = SQLQuery.QUERY_BookFindAll.prepare(connection, fetchConfig)) {
+                bookList = getBooksWithAuthors(pst, new IdentityMap());
             }
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindAll_WithoutAuthors.QUERY)) {
-                booksWithoutAuthors = getBooksWithoutAuthors(pst);
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return bookList;
+    }
+
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        sessionManager.beginSession();
+
+        EntityVersion version;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_CatalogFindListVersion.prepare(connection)) {
+                version = VersionDigest.read(pst);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return version;
+    }
+
+    @Override
+    public List<Book> findAll(int afterBookId, int limit) throws SQLException {
+        sessionManager.beginSession();
+        List<Book> bookList;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_BookFindPage.prepare(connection, fetchConfig)) {
+                pst.setInt(1, afterBookId);
+                pst.setInt(2, limit);
+                bookList = getBooksWithAuthors(pst, new IdentityMap());
             }
-            bookList.addAll(booksWithAuthors);
-            bookList.addAll(booksWithoutAuthors.stream().filter(book -> !booksWithAuthors.contains(book)).collect(Collectors.toList()));
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
@@ -135,52 +255,141 @@ public class BookDAOImpl implements BookDAO {
         return bookList;
     }
 
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<Book, E> consumer) throws SQLException, E {
+        sessionManager.beginSession();
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_BookFindAll.prepare(connection, fetchConfig)) {
+                streamBooksWithAuthors(pst, IdentityMap.forStreaming(), consumer);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+    }
+
     @Override
     public int save(Book book) throws SQLException {
         sessionManager.beginSession();
         int bookId = 0;
+        IdentityMap identityMap = new IdentityMap();
+        long registryVersion = genreRegistry.version();
 
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
-            //проверяем наличие книг с такими названиями
-            int bookCount = getBookCount(book, connection);
-            //если нет, начинаем добавление
-            if (bookCount == 0) {
-                //проверка наличия жанра, при необходимости сохранение нового
-                checkAndSaveGenre(book, connection);
+            //проверка наличия жанра, при необходимости сохранение нового
+            checkAndSaveGenre(book, connection, identityMap);
 
-                //сохранение книги
-                bookId = saveNewBook(book, connection);
+            //сохранение книги, книгу с таким названием отсекает уникальный индекс
+            bookId = saveBookIfAbsent(book, connection);
+            if (bookId != -1) {
                 //сохранение списка авторов книги и добавление связей
                 //получаем список авторов книги
                 List<Author> authorList = book.getAuthorList();
                 //если список авторов у книги не пустой
-                checkAndSaveAuthorsListFromBookOnSave(bookId, authorList, connection);
+                checkAndSaveAuthorsListFromBookOnSave(bookId, authorList, connection, identityMap);
+                sessionManager.commitSession();
             } else {
-                bookId = -1;
+                //жанр, сохранённый для этой книги, тоже не нужен
+                sessionManager.rollbackSession();
+            }
+            sessionManager.finishTransaction();
+            if (bookId != -1) {
+                genreRegistry.registerAll(identityMap.savedGenres(), registryVersion);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            if (isMissingReference(ex)) {
+                //жанр из справочника удалён в обход этого процесса
+                genreRegistry.invalidate();
+            }
+            throw ex;
+        }
+        return bookId;
+    }
+
+    //сохраняет пакет книг в одной транзакции, для каждой книги возвращает её id или -1, если книга с таким названием уже есть
+    @Override
+    public List<Integer> saveAll(List<Book> books) throws SQLException {
+        sessionManager.beginSession();
+        List<Integer> bookIds = new ArrayList<>();
+        IdentityMap identityMap = new IdentityMap();
+        long registryVersion = genreRegistry.version();
+
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            sessionManager.startTransaction();
+
+            //ключи названий книг из БД, дальше в него добавляются названия из пакета, чтобы отсеять повторы внутри пакета
+            Set<String> titles = new HashSet<>(findBooksByTitles(books, connection, identityMap).keySet());
+            boolean[] isNew = new boolean[books.size()];
+            List<Book> newBooks = new ArrayList<>();
+            List<Genre> genres = new ArrayList<>();
+            List<Author> authors = new ArrayList<>();
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                if (titles.add(NameKey.of(book.getTitle()))) {
+                    isNew[i] = true;
+                    newBooks.add(book);
+                    genres.add(book.getGenre());
+                    authors.addAll(book.getAuthorList());
+                }
+            }
+
+            if (!newBooks.isEmpty()) {
+                //жанры и авторы ищутся в БД одним запросом на пакет, отсутствующие сохраняются
+                Map<String, Genre> genresFromDB = findGenresByNames(genres, connection, identityMap, genreRegistry);
+                for (Book book : newBooks) {
+                    book.setGenre(resolveGenre(book.getGenre(), genresFromDB, connection, identityMap));
+                }
+                Map<String, Author> authorsFromDB = findAuthorsByNames(authors, connection, identityMap);
+                List<Author> newAuthors = new ArrayList<>();
+                for (Map.Entry<String, Author> entry : authorsByName(authors).entrySet()) {
+                    if (!authorsFromDB.containsKey(entry.getKey())) {
+                        newAuthors.add(entry.getValue());
+                        authorsFromDB.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                //id проставляются в тех же объектах, что лежат в authorsFromDB
+                saveNewAuthors(newAuthors, connection);
+
+                saveNewBooks(newBooks, connection);
+                addRelationAuthorsBooks(newBooks, authorsFromDB, connection);
+            }
+
+            for (int i = 0; i < books.size(); i++) {
+                bookIds.add(isNew[i] ? books.get(i).getId() : -1);
             }
 
             sessionManager.commitSession();
             sessionManager.finishTransaction();
+            genreRegistry.registerAll(identityMap.savedGenres(), registryVersion);
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
+            if (isMissingReference(ex)) {
+                //жанр из справочника удалён в обход этого процесса
+                genreRegistry.invalidate();
+            }
             throw ex;
         }
-        return bookId;
+        return bookIds;
     }
 
     @Override
     public int update(Book book) throws SQLException {
         sessionManager.beginSession();
         int rowsUpdated = 0;
+        IdentityMap identityMap = new IdentityMap();
+        long registryVersion = genreRegistry.version();
 
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
             //ищем книгу в БД которую надо обновить
-            Book bookFromBD = getBookFromDB(book.getId(), connection);
+            Book bookFromBD = getBookFromDB(book.getId(), connection, identityMap);
             //Если книга есть, то с ней работаем, если ее нет - то не найдена.
             if (bookFromBD != null) {
                 //Получаем книгу из БД
@@ -188,47 +397,49 @@ public class BookDAOImpl implements BookDAO {
                 if (book.getTitle().equals(bookFromBD.getTitle())) {
                     //если genre одинаковые - проверяем список авторов
                     if (book.getGenre().equals(bookFromBD.getGenre())) {
-                        //сравнение списков авторов
-                        List<Author> authorList = book.getAuthorList();
-                        List<Author> authorListFromDB = bookFromBD.getAuthorList();
-                        List<Author> differenceAuthorListFromDB = authorListFromDB.stream().filter(i -> !authorList.contains(i)).collect(Collectors.toList());
-                        List<Author> differenceAuthorList = authorList.stream().filter(i -> !authorListFromDB.contains(i)).collect(Collectors.toList());
-                        //если списки авторов не одинаковые, то проводим изменения
-                        if ((!differenceAuthorListFromDB.isEmpty()) || (!differenceAuthorList.isEmpty()) || (authorList.size() != authorListFromDB.size())) {
-                            checkAndSaveAuthorsListFromBookOnUpdate(book, connection);
+                        //сравнение списков авторов как множеств
+                        if (!new HashSet<>(book.getAuthorList()).equals(new HashSet<>(bookFromBD.getAuthorList()))) {
+                            checkAndSaveAuthorsListFromBookOnUpdate(book, bookFromBD.getAuthorList(), connection, identityMap);
                             rowsUpdated = 1;
                         }
                     } else {
                         //если genre разные обновляем и сохраняем всё
                         //если изменение возможно, проверяем genre и при необходимости сохраняем новый
-                        checkAndSaveGenre(book, connection);
+                        checkAndSaveGenre(book, connection, identityMap);
                         //сохранение обновленной книги
                         rowsUpdated = updateBook(book, connection);
                         //обновление связей с авторами и при необходимости создание новых
-                        checkAndSaveAuthorsListFromBookOnUpdate(book, connection);
+                        checkAndSaveAuthorsListFromBookOnUpdate(book, bookFromBD.getAuthorList(), connection, identityMap);
                     }
                 } else {
-                    //если поля не одинаковые, проверяем конфликты возможных изменений
-                    int bookCount = getBookCount(book, connection);
-                    if (bookCount == 0) {
-                        //если изменение возможно, проверяем genre и при необходимости сохраняем новый
-                        checkAndSaveGenre(book, connection);
-                        //сохранение обновленной книги
-                        rowsUpdated = updateBook(book, connection);
+                    //если поля не одинаковые, проверяем genre и при необходимости сохраняем новый
+                    checkAndSaveGenre(book, connection, identityMap);
+                    //сохранение обновленной книги, конфликт title с другой книгой отсекает уникальный индекс
+                    rowsUpdated = updateBookIfUnique(book, connection);
+                    if (rowsUpdated != -1) {
                         //обновление связей с авторами и при необходимости создание новых
-                        checkAndSaveAuthorsListFromBookOnUpdate(book, connection);
-                    } else {
-                        //нельзя обновить, так как с таким title уже существуют записи
-                        rowsUpdated = -1;
+                        checkAndSaveAuthorsListFromBookOnUpdate(book, bookFromBD.getAuthorList(), connection, identityMap);
                     }
                 }
             }
 
-            sessionManager.commitSession();
+            if (rowsUpdated != -1) {
+                sessionManager.commitSession();
+            } else {
+                //жанр, сохранённый для несостоявшегося обновления, тоже не нужен
+                sessionManager.rollbackSession();
+            }
             sessionManager.finishTransaction();
+            if (rowsUpdated != -1) {
+                genreRegistry.registerAll(identityMap.savedGenres(), registryVersion);
+            }
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
+            if (isMissingReference(ex)) {
+                //жанр из справочника удалён в обход этого процесса
+                genreRegistry.invalidate();
+            }
             throw ex;
         }
         return rowsUpdated;
@@ -242,7 +453,7 @@ public class BookDAOImpl implements BookDAO {
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
-            Book bookFromDB = getBookFromDB(bookId, connection);
+            Book bookFromDB = getBookFromDB(bookId, connection, new IdentityMap());
             if (bookFromDB != null) {
                 removeRelationAuthorsBook(bookFromDB.getAuthorList(), bookId, connection);
                 rowsUpdated = deleteBook(bookId, connection);
@@ -260,7 +471,7 @@ public class BookDAOImpl implements BookDAO {
 
     private int deleteBook(int bookId, Connection connection) throws SQLException {
         int rowsUpdated = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookDeleteById.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_BookDeleteById.prepare(connection)) {
             pst.setInt(1, bookId);
 
             rowsUpdated = pst.executeUpdate();
@@ -268,13 +479,13 @@ public class BookDAOImpl implements BookDAO {
         return rowsUpdated;
     }
 
-    private Book getBookFromDB(int bookId, Connection connection) throws SQLException {
+    private Book getBookFromDB(int bookId, Connection connection, IdentityMap identityMap) throws SQLException {
         Book book = null;
 
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindByIdWithAuthors.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_BookFindByIdWithAuthors.prepare(connection)) {
             pst.setInt(1, bookId);
             try (ResultSet rs = pst.executeQuery()) {
-                Book dbBook = getBookWithAuthor(rs);
+                Book dbBook = getBook(rs, true, identityMap);
                 if (dbBook.getId() != 0) {
                     book = dbBook;
                 }
@@ -282,10 +493,10 @@ public class BookDAOImpl implements BookDAO {
         }
 
         if (book == null) {
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookFindByIdWithoutAuthors.QUERY)) {
+            try (PreparedStatement pst = SQLQuery.QUERY_BookFindByIdWithoutAuthors.prepare(connection)) {
                 pst.setInt(1, bookId);
                 try (ResultSet rs = pst.executeQuery()) {
-                    Book dbBook = getBookWithoutAuthor(rs);
+                    Book dbBook = getBook(rs, false, identityMap);
                     if (dbBook.getId() != 0) {
                         book = dbBook;
                     }
@@ -295,116 +506,84 @@ public class BookDAOImpl implements BookDAO {
         return book;
     }
 
-    private Book getBookWithoutAuthor(ResultSet rs) throws SQLException {
+    //если строк нет, возвращается книга с id 0
+    private Book getBook(ResultSet rs, boolean withAuthors, IdentityMap identityMap) throws SQLException {
+        BookRowMapper mapper = new BookRowMapper(rs, withAuthors, identityMap);
         Book dbBook = new Book();
-        Genre genre = new Genre();
         while (rs.next()) {
-            dbBook.setId(Integer.parseInt(rs.getString("bid")));
-            dbBook.setTitle(rs.getString("btitle"));
-            genre.setId((Integer.parseInt(rs.getString("gid"))));
-            genre.setName((rs.getString("gname")));
+            if (dbBook.getId() == 0) {
+                dbBook = mapper.mapBook(mapper.bookId());
+            }
+            if (withAuthors) {
+                mapper.addAuthor(dbBook);
+            }
         }
-        dbBook.setGenre(genre);
         return dbBook;
     }
 
-    private Book getBookWithAuthor(ResultSet rs) throws SQLException {
-        Book dbBook = new Book();
-        Genre genre = new Genre();
-        List<Author> authors = new ArrayList<>();
-        while (rs.next()) {
-            dbBook.setId(Integer.parseInt(rs.getString("bid")));
-            dbBook.setTitle(rs.getString("btitle"));
-
-            genre.setId((Integer.parseInt(rs.getString("gid"))));
-            genre.setName((rs.getString("gname")));
-
-            Author author = new Author();
-            author.setId(Integer.parseInt(rs.getString("aid")));
-            author.setName(rs.getString("aname"));
-            author.setSurname(rs.getString("asurname"));
-            author.setBookList(new ArrayList<>());
-            authors.add(author);
-        }
-        dbBook.setGenre(genre);
-        dbBook.setAuthorList(authors);
-        return dbBook;
+    private void checkAndSaveAuthorsListFromBookOnSave(int bookId, List<Author> authorList, Connection connection, IdentityMap identityMap) throws SQLException {
+        //дубликаты в переданном списке связываются с книгой один раз
+        addRelationAuthorsBook(authorsByName(authorList).values(), bookId, connection, identityMap);
     }
 
-    private void checkAndSaveAuthorsListFromBookOnSave(int bookId, List<Author> authorList, Connection connection) throws SQLException {
-        if (!authorList.isEmpty()) {
-            //получаем список авторов из всей БД
-            List<Author> listAuthorsFromDB = new ArrayList<>();
-            List<Author> authorsWithBooks = getAuthorsWithBooks(connection);
-
-            List<Author> authorsWithoutBooks = getAuthorsWithoutBooks(connection);
-
-            listAuthorsFromDB.addAll(authorsWithBooks);
-            listAuthorsFromDB.addAll(authorsWithoutBooks.stream().filter(author -> !authorsWithBooks.contains(author)).collect(Collectors.toList()));
-            //Общие авторы между списком в книге и тех что в БД. Для них надо добавить связи.
-            List<Author> commonElements = authorList.stream().filter(listAuthorsFromDB::contains).collect(Collectors.toList());
-            //Новые авторы, которых нет в БД. Их нужно сохранить и добавить связи.
-            List<Author> toAdd = authorList.stream().filter(author -> !commonElements.contains(author)).collect(Collectors.toList());
-            //Добавление новых авторов в БД и добавление связей их с книгой.
-            for (Author author : toAdd) {
-                int added = saveNewAuthor(author, connection);
-
-                try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                    pst.setInt(1, added);
-                    pst.setInt(2, bookId);
-                    pst.executeUpdate();
+    //ищет переданных авторов в БД по имени и фамилии, отсутствующих сохраняет, и добавляет связи с книгой
+    private void addRelationAuthorsBook(Collection<Author> authors, int bookId, Connection connection, IdentityMap identityMap) throws SQLException {
+        if (authors.isEmpty()) {
+            return;
+        }
+        Map<String, Author> authorsFromDB = findAuthorsByNames(authors, connection, identityMap);
+        List<Integer> authorIds = new ArrayList<>();
+        try (PreparedStatement pst = SQLQuery.QUERY_AddRelationAuthorsBooks.prepare(connection)) {
+            for (Author author : authors) {
+                Author authorFromDB = authorsFromDB.get(NameKey.of(author));
+                int authorId;
+                if (authorFromDB != null) {
+                    authorId = authorFromDB.getId();
+                } else {
+                    authorId = saveNewAuthor(author, connection);
+                    author.setId(authorId);
                 }
+                pst.setInt(1, authorId);
+                pst.setInt(2, bookId);
+                pst.addBatch();
+                authorIds.add(authorId);
             }
-            //Добавление связей между книгой и авторами, которые уже есть в БД
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                for (Author a : commonElements) {
-                    int authorId = listAuthorsFromDB.get(listAuthorsFromDB.indexOf(a)).getId();
+            //связи отправляются в БД одним пакетом
+            pst.executeBatch();
+        }
+        touchBooks(Collections.singleton(bookId), connection);
+        touchAuthors(authorIds, connection);
+    }
+
+    //связи всех книг пакета с их авторами, авторы уже сохранены в БД
+    private void addRelationAuthorsBooks(List<Book> books, Map<String, Author> authorsFromDB, Connection connection) throws SQLException {
+        List<Integer> authorIds = new ArrayList<>();
+        try (PreparedStatement pst = SQLQuery.QUERY_AddRelationAuthorsBooks.prepare(connection)) {
+            for (Book book : books) {
+                for (String authorKey : authorsByName(book.getAuthorList()).keySet()) {
+                    int authorId = authorsFromDB.get(authorKey).getId();
                     pst.setInt(1, authorId);
-                    pst.setInt(2, bookId);
-                    pst.executeUpdate();
+                    pst.setInt(2, book.getId());
+                    pst.addBatch();
+                    authorIds.add(authorId);
                 }
             }
+            //связи отправляются в БД одним пакетом
+            pst.executeBatch();
         }
+        //книги пакета только что сохранены, их версия и так новая
+        touchAuthors(authorIds, connection);
     }
 
-    private void checkAndSaveGenre(Book book, Connection connection) throws SQLException {
-        List<Genre> genreList = new ArrayList<>();
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreFindAll.QUERY)) {
-            genreList = findAllGenre(pst);
-        }
+    private void checkAndSaveGenre(Book book, Connection connection, IdentityMap identityMap) throws SQLException {
         Genre genre = book.getGenre();
-        if (!genreList.contains(genre)) {
-            int addedGenre = saveNewGenre(genre, connection);
-            genre.setId(addedGenre);
-            book.setGenre(genre);
-        } else {
-            Genre genreDB = genreList.get(genreList.indexOf(genre));
-            book.setGenre(genreDB);
-        }
-    }
-
-    private List<Author> getBookAuthorListFromBD(int bookId, Connection connection) throws SQLException {
-        List<Author> bookAuthorListFromBD = new ArrayList<>();
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AllAuthorFindByBookId.QUERY)) {
-            pst.setInt(1, bookId);
-
-            try (ResultSet rs = pst.executeQuery()) {
-                while (rs.next()) {
-                    Author author = new Author();
-                    author.setId(Integer.parseInt(rs.getString("aid")));
-                    author.setName(rs.getString("aname"));
-                    author.setSurname(rs.getString("asurname"));
-                    author.setBookList(new ArrayList<>());
-                    bookAuthorListFromBD.add(author);
-                }
-            }
-        }
-        return bookAuthorListFromBD;
+        Map<String, Genre> genresFromDB = findGenresByNames(Collections.singletonList(genre), connection, identityMap, genreRegistry);
+        book.setGenre(resolveGenre(genre, genresFromDB, connection, identityMap));
     }
 
     private int updateBook(Book book, Connection connection) throws SQLException {
         int rowsUpdated = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_BookUpdateById.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_BookUpdateById.prepare(connection)) {
 
             pst.setString(1, book.getTitle());
             pst.setInt(2, book.getGenre().getId());
@@ -415,86 +594,69 @@ public class BookDAOImpl implements BookDAO {
         return rowsUpdated;
     }
 
-    private void checkAndSaveAuthorsListFromBookOnUpdate(Book book, Connection connection) throws SQLException {
-        //получаем список авторов книги
-        List<Author> bookAuthorList = book.getAuthorList();
-        //список авторов связанных с книгой
-        List<Author> bookAuthorListFromBD = getBookAuthorListFromBD(book.getId(), connection);
-        //если список авторов у книги не пустой
-        if (!bookAuthorList.isEmpty()) {
-            //Общие авторы книги между переданным списком и тех что у книги в БД. Им связи не меняем.
-            List<Author> commonBookElements = bookAuthorList.stream().filter(bookAuthorListFromBD::contains).collect(Collectors.toList());
-            //новые авторы которые надо проверить на наличие в БД, при необходимости добавить в БД и добавить связи с книгой.
-            List<Author> toAdd = bookAuthorList.stream().filter(author -> !commonBookElements.contains(author)).collect(Collectors.toList());
-            //авторы с которыми надо удалить связи
-            List<Author> forRemoveRelation = bookAuthorListFromBD.stream().filter(author -> !commonBookElements.contains(author)).collect(Collectors.toList());
-            //Проверка наличия авторов с которыми добавляются связи вновь
-            //получаем список авторов из всей БД
-            List<Author> listAuthorsFromDB = new ArrayList<>();
-
-            List<Author> authorsWithBooks = getAuthorsWithBooks(connection);
-
-            List<Author> authorsWithoutBooks = getAuthorsWithoutBooks(connection);
-
-            listAuthorsFromDB.addAll(authorsWithBooks);
-            listAuthorsFromDB.addAll(authorsWithoutBooks.stream().filter(author -> !authorsWithBooks.contains(author)).collect(Collectors.toList()));
-            //Общие авторы между списком добавления в книгу и тех что в БД. Для них надо добавить связи.
-            List<Author> commonElements = toAdd.stream().filter(listAuthorsFromDB::contains).collect(Collectors.toList());
-            //Новые авторы, которых нет в БД. Их нужно сохранить и добавить связи.
-            List<Author> newToAddInBD = toAdd.stream().filter(author -> !commonElements.contains(author)).collect(Collectors.toList());
-            //Добавление новых авторов в БД и добавление связей их с книгой.
-            List<Author> newAuthorInDB = new ArrayList<>();
-            for (Author author : newToAddInBD) {
-                int added = saveNewAuthor(author, connection);
-                author.setId(added);
-                newAuthorInDB.add(author);
-            }
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                for (Author author : newAuthorInDB) {
-                    pst.setInt(1, author.getId());
-                    pst.setInt(2, book.getId());
-                    pst.executeUpdate();
-                }
+    private void checkAndSaveAuthorsListFromBookOnUpdate(Book book, List<Author> bookAuthorListFromBD, Connection connection, IdentityMap identityMap) throws SQLException {
+        //переданные авторы книги и авторы, связанные с книгой в БД, сравниваются без учёта регистра, как в уникальном индексе
+        Map<String, Author> bookAuthors = authorsByName(book.getAuthorList());
+        Map<String, Author> bookAuthorsFromBD = authorsByName(bookAuthorListFromBD);
+
+        //новые авторы книги: найти в БД или сохранить и добавить связи
+        List<Author> toAdd = new ArrayList<>();
+        for (Map.Entry<String, Author> entry : bookAuthors.entrySet()) {
+            if (!bookAuthorsFromBD.containsKey(entry.getKey())) {
+                toAdd.add(entry.getValue());
             }
-            //Добавление связей между книгой и авторами, которые уже есть в БД
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_AddRelationAuthorsBooks.QUERY)) {
-                for (Author author : commonElements) {
-                    int authorId = listAuthorsFromDB.get(listAuthorsFromDB.indexOf(author)).getId();
-                    pst.setInt(1, authorId);
-                    pst.setInt(2, book.getId());
-                    pst.executeUpdate();
-                }
+        }
+        //авторы, с которыми надо удалить связи
+        List<Author> forRemoveRelation = new ArrayList<>();
+        for (Author author : bookAuthorListFromBD) {
+            if (!bookAuthors.containsKey(NameKey.of(author))) {
+                forRemoveRelation.add(author);
             }
-            //удаление связей
-            removeRelationAuthorsBook(forRemoveRelation, book.getId(), connection);
-        } else {
-            //удаление связей
-            removeRelationAuthorsBook(bookAuthorListFromBD, book.getId(), connection);
         }
+
+        addRelationAuthorsBook(toAdd, book.getId(), connection, identityMap);
+        removeRelationAuthorsBook(forRemoveRelation, book.getId(), connection);
     }
 
     private void removeRelationAuthorsBook(List<Author> authorList, int book, Connection connection) throws SQLException {
         if (!authorList.isEmpty()) {
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_RemoveRelationAuthorsBooks.QUERY)) {
+            List<Integer> authorIds = new ArrayList<>();
+            try (PreparedStatement pst = SQLQuery.QUERY_RemoveRelationAuthorsBooks.prepare(connection)) {
                 for (Author author : authorList) {
                     pst.setInt(1, author.getId());
                     pst.setInt(2, book);
-                    pst.executeUpdate();
+                    pst.addBatch();
+                    authorIds.add(author.getId());
                 }
+                //связи отправляются в БД одним пакетом
+                pst.executeBatch();
             }
+            touchBooks(Collections.singleton(book), connection);
+            touchAuthors(authorIds, connection);
         }
     }
 
-    private int getBookCount(Book book, Connection connection) throws SQLException {
-        int bookCount = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_CountBookByTitle.QUERY)) {
-            pst.setString(1, book.getTitle());
-            try (ResultSet rs = pst.executeQuery()) {
-                if (rs.next()) {
-                    bookCount = rs.getInt("Count(*)");
-                }
+    //возвращает -1, если книга с таким title уже есть
+    private int saveBookIfAbsent(Book book, Connection connection) throws SQLException {
+        try {
+            return saveNewBook(book, connection);
+        } catch (SQLException ex) {
+            if (!isDuplicateKey(ex)) {
+                throw ex;
+            }
+            return -1;
+        }
+    }
+
+    //возвращает -1, если title уже занят другой книгой
+    private int updateBookIfUnique(Book book, Connection connection) throws SQLException {
+        try {
+            return updateBook(book, connection);
+        } catch (SQLException ex) {
+            if (!isDuplicateKey(ex)) {
+                throw ex;
             }
+            return -1;
         }
-        return bookCount;
     }
 }
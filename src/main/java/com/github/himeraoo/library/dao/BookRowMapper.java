@@ -0,0 +1,87 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.Genre;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Сборка книг из строк запросов с колонками bid, btitle, gid, gname и, для запросов с авторами, aid, aname, asurname.
+ * Индексы колонок находятся один раз на ResultSet, жанр, автор и книга без авторов берутся из {@link IdentityMap} операции.
+ */
+final class BookRowMapper {
+
+    private final ResultSet rs;
+    private final int bookIdColumn;
+    private final int bookTitleColumn;
+    private final int genreIdColumn;
+    private final int genreNameColumn;
+    private final int authorIdColumn;
+    private final int authorNameColumn;
+    private final int authorSurnameColumn;
+    private final boolean withAuthors;
+    private final IdentityMap identityMap;
+
+    BookRowMapper(ResultSet rs, boolean withAuthors, IdentityMap identityMap) throws SQLException {
+        this.rs = rs;
+        this.withAuthors = withAuthors;
+        this.identityMap = identityMap;
+        this.bookIdColumn = rs.findColumn("bid");
+        this.bookTitleColumn = rs.findColumn("btitle");
+        this.genreIdColumn = rs.findColumn("gid");
+        this.genreNameColumn = rs.findColumn("gname");
+        this.authorIdColumn = withAuthors ? rs.findColumn("aid") : 0;
+        this.authorNameColumn = withAuthors ? rs.findColumn("aname") : 0;
+        this.authorSurnameColumn = withAuthors ? rs.findColumn("asurname") : 0;
+    }
+
+    int bookId() throws SQLException {
+        return rs.getInt(bookIdColumn);
+    }
+
+    //книга со списком авторов всегда новая, её список заполняет addAuthor
+    Book mapBook(int bookId) throws SQLException {
+        Book dbBook = withAuthors ? null : identityMap.getBook(bookId);
+        if (dbBook == null) {
+            dbBook = new Book();
+            dbBook.setId(bookId);
+            dbBook.setTitle(rs.getString(bookTitleColumn));
+            dbBook.setGenre(mapGenre());
+            if (!withAuthors) {
+                identityMap.putBook(dbBook);
+            }
+        }
+        return dbBook;
+    }
+
+    void addAuthor(Book dbBook) throws SQLException {
+        int authorId = rs.getInt(authorIdColumn);
+        //у книги без авторов поля автора равны NULL
+        if (rs.wasNull()) {
+            return;
+        }
+        Author author = identityMap.getAuthor(authorId);
+        if (author == null) {
+            author = new Author();
+            author.setId(authorId);
+            author.setName(rs.getString(authorNameColumn));
+            author.setSurname(rs.getString(authorSurnameColumn));
+            identityMap.putAuthor(author);
+        }
+        dbBook.getAuthorList().add(author);
+    }
+
+    private Genre mapGenre() throws SQLException {
+        int genreId = rs.getInt(genreIdColumn);
+        Genre genre = identityMap.getGenre(genreId);
+        if (genre == null) {
+            genre = new Genre();
+            genre.setId(genreId);
+            genre.setName(rs.getString(genreNameColumn));
+            identityMap.putGenre(genre);
+        }
+        return genre;
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.cache.EntityCaches;
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.EntityVersion;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-through кэш findById поверх AuthorDAO. Записи инвалидируют автора и книги,
+ * у которых в кэше лежит список авторов с этим автором или которые станут его книгами.
+ * Сущности из кэша общие для всех запросов и не должны изменяться вызывающим кодом.
+ */
+public class CachingAuthorDAO implements AuthorDAO {
+
+    private final AuthorDAO authorDAO;
+    private final EntityCaches caches;
+
+    public CachingAuthorDAO(AuthorDAO authorDAO, EntityCaches caches) {
+        this.authorDAO = authorDAO;
+        this.caches = caches;
+    }
+
+    @Override
+    public Optional<Author> findById(int authorId) throws SQLException {
+        return caches.authors().get(authorId, authorDAO::findById);
+    }
+
+    //запись кэша хранит версию, прочитанную перед её загрузкой; если текущая версия другая, сущность перечитывается
+    @Override
+    public Optional<Author> findById(int authorId, EntityVersion version) throws SQLException {
+        return caches.authors().get(authorId, version, authorDAO::findById);
+    }
+
+    //версия не кэшируется: запрос версии дешёвый, а по ней findById(id, version) узнаёт, что запись кэша устарела
+    @Override
+    public Optional<EntityVersion> findVersionById(int authorId) throws SQLException {
+        return authorDAO.findVersionById(authorId);
+    }
+
+    @Override
+    public List<Author> findAll() throws SQLException {
+        return authorDAO.findAll();
+    }
+
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        return authorDAO.findAllVersion();
+    }
+
+    @Override
+    public List<Author> findAll(int afterAuthorId, int limit) throws SQLException {
+        return authorDAO.findAll(afterAuthorId, limit);
+    }
+
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<Author, E> consumer) throws SQLException, E {
+        authorDAO.streamAll(consumer);
+    }
+
+    @Override
+    public int save(Author author) throws SQLException {
+        try {
+            return authorDAO.save(author);
+        } finally {
+            invalidateBooks(author);
+        }
+    }
+
+    @Override
+    public int update(Author author) throws SQLException {
+        try {
+            return authorDAO.update(author);
+        } finally {
+            caches.authors().invalidate(author.getId());
+            invalidateBooks(author);
+        }
+    }
+
+    @Override
+    public int deleteById(int authorId) throws SQLException {
+        try {
+            return authorDAO.deleteById(authorId);
+        } finally {
+            caches.authors().invalidate(authorId);
+            caches.books().invalidateIf(book -> containsAuthor(book, authorId));
+        }
+    }
+
+    //книги автора сопоставляются с БД только по названию без учёта регистра, жанр переданной книги может отличаться от жанра в БД
+    private void invalidateBooks(Author author) {
+        Set<String> titles = new HashSet<>();
+        for (Book book : author.getBookList()) {
+            titles.add(NameKey.of(book.getTitle()));
+        }
+        caches.books().invalidateIf(book -> containsAuthor(book, author.getId()) || titles.contains(NameKey.of(book.getTitle())));
+    }
+
+    private static boolean containsAuthor(Book book, int authorId) {
+        for (Author a : book.getAuthorList()) {
+            if (a.getId() == authorId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.cache.EntityCaches;
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.EntityVersion;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-through кэш findById поверх BookDAO. Записи инвалидируют книгу и авторов,
+ * у которых в кэше лежит список книг с этой книгой или которые станут её авторами.
+ * Сущности из кэша общие для всех запросов и не должны изменяться вызывающим кодом.
+ */
+public class CachingBookDAO implements BookDAO {
+
+    private final BookDAO bookDAO;
+    private final EntityCaches caches;
+
+    public CachingBookDAO(BookDAO bookDAO, EntityCaches caches) {
+        this.bookDAO = bookDAO;
+        this.caches = caches;
+    }
+
+    @Override
+    public Optional<Book> findById(int bookId) throws SQLException {
+        return caches.books().get(bookId, bookDAO::findById);
+    }
+
+    //запись кэша хранит версию, прочитанную перед её загрузкой; если текущая версия другая, сущность перечитывается
+    @Override
+    public Optional<Book> findById(int bookId, EntityVersion version) throws SQLException {
+        return caches.books().get(bookId, version, bookDAO::findById);
+    }
+
+    //версия не кэшируется: запрос версии дешёвый, а по ней findById(id, version) узнаёт, что запись кэша устарела
+    @Override
+    public Optional<EntityVersion> findVersionById(int bookId) throws SQLException {
+        return bookDAO.findVersionById(bookId);
+    }
+
+    @Override
+    public List<Book> findAll() throws SQLException {
+        return bookDAO.findAll();
+    }
+
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        return bookDAO.findAllVersion();
+    }
+
+    @Override
+    public List<Book> findAll(int afterBookId, int limit) throws SQLException {
+        return bookDAO.findAll(afterBookId, limit);
+    }
+
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<Book, E> consumer) throws SQLException, E {
+        bookDAO.streamAll(consumer);
+    }
+
+    @Override
+    public int save(Book book) throws SQLException {
+        try {
+            return bookDAO.save(book);
+        } finally {
+            invalidateAuthors(book);
+        }
+    }
+
+    @Override
+    public List<Integer> saveAll(List<Book> books) throws SQLException {
+        try {
+            return bookDAO.saveAll(books);
+        } finally {
+            for (Book book : books) {
+                invalidateAuthors(book);
+            }
+        }
+    }
+
+    @Override
+    public int update(Book book) throws SQLException {
+        try {
+            return bookDAO.update(book);
+        } finally {
+            caches.books().invalidate(book.getId());
+            invalidateAuthors(book);
+        }
+    }
+
+    @Override
+    public int deleteById(int bookId) throws SQLException {
+        try {
+            return bookDAO.deleteById(bookId);
+        } finally {
+            caches.books().invalidate(bookId);
+            caches.authors().invalidateIf(author -> containsBook(author, bookId));
+        }
+    }
+
+    //авторы сопоставляются с БД по имени и фамилии без учёта регистра, поэтому новые связи ищутся по NameKey
+    private void invalidateAuthors(Book book) {
+        Set<String> names = AuthorDAOImpl.authorsByName(book.getAuthorList()).keySet();
+        caches.authors().invalidateIf(author -> containsBook(author, book.getId()) || names.contains(NameKey.of(author)));
+    }
+
+    private static boolean containsBook(Author author, int bookId) {
+        for (Book b : author.getBookList()) {
+            if (b.getId() == bookId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.cache.EntityCaches;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.EntityVersion;
+import com.github.himeraoo.library.models.Genre;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through кэш findById поверх GenreDAO. Изменение жанра инвалидирует сам жанр,
+ * книги этого жанра и авторов, у которых в списке книг есть книга этого жанра.
+ * Сущности из кэша общие для всех запросов и не должны изменяться вызывающим кодом.
+ */
+public class CachingGenreDAO implements GenreDAO {
+
+    private final GenreDAO genreDAO;
+    private final EntityCaches caches;
+
+    public CachingGenreDAO(GenreDAO genreDAO, EntityCaches caches) {
+        this.genreDAO = genreDAO;
+        this.caches = caches;
+    }
+
+    @Override
+    public Optional<Genre> findById(int genreId) throws SQLException {
+        return caches.genres().get(genreId, genreDAO::findById);
+    }
+
+    //запись кэша хранит версию, прочитанную перед её загрузкой; если текущая версия другая, сущность перечитывается
+    @Override
+    public Optional<Genre> findById(int genreId, EntityVersion version) throws SQLException {
+        return caches.genres().get(genreId, version, genreDAO::findById);
+    }
+
+    //версия не кэшируется: запрос версии дешёвый, а по ней findById(id, version) узнаёт, что запись кэша устарела
+    @Override
+    public Optional<EntityVersion> findVersionById(int genreId) throws SQLException {
+        return genreDAO.findVersionById(genreId);
+    }
+
+    @Override
+    public List<Genre> findAll() throws SQLException {
+        return genreDAO.findAll();
+    }
+
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        return genreDAO.findAllVersion();
+    }
+
+    @Override
+    public List<Genre> findAll(int afterGenreId, int limit) throws SQLException {
+        return genreDAO.findAll(afterGenreId, limit);
+    }
+
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<Genre, E> consumer) throws SQLException, E {
+        genreDAO.streamAll(consumer);
+    }
+
+    @Override
+    public int save(Genre genre) throws SQLException {
+        //новый жанр ещё ни в одной закэшированной сущности не встречается
+        return genreDAO.save(genre);
+    }
+
+    @Override
+    public int update(Genre genre) throws SQLException {
+        try {
+            return genreDAO.update(genre);
+        } finally {
+            invalidate(genre.getId());
+        }
+    }
+
+    @Override
+    public int deleteById(int genreId) throws SQLException {
+        try {
+            return genreDAO.deleteById(genreId);
+        } finally {
+            invalidate(genreId);
+        }
+    }
+
+    private void invalidate(int genreId) {
+        caches.genres().invalidate(genreId);
+        caches.books().invalidateIf(book -> book.getGenre().getId() == genreId);
+        caches.authors().invalidateIf(author -> containsGenre(author.getBookList(), genreId));
+    }
+
+    private static boolean containsGenre(List<Book> bookList, int genreId) {
+        for (Book b : bookList) {
+            if (b.getGenre().getId() == genreId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.himeraoo.library.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Распознавание нарушений ограничений схемы по коду ошибки MySQL. Повторы названий и имён отсекают
+ * уникальные индексы, удаление жанра с книгами - внешний ключ book.genre_id, поэтому DAO не проверяют их
+ * отдельным запросом, а выполняют изменение и обрабатывают ошибку. InnoDB при такой ошибке откатывает
+ * только сам запрос, транзакция остаётся открытой.
+ */
+final class ConstraintViolations {
+
+    //ER_DUP_ENTRY
+    private static final int DUPLICATE_KEY = 1062;
+    //ER_ROW_IS_REFERENCED_2
+    private static final int ROW_IS_REFERENCED = 1451;
+    //ER_NO_REFERENCED_ROW_2
+    private static final int NO_REFERENCED_ROW = 1452;
+
+    private ConstraintViolations() {
+    }
+
+    static boolean isDuplicateKey(SQLException ex) {
+        return ex.getErrorCode() == DUPLICATE_KEY;
+    }
+
+    static boolean isRowReferenced(SQLException ex) {
+        return ex.getErrorCode() == ROW_IS_REFERENCED;
+    }
+
+    static boolean isMissingReference(SQLException ex) {
+        return ex.getErrorCode() == NO_REFERENCED_ROW;
+    }
+}
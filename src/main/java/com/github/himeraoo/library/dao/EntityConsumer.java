@@ -0,0 +1,10 @@
+package com.github.himeraoo.library.dao;
+
+/**
+ * Получатель сущностей, которые DAO отдаёт по мере чтения ResultSet, без сборки всего списка в памяти.
+ */
+@FunctionalInterface
+public interface EntityConsumer<T, E extends Exception> {
+
+    void accept(T entity) throws E;
+}
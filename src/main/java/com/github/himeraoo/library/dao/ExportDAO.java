@@ -0,0 +1,14 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.Genre;
+
+import java.sql.SQLException;
+
+public interface ExportDAO {
+
+    <E extends Exception> void exportSnapshot(EntityConsumer<Genre, E> genreConsumer,
+                                              EntityConsumer<Author, E> authorConsumer,
+                                              EntityConsumer<Book, E> bookConsumer) throws SQLException, E;
+}
@@ -0,0 +1,73 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.jdbc.FetchConfig;
+import com.github.himeraoo.library.jdbc.SessionManager;
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.Genre;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static com.github.himeraoo.library.dao.AuthorDAOImpl.streamAuthorsWithBooks;
+import static com.github.himeraoo.library.dao.BookDAOImpl.streamBooksWithAuthors;
+import static com.github.himeraoo.library.dao.GenreDAOImpl.streamAllGenre;
+
+/**
+ * Выгрузка всего каталога: жанры, авторы с книгами и книги с авторами читаются
+ * в одной транзакции только для чтения. В InnoDB (REPEATABLE READ) все три запроса
+ * видят один снимок данных, поэтому выгрузка согласована, даже если каталог меняется.
+ * Строки читаются со стратегией из FetchConfig, по умолчанию для этих запросов - потоком,
+ * без буферизации всего результата в драйвере.
+ */
+public class ExportDAOImpl implements ExportDAO {
+
+    private final SessionManager sessionManager;
+    private final FetchConfig fetchConfig;
+
+    public ExportDAOImpl(SessionManager sessionManager) {
+        this(sessionManager, new FetchConfig());
+    }
+
+    public ExportDAOImpl(SessionManager sessionManager, FetchConfig fetchConfig) {
+        this.sessionManager = sessionManager;
+        this.fetchConfig = fetchConfig;
+    }
+
+    @Override
+    public <E extends Exception> void exportSnapshot(EntityConsumer<Genre, E> genreConsumer,
+                                                     EntityConsumer<Author, E> authorConsumer,
+                                                     EntityConsumer<Book, E> bookConsumer) throws SQLException, E {
+        sessionManager.beginSession();
+        //жанры из первого запроса переиспользуются запросами авторов и книг
+        IdentityMap identityMap = IdentityMap.forStreaming();
+
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            //режим только для чтения задаётся до начала транзакции и снимается до возврата соединения в пул
+            connection.setReadOnly(true);
+            try {
+                sessionManager.startTransaction();
+
+                try (PreparedStatement pst = SQLQuery.QUERY_GenreFindAll.prepare(connection, fetchConfig)) {
+                    streamAllGenre(pst, identityMap, genreConsumer);
+                }
+                try (PreparedStatement pst = SQLQuery.QUERY_AuthorFindAll.prepare(connection, fetchConfig)) {
+                    streamAuthorsWithBooks(pst, identityMap, authorConsumer);
+                }
+                try (PreparedStatement pst = SQLQuery.QUERY_BookFindAll.prepare(connection, fetchConfig)) {
+                    streamBooksWithAuthors(pst, identityMap, bookConsumer);
+                }
+
+                sessionManager.commitSession();
+                sessionManager.finishTransaction();
+            } finally {
+                connection.setReadOnly(false);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+    }
+}
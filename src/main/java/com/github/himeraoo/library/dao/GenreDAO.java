@@ -1,5 +1,6 @@
 package com.github.himeraoo.library.dao;
 
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.models.Genre;
 
 import java.sql.SQLException;
@@ -9,8 +10,30 @@ import java.util.Optional;
 public interface GenreDAO {
     Optional<Genre> findById(int genreId) throws SQLException;
 
+    /**
+     * Версия жанра для условного GET, дешевле {@link #findById(int)}; пусто, если жанра нет.
+     */
+    Optional<EntityVersion> findVersionById(int genreId) throws SQLException;
+
+    /**
+     * То же, что {@link #findById(int)}, для ответа с версией version, прочитанной перед этим через
+     * {@link #findVersionById(int)}: данные не старше этой версии. Чтение из БД всегда такое, кэш его переопределяет.
+     */
+    default Optional<Genre> findById(int genreId, EntityVersion version) throws SQLException {
+        return findById(genreId);
+    }
+
     List<Genre> findAll() throws SQLException;
 
+    /**
+     * Версия списка всех жанров, её же получают страницы списка.
+     */
+    EntityVersion findAllVersion() throws SQLException;
+
+    List<Genre> findAll(int afterGenreId, int limit) throws SQLException;
+
+    <E extends Exception> void streamAll(EntityConsumer<Genre, E> consumer) throws SQLException, E;
+
     int save(Genre genre) throws SQLException;
 
     int update(Genre genre) throws SQLException;
@@ -1,41 +1,60 @@
 package com.github.himeraoo.library.dao;
 
+import com.github.himeraoo.library.jdbc.FetchConfig;
 import com.github.himeraoo.library.jdbc.SessionManager;
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.models.Genre;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+
+import static com.github.himeraoo.library.dao.ConstraintViolations.isDuplicateKey;
+import static com.github.himeraoo.library.dao.ConstraintViolations.isRowReferenced;
 
 public class GenreDAOImpl implements GenreDAO {
 
     private final SessionManager sessionManager;
+    private final FetchConfig fetchConfig;
+    private final GenreRegistry genreRegistry;
 
     public GenreDAOImpl(SessionManager sessionManager) {
+        this(sessionManager, new FetchConfig());
+    }
+
+    public GenreDAOImpl(SessionManager sessionManager, FetchConfig fetchConfig) {
         this.sessionManager = sessionManager;
+        this.fetchConfig = fetchConfig;
+        this.genreRegistry = GenreRegistry.forSession(sessionManager);
     }
 
-    protected static List<Genre> findAllGenre(PreparedStatement pst) throws SQLException {
+    protected static List<Genre> findAllGenre(PreparedStatement pst, IdentityMap identityMap) throws SQLException {
         List<Genre> genreList = new ArrayList<>();
+        streamAllGenre(pst, identityMap, genreList::add);
+        return genreList;
+    }
+
+    protected static <E extends Exception> void streamAllGenre(PreparedStatement pst, IdentityMap identityMap, EntityConsumer<Genre, E> consumer) throws SQLException, E {
         try (ResultSet rs = pst.executeQuery()) {
+            GenreRowMapper mapper = new GenreRowMapper(rs, identityMap);
             while (rs.next()) {
-                Genre dbGenre = new Genre();
-                dbGenre.setId((Integer.parseInt(rs.getString("id"))));
-                dbGenre.setName((rs.getString("name")));
-                genreList.add(dbGenre);
+                consumer.accept(mapper.mapGenre());
             }
         }
-        return genreList;
     }
 
     protected static int saveNewGenre(Genre genre, Connection connection) throws SQLException {
         int genreId = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreSave.QUERY, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_GenreSave.prepareReturningKeys(connection)) {
             pst.setString(1, genre.getName());
             pst.executeUpdate();
 
@@ -48,6 +67,52 @@ public class GenreDAOImpl implements GenreDAO {
         return genreId;
     }
 
+    //ищет жанры с переданными названиями в справочнике, в БД запрашиваются только отсутствующие в нём,
+    //ключ - NameKey названия, значение - жанр из БД
+    protected static Map<String, Genre> findGenresByNames(Collection<Genre> genres, Connection connection, IdentityMap identityMap, GenreRegistry genreRegistry) throws SQLException {
+        Map<String, Genre> genresFromDB = new HashMap<>();
+        //названия, отличающиеся только регистром, запрашиваются один раз
+        Map<String, String> names = new LinkedHashMap<>();
+        for (Genre genre : genres) {
+            Genre registered = genreRegistry.find(genre.getName(), connection);
+            if (registered == null) {
+                names.putIfAbsent(NameKey.of(genre.getName()), genre.getName());
+                continue;
+            }
+            Genre genreDB = identityMap.getGenre(registered.getId());
+            if (genreDB == null) {
+                genreDB = registered;
+                identityMap.putGenre(genreDB);
+            }
+            genresFromDB.put(NameKey.of(genreDB.getName()), genreDB);
+        }
+        if (names.isEmpty()) {
+            return genresFromDB;
+        }
+
+        try (PreparedStatement pst = SQLQuery.QUERY_GenreFindByNames.prepareWithParameters(connection, names.size(), 1)) {
+            int index = 1;
+            for (String name : names.values()) {
+                pst.setString(index++, name);
+            }
+            streamAllGenre(pst, identityMap, genre -> genresFromDB.put(NameKey.of(genre.getName()), genre));
+        }
+        return genresFromDB;
+    }
+
+    //возвращает жанр из БД с таким же названием, если его нет - сохраняет новый и запоминает его в genresFromDB и identityMap,
+    //откуда после фиксации транзакции он попадает в справочник жанров
+    protected static Genre resolveGenre(Genre genre, Map<String, Genre> genresFromDB, Connection connection, IdentityMap identityMap) throws SQLException {
+        Genre genreDB = genresFromDB.get(NameKey.of(genre.getName()));
+        if (genreDB == null) {
+            genre.setId(saveNewGenre(genre, connection));
+            genresFromDB.put(NameKey.of(genre.getName()), genre);
+            identityMap.putSavedGenre(genre);
+            genreDB = genre;
+        }
+        return genreDB;
+    }
+
     @Override
     public Optional<Genre> findById(int genreId) throws SQLException {
         sessionManager.beginSession();
@@ -63,14 +128,32 @@ public class GenreDAOImpl implements GenreDAO {
         return Optional.ofNullable(genre);
     }
 
+    @Override
+    public Optional<EntityVersion> findVersionById(int genreId) throws SQLException {
+        sessionManager.beginSession();
+
+        EntityVersion version;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_GenreFindVersionById.prepare(connection)) {
+                pst.setInt(1, genreId);
+                version = VersionDigest.read(pst);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return Optional.ofNullable(version);
+    }
+
     @Override
     public List<Genre> findAll() throws SQLException {
         sessionManager.beginSession();
 
         List<Genre> genreList;
         try (Connection connection = sessionManager.getCurrentSession()) {
-            try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreFindAll.QUERY)) {
-                genreList = findAllGenre(pst);
+            try (PreparedStatement pst = SQLQuery.QUERY_GenreFindAll.prepare(connection, fetchConfig)) {
+                genreList = findAllGenre(pst, new IdentityMap());
             }
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
@@ -80,6 +163,57 @@ public class GenreDAOImpl implements GenreDAO {
         return genreList;
     }
 
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        sessionManager.beginSession();
+
+        EntityVersion version;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_GenreFindListVersion.prepare(connection)) {
+                version = VersionDigest.read(pst);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return version;
+    }
+
+    @Override
+    public List<Genre> findAll(int afterGenreId, int limit) throws SQLException {
+        sessionManager.beginSession();
+
+        List<Genre> genreList;
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_GenreFindPage.prepare(connection, fetchConfig)) {
+                pst.setInt(1, afterGenreId);
+                pst.setInt(2, limit);
+                genreList = findAllGenre(pst, new IdentityMap());
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+        return genreList;
+    }
+
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<Genre, E> consumer) throws SQLException, E {
+        sessionManager.beginSession();
+
+        try (Connection connection = sessionManager.getCurrentSession()) {
+            try (PreparedStatement pst = SQLQuery.QUERY_GenreFindAll.prepare(connection, fetchConfig)) {
+                streamAllGenre(pst, IdentityMap.forStreaming(), consumer);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            sessionManager.rollbackSession();
+            throw ex;
+        }
+    }
+
     @Override
     public int save(Genre genre) throws SQLException {
         sessionManager.beginSession();
@@ -88,15 +222,21 @@ public class GenreDAOImpl implements GenreDAO {
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
-            int genreCount = getGenreCountByName(genre, connection);
-            if (genreCount == 0) {
+            //жанр с таким названием отсекает уникальный индекс
+            try {
                 genreId = saveNewGenre(genre, connection);
-            } else {
+            } catch (SQLException ex) {
+                if (!isDuplicateKey(ex)) {
+                    throw ex;
+                }
                 genreId = -1;
             }
 
             sessionManager.commitSession();
             sessionManager.finishTransaction();
+            if (genreId > 0) {
+                genreRegistry.register(genreId, genre.getName());
+            }
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
@@ -113,15 +253,20 @@ public class GenreDAOImpl implements GenreDAO {
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
-            int genreCount = getGenreCountByName(genre, connection);
-            if (genreCount == 0) {
+            try {
                 rowsUpdated = updateGenre(genre, connection);
-            } else {
+            } catch (SQLException ex) {
+                if (!isDuplicateKey(ex)) {
+                    throw ex;
+                }
                 rowsUpdated = -1;
             }
 
             sessionManager.commitSession();
             sessionManager.finishTransaction();
+            if (rowsUpdated > 0) {
+                genreRegistry.register(genre.getId(), genre.getName());
+            }
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
@@ -138,15 +283,21 @@ public class GenreDAOImpl implements GenreDAO {
         try (Connection connection = sessionManager.getCurrentSession()) {
             sessionManager.startTransaction();
 
-            int bookCount = getBookCountByGenreId(genreId, connection);
-            if (bookCount == 0) {
+            //жанр с книгами не даёт удалить внешний ключ book.genre_id
+            try {
                 rowsUpdated = deleteGenre(genreId, connection);
-            } else {
+            } catch (SQLException ex) {
+                if (!isRowReferenced(ex)) {
+                    throw ex;
+                }
                 rowsUpdated = -1;
             }
 
             sessionManager.commitSession();
             sessionManager.finishTransaction();
+            if (rowsUpdated > 0) {
+                genreRegistry.remove(genreId);
+            }
         } catch (SQLException ex) {
             System.out.println(ex.getMessage());
             sessionManager.rollbackSession();
@@ -157,60 +308,30 @@ public class GenreDAOImpl implements GenreDAO {
 
     private int deleteGenre(int genreId, Connection connection) throws SQLException {
         int rowsUpdated = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreDeleteById.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_GenreDeleteById.prepare(connection)) {
             pst.setInt(1, genreId);
             rowsUpdated = pst.executeUpdate();
         }
         return rowsUpdated;
     }
 
-    private int getBookCountByGenreId(int genreId, Connection connection) throws SQLException {
-        int bookCount = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_CountBookByGenreId.QUERY)) {
-            pst.setInt(1, genreId);
-            try (ResultSet rs = pst.executeQuery()) {
-                if (rs.next()) {
-                    bookCount = rs.getInt("Count(*)");
-                }
-            }
-        }
-        return bookCount;
-    }
-
     private Genre getGenre(int genreId, Connection connection) throws SQLException {
         Genre genre = null;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreFindById.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_GenreFindById.prepare(connection)) {
             pst.setInt(1, genreId);
             try (ResultSet rs = pst.executeQuery()) {
-                Genre dbGenre = new Genre();
-                while (rs.next()) {
-                    dbGenre.setId((Integer.parseInt(rs.getString("id"))));
-                    dbGenre.setName((rs.getString("name")));
-                }
-                if (dbGenre.getId() != 0) {
-                    genre = dbGenre;
-                }
-            }
-        }
-        return genre;
-    }
-
-    private int getGenreCountByName(Genre genre, Connection connection) throws SQLException {
-        int genreCount = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_CountGenreByName.QUERY)) {
-            pst.setString(1, genre.getName());
-            try (ResultSet rs = pst.executeQuery()) {
+                GenreRowMapper mapper = new GenreRowMapper(rs, new IdentityMap());
                 if (rs.next()) {
-                    genreCount = rs.getInt("Count(*)");
+                    genre = mapper.mapGenre();
                 }
             }
         }
-        return genreCount;
+        return genre;
     }
 
     private int updateGenre(Genre genre, Connection connection) throws SQLException {
         int rowsUpdated = 0;
-        try (PreparedStatement pst = connection.prepareStatement(SQLQuery.QUERY_GenreUpdateById.QUERY)) {
+        try (PreparedStatement pst = SQLQuery.QUERY_GenreUpdateById.prepare(connection)) {
             pst.setString(1, genre.getName());
             pst.setInt(2, genre.getId());
             rowsUpdated = pst.executeUpdate();
@@ -0,0 +1,161 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.jdbc.SessionManager;
+import com.github.himeraoo.library.models.Genre;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Общий для всех DAO одной БД справочник жанров: название -> id. Жанров мало и меняются они редко, поэтому при
+ * сохранении книг жанры ищутся здесь, а в БД запрашиваются только названия, которых в справочнике нет.
+ * Справочник загружается целиком при первом обращении и дальше не перечитывается. Чтение идёт без блокировок
+ * из неизменяемого снимка, каждое изменение публикует новый снимок. Изменения вносятся только после фиксации
+ * транзакции, поэтому откаченный жанр в справочник не попадает. Операции записи книг и авторов публикуют только
+ * сохранённые ими жанры и только если справочник не менялся с начала операции, иначе публикация пропускается и
+ * жанр при следующем сохранении ищется в БД. Жанр, удалённый в обход этого процесса,
+ * обнаруживается по ошибке внешнего ключа при сохранении книги, после чего справочник сбрасывается.
+ */
+final class GenreRegistry {
+
+    private static final Map<SessionManager, GenreRegistry> REGISTRIES = new WeakHashMap<>();
+
+    //null, пока справочник не загружен или сброшен
+    private volatile Snapshot snapshot;
+    //увеличивается при каждом изменении, загрузка, во время которой справочник менялся, не публикуется
+    private long version;
+
+    static GenreRegistry forSession(SessionManager sessionManager) {
+        synchronized (REGISTRIES) {
+            return REGISTRIES.computeIfAbsent(sessionManager, key -> new GenreRegistry());
+        }
+    }
+
+    //id жанра с таким названием или null, если в справочнике его нет; регистр и диакритика не различаются, как в БД
+    Integer findId(String name, Connection connection) throws SQLException {
+        Genre genre = find(name, connection);
+        return genre != null ? genre.getId() : null;
+    }
+
+    //жанр с таким названием в написании из БД или null, если в справочнике его нет
+    Genre find(String name, Connection connection) throws SQLException {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = load(connection);
+        }
+        Integer genreId = current.idsByName.get(NameKey.of(name));
+        if (genreId == null) {
+            return null;
+        }
+        Genre genre = new Genre();
+        genre.setId(genreId);
+        genre.setName(current.namesById.get(genreId));
+        return genre;
+    }
+
+    //запоминается в начале операции записи и передаётся в registerAll
+    synchronized long version() {
+        return version;
+    }
+
+    //жанры, сохранённые операцией, вызывается после фиксации транзакции. Если с начала операции справочник менялся,
+    //жанр мог быть уже переименован или удалён, и его публикация вернула бы устаревшее название
+    synchronized void registerAll(Collection<Genre> genres, long sinceVersion) {
+        if (genres.isEmpty() || version != sinceVersion) {
+            return;
+        }
+        version++;
+        if (snapshot == null) {
+            return;
+        }
+        Snapshot next = snapshot.copy();
+        for (Genre genre : genres) {
+            next.put(genre.getId(), genre.getName());
+        }
+        snapshot = next;
+    }
+
+    //сохранённый или переименованный жанр, прежнее название жанра удаляется
+    synchronized void register(int genreId, String name) {
+        version++;
+        if (snapshot == null) {
+            return;
+        }
+        Snapshot next = snapshot.copy();
+        next.put(genreId, name);
+        snapshot = next;
+    }
+
+    synchronized void remove(int genreId) {
+        version++;
+        if (snapshot == null || !snapshot.namesById.containsKey(genreId)) {
+            return;
+        }
+        Snapshot next = snapshot.copy();
+        next.remove(genreId);
+        snapshot = next;
+    }
+
+    synchronized void invalidate() {
+        version++;
+        snapshot = null;
+    }
+
+    private Snapshot load(Connection connection) throws SQLException {
+        long loadVersion;
+        synchronized (this) {
+            loadVersion = version;
+        }
+        Snapshot loaded = new Snapshot(new HashMap<>(), new HashMap<>());
+        try (PreparedStatement pst = SQLQuery.QUERY_GenreFindAll.prepare(connection);
+             ResultSet rs = pst.executeQuery()) {
+            while (rs.next()) {
+                loaded.put(rs.getInt("id"), rs.getString("name"));
+            }
+        }
+        synchronized (this) {
+            if (snapshot == null && version == loadVersion) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private static final class Snapshot {
+        //ключ - NameKey названия
+        private final Map<String, Integer> idsByName;
+        private final Map<Integer, String> namesById;
+
+        private Snapshot(Map<String, Integer> idsByName, Map<Integer, String> namesById) {
+            this.idsByName = idsByName;
+            this.namesById = namesById;
+        }
+
+        private Snapshot copy() {
+            return new Snapshot(new HashMap<>(idsByName), new HashMap<>(namesById));
+        }
+
+        //прежнее название жанра и прежний жанр с этим названием вытесняются
+        private void put(int genreId, String name) {
+            remove(genreId);
+            Integer previousId = idsByName.put(NameKey.of(name), genreId);
+            if (previousId != null) {
+                namesById.remove(previousId);
+            }
+            namesById.put(genreId, name);
+        }
+
+        private void remove(int genreId) {
+            String name = namesById.remove(genreId);
+            if (name != null) {
+                idsByName.remove(NameKey.of(name));
+            }
+        }
+    }
+}
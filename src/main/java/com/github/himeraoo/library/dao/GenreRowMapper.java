@@ -0,0 +1,37 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.Genre;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Сборка жанров из строк запросов с колонками id, name. Индексы колонок находятся один раз на ResultSet,
+ * жанр, уже собранный в этой операции, берётся из {@link IdentityMap}.
+ */
+final class GenreRowMapper {
+
+    private final ResultSet rs;
+    private final int idColumn;
+    private final int nameColumn;
+    private final IdentityMap identityMap;
+
+    GenreRowMapper(ResultSet rs, IdentityMap identityMap) throws SQLException {
+        this.rs = rs;
+        this.identityMap = identityMap;
+        this.idColumn = rs.findColumn("id");
+        this.nameColumn = rs.findColumn("name");
+    }
+
+    Genre mapGenre() throws SQLException {
+        int genreId = rs.getInt(idColumn);
+        Genre genre = identityMap.getGenre(genreId);
+        if (genre == null) {
+            genre = new Genre();
+            genre.setId(genreId);
+            genre.setName(rs.getString(nameColumn));
+            identityMap.putGenre(genre);
+        }
+        return genre;
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.Genre;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сущности, уже собранные из БД в рамках одной операции DAO, по первичному ключу.
+ * Хранятся только сущности-ссылки: жанр, автор книги без списка книг и книга автора без списка авторов,
+ * поэтому один объект можно отдать во все результаты операции. Вызывающий код не должен их изменять.
+ * При потоковом чтении хранятся только жанры: книг и авторов может быть сколько угодно,
+ * и их накопление свело бы на нет потоковую выдачу.
+ */
+final class IdentityMap {
+
+    private final boolean genresOnly;
+    private final Map<Integer, Genre> genres = new HashMap<>();
+    private final Map<Integer, Author> authors = new HashMap<>();
+    private final Map<Integer, Book> books = new HashMap<>();
+    private final List<Genre> savedGenres = new ArrayList<>();
+
+    IdentityMap() {
+        this(false);
+    }
+
+    private IdentityMap(boolean genresOnly) {
+        this.genresOnly = genresOnly;
+    }
+
+    static IdentityMap forStreaming() {
+        return new IdentityMap(true);
+    }
+
+    Genre getGenre(int genreId) {
+        return genres.get(genreId);
+    }
+
+    void putGenre(Genre genre) {
+        genres.put(genre.getId(), genre);
+    }
+
+    //жанр, сохранённый в БД этой операцией
+    void putSavedGenre(Genre genre) {
+        putGenre(genre);
+        savedGenres.add(genre);
+    }
+
+    Collection<Genre> savedGenres() {
+        return savedGenres;
+    }
+
+    Author getAuthor(int authorId) {
+        return authors.get(authorId);
+    }
+
+    void putAuthor(Author author) {
+        if (!genresOnly) {
+            authors.put(author.getId(), author);
+        }
+    }
+
+    Book getBook(int bookId) {
+        return books.get(bookId);
+    }
+
+    void putBook(Book book) {
+        if (!genresOnly) {
+            books.put(book.getId(), book);
+        }
+    }
+
+    int size() {
+        return genres.size() + authors.size() + books.size();
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.Author;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Ключ, по которому DAO сопоставляют названия и имена с БД. Уникальные индексы сравнивают строки по
+ * utf8mb4_0900_ai_ci, без учёта регистра и диакритических знаков, поэтому "Fantasy" и "fantasy" - одна запись.
+ * Ключ повторяет это сравнение: строка без диакритических знаков в нижнем регистре.
+ */
+final class NameKey {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final char SEPARATOR = '\u0000';
+
+    private NameKey() {
+    }
+
+    static String of(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    //автора определяют имя и фамилия вместе, см. uq_author_name_surname
+    static String of(Author author) {
+        return of(author.getName()) + SEPARATOR + of(author.getSurname());
+    }
+}
@@ -1,16 +1,27 @@
 package com.github.himeraoo.library.dao;
 
+import com.github.himeraoo.library.jdbc.FetchConfig;
+import com.github.himeraoo.library.jdbc.FetchStrategy;
+import com.github.himeraoo.library.jdbc.StatementCachingConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+
 public enum SQLQuery {
 
     QUERY_AuthorFindByIdWithBooks("select a.id as aid, a.name as aname, a.surname as asurname, b.id as bid, b.title as btitle, g.id as gid, g.name as gname from author as a inner join authors_books as ab on a.id=ab.author_id inner join book as b on b.id=ab.book_id inner join genre as g on b.genre_id = g.id where a.id = ?"),
 
     QUERY_AuthorFindByIdWithoutBooks("select a.id as aid, a.name as aname, a.surname as asurname from author as a where a.id = ?"),
 
-    QUERY_AuthorFindAllWithBooks("select a.id as aid, a.name as aname, a.surname as asurname, b.id as bid, b.title as btitle, g.id as gid, g.name as gname from author as a inner join authors_books as ab on a.id=ab.author_id inner join book as b on b.id=ab.book_id inner join genre as g on b.genre_id = g.id"),
+    QUERY_AuthorFindAll("select a.id as aid, a.name as aname, a.surname as asurname, b.id as bid, b.title as btitle, g.id as gid, g.name as gname from author as a left join authors_books as ab on a.id=ab.author_id left join book as b on b.id=ab.book_id left join genre as g on b.genre_id = g.id order by a.id", FetchStrategy.STREAMING),
 
-    QUERY_AuthorFindAllWithoutBooks("select a.id as aid, a.name as aname, a.surname as asurname from author as a"),
+    QUERY_AuthorFindPage("select a.id as aid, a.name as aname, a.surname as asurname, b.id as bid, b.title as btitle, g.id as gid, g.name as gname from (select id, name, surname from author where id > ? order by id limit ?) as a left join authors_books as ab on a.id=ab.author_id left join book as b on b.id=ab.book_id left join genre as g on b.genre_id = g.id order by a.id"),
 
-    QUERY_AuthorUpdateById("update author set name = ?, surname = ? where id = ?"),
+    QUERY_AuthorUpdateById("update author set name = ?, surname = ?, version = version + 1 where id = ?"),
 
     QUERY_AuthorDeleteById("delete from author where id = ?"),
 
@@ -20,8 +31,6 @@ public enum SQLQuery {
 
     QUERY_AllBookFindByAuthorId("select b.id as bid, b.title as btitle, g.id as gid, g.name as gname from book as b inner join authors_books as ab on b.id=ab.book_id inner join genre as g on b.genre_id = g.id inner join author as a on a.id=ab.author_id where a.id = ?"),
 
-    QUERY_CountBookByGenreId("select Count(*) from book as b inner join genre as g on b.genre_id = g.id where g.id = ?"),
-
     QUERY_RemoveRelationAuthorsBooks("delete from authors_books where author_id = ? and book_id = ?"),
 
     QUERY_AddRelationAuthorsBooks("insert into authors_books (author_id, book_id) values (?, ?)"),
@@ -30,11 +39,11 @@ public enum SQLQuery {
 
     QUERY_BookFindByIdWithoutAuthors("select b.id as bid, b.title as btitle, g.id as gid, g.name as gname from book as b inner join genre as g on b.genre_id = g.id where b.id = ?"),
 
-    QUERY_BookFindAll_WithAuthors("select b.id as bid, b.title as btitle, g.id as gid, g.name as gname, a.id as aid, a.name as aname, a.surname as asurname from book as b inner join genre as g on b.genre_id = g.id inner join authors_books as ab on b.id=ab.book_id inner join author as a on a.id=ab.author_id"),
+    QUERY_BookFindAll("select b.id as bid, b.title as btitle, g.id as gid, g.name as gname, a.id as aid, a.name as aname, a.surname as asurname from book as b inner join genre as g on b.genre_id = g.id left join authors_books as ab on b.id=ab.book_id left join author as a on a.id=ab.author_id order by b.id", FetchStrategy.STREAMING),
 
-    QUERY_BookFindAll_WithoutAuthors("select b.id as bid, b.title as btitle, g.id as gid, g.name as gname from book as b inner join genre as g on b.genre_id = g.id"),
+    QUERY_BookFindPage("select b.id as bid, b.title as btitle, g.id as gid, g.name as gname, a.id as aid, a.name as aname, a.surname as asurname from (select id, title, genre_id from book where id > ? order by id limit ?) as b inner join genre as g on b.genre_id = g.id left join authors_books as ab on b.id=ab.book_id left join author as a on a.id=ab.author_id order by b.id"),
 
-    QUERY_BookUpdateById("update book set title = ?, genre_id = ? where id = ?"),
+    QUERY_BookUpdateById("update book set title = ?, genre_id = ?, version = version + 1 where id = ?"),
 
     QUERY_BookDeleteById("delete from book where id = ?"),
 
@@ -46,21 +55,98 @@ public enum SQLQuery {
 
     QUERY_GenreSave("insert into genre (name) VALUES (?)"),
 
-    QUERY_GenreFindAll("select id, name from genre"),
+    QUERY_GenreFindAll("select id, name from genre", FetchStrategy.STREAMING),
 
-    QUERY_GenreUpdateById("update genre set name = ? where id = ?"),
+    QUERY_GenreFindPage("select id, name from genre where id > ? order by id limit ?"),
+
+    QUERY_GenreUpdateById("update genre set name = ?, version = version + 1 where id = ?"),
 
     QUERY_GenreDeleteById("delete from genre where id = ?"),
 
-    QUERY_CountBookByTitle("select Count(*) from book where title = ?"),
+    QUERY_GenreFindByNames("select id, name from genre where name in (%s)"),
+
+    QUERY_AuthorFindByNamesAndSurnames("select id as aid, name as aname, surname as asurname from author where (name, surname) in (%s)"),
+
+    QUERY_BookFindByTitles("select b.id as bid, b.title as btitle, g.id as gid, g.name as gname from book as b inner join genre as g on b.genre_id = g.id where b.title in (%s)"),
 
-    QUERY_CountGenreByName("select Count(*) from genre where name = ?"),
+    QUERY_AuthorTouchById("update author set version = version + 1 where id = ?"),
 
-    QUERY_CountAuthorByNameAndSurname("select Count(*) from author where name = ? AND surname = ?");
+    QUERY_BookTouchById("update book set version = version + 1 where id = ?"),
+
+    QUERY_GenreFindVersionById("select version, updated_at from genre where id = ?"),
+
+    QUERY_AuthorFindVersionById("select a.version, a.updated_at, b.id, b.version, b.updated_at, g.id, g.version, g.updated_at from author as a left join authors_books as ab on a.id=ab.author_id left join book as b on b.id=ab.book_id left join genre as g on b.genre_id = g.id where a.id = ? order by b.id"),
+
+    QUERY_BookFindVersionById("select b.version, b.updated_at, g.id, g.version, g.updated_at, a.id, a.version, a.updated_at from book as b inner join genre as g on b.genre_id = g.id left join authors_books as ab on b.id=ab.book_id left join author as a on a.id=ab.author_id where b.id = ? order by a.id"),
+
+    QUERY_GenreFindListVersion("select count(*), coalesce(sum(version), 0), coalesce(max(id), 0), max(updated_at) from genre"),
+
+    //в списки книг и авторов входят книги, авторы и жанры, поэтому версия списка собирается по всем трём таблицам
+    QUERY_CatalogFindListVersion("select 1 as t, count(*), coalesce(sum(version), 0), coalesce(max(id), 0), max(updated_at) from book union all select 2, count(*), coalesce(sum(version), 0), coalesce(max(id), 0), max(updated_at) from author union all select 3, count(*), coalesce(sum(version), 0), coalesce(max(id), 0), max(updated_at) from genre order by t");
 
     public final String QUERY;
+    //чтение всей таблицы по умолчанию идёт потоком, остальные запросы возвращают ограниченное число строк
+    public final FetchStrategy FETCH_STRATEGY;
 
     SQLQuery(String QUERY) {
+        this(QUERY, FetchStrategy.BUFFERED);
+    }
+
+    SQLQuery(String QUERY, FetchStrategy FETCH_STRATEGY) {
         this.QUERY = QUERY;
+        this.FETCH_STRATEGY = FETCH_STRATEGY;
+    }
+
+    /**
+     * Готовит запрос. На соединении из пула запрос берётся из кэша соединения по этой константе,
+     * close() возвращает его в кэш, и повторный разбор SQL не нужен.
+     */
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        if (connection instanceof StatementCachingConnection) {
+            return ((StatementCachingConnection) connection).prepareCached(this, QUERY, Statement.NO_GENERATED_KEYS);
+        }
+        return connection.prepareStatement(QUERY);
+    }
+
+    /**
+     * То же, что {@link #prepare(Connection)}, для insert с чтением сгенерированных ключей.
+     */
+    public PreparedStatement prepareReturningKeys(Connection connection) throws SQLException {
+        if (connection instanceof StatementCachingConnection) {
+            return ((StatementCachingConnection) connection).prepareCached(this, QUERY, Statement.RETURN_GENERATED_KEYS);
+        }
+        return connection.prepareStatement(QUERY, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    /**
+     * Готовит запрос на чтение со стратегией из fetchConfig, а если она там не задана - со стратегией запроса.
+     */
+    public PreparedStatement prepare(Connection connection, FetchConfig fetchConfig) throws SQLException {
+        //TYPE_FORWARD_ONLY и CONCUR_READ_ONLY - значения по умолчанию, поэтому кэшированный запрос им соответствует
+        PreparedStatement pst = connection instanceof StatementCachingConnection
+                ? prepare(connection)
+                : connection.prepareStatement(QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        fetchConfig.strategyFor(name(), FETCH_STRATEGY).apply(pst, fetchConfig.getFetchSize());
+        return pst;
+    }
+
+    /**
+     * Готовит запрос с IN (%s) на rows строк, см. {@link #withParameters(int, int)}. SQL такого запроса зависит
+     * от числа параметров, поэтому он не кэшируется, но на соединении из пула готовится под этой константой.
+     */
+    public PreparedStatement prepareWithParameters(Connection connection, int rows, int columns) throws SQLException {
+        String sql = withParameters(rows, columns);
+        if (connection instanceof StatementCachingConnection) {
+            return ((StatementCachingConnection) connection).prepareUncached(this, sql);
+        }
+        return connection.prepareStatement(sql);
+    }
+
+    /**
+     * Подставляет в запрос с IN (%s) нужное число параметров: "?, ?" или для составного ключа "(?, ?), (?, ?)".
+     */
+    public String withParameters(int rows, int columns) {
+        String group = columns == 1 ? "?" : "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        return String.format(QUERY, String.join(", ", Collections.nCopies(rows, group)));
     }
 }
@@ -0,0 +1,86 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.EntityVersion;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Собирает {@link EntityVersion} из запроса версии. Числовые столбцы всех строк (id, version, агрегаты по таблице)
+ * входят в хэш, из которого получается tag, столбцы updated_at - в наибольшее время изменения.
+ * Запрос версии читает только эти столбцы по индексам, без названий, заголовков и сборки сущностей,
+ * поэтому он заметно дешевле чтения самой сущности. Порядок строк запроса должен быть постоянным.
+ */
+final class VersionDigest {
+
+    //первые 16 байт SHA-256 - 32 шестнадцатеричных символа в ETag
+    private static final int TAG_BYTES = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private VersionDigest() {
+    }
+
+    //null, если запрос не вернул строк
+    static EntityVersion read(PreparedStatement pst) throws SQLException {
+        MessageDigest digest = newDigest();
+        ByteBuffer value = ByteBuffer.allocate(Long.BYTES);
+        long lastModified = 0;
+        boolean found = false;
+
+        try (ResultSet rs = pst.executeQuery()) {
+            boolean[] timestamps = timestampColumns(rs.getMetaData());
+            while (rs.next()) {
+                found = true;
+                for (int i = 1; i < timestamps.length; i++) {
+                    if (timestamps[i]) {
+                        Timestamp updatedAt = rs.getTimestamp(i);
+                        if (updatedAt != null) {
+                            lastModified = Math.max(lastModified, updatedAt.getTime());
+                        }
+                        continue;
+                    }
+                    long number = rs.getLong(i);
+                    //null от LEFT JOIN отличается от 0
+                    value.clear();
+                    value.putLong(rs.wasNull() ? Long.MIN_VALUE : number);
+                    digest.update(value.array());
+                }
+            }
+        }
+        return found ? new EntityVersion(hex(digest.digest()), lastModified) : null;
+    }
+
+    private static boolean[] timestampColumns(ResultSetMetaData metaData) throws SQLException {
+        boolean[] timestamps = new boolean[metaData.getColumnCount() + 1];
+        for (int i = 1; i < timestamps.length; i++) {
+            int type = metaData.getColumnType(i);
+            timestamps[i] = type == Types.TIMESTAMP || type == Types.TIMESTAMP_WITH_TIMEZONE;
+        }
+        return timestamps;
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[TAG_BYTES * 2];
+        for (int i = 0; i < TAG_BYTES; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //SHA-256 обязан быть в любой JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
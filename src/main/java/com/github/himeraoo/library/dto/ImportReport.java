@@ -0,0 +1,87 @@
+package com.github.himeraoo.library.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отчёт о пакетном импорте книг: итоговые счётчики, скорость записи
+ * и результат по каждой записи в порядке следования в теле запроса.
+ */
+public class ImportReport {
+
+    private int total;
+    private int created;
+    private int duplicates;
+    private int invalid;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private String error;
+    private List<ImportResult> results = new ArrayList<>();
+
+    public ImportReport() {
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public List<ImportResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<ImportResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.himeraoo.library.dto;
+
+/**
+ * Результат импорта одной записи: порядковый номер записи в теле запроса,
+ * статус и id сохранённой книги (0, если книга не сохранена).
+ */
+public class ImportResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private int index;
+    private Status status;
+    private int id;
+    private String message;
+
+    public ImportResult() {
+    }
+
+    public ImportResult(int index, Status status, int id, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,178 @@
+package com.github.himeraoo.library.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный исполнитель для работы с БД, на который сервлеты переносят запросы из потоков контейнера.
+ * Одновременно выполняется не больше threads задач, ещё queueSize ждут своей очереди, остальные сразу
+ * отклоняются {@link RejectedExecutionException}, поэтому медленные запросы к БД не занимают все потоки контейнера.
+ * С virtualThreads на Java 21 каждая задача получает виртуальный поток, а число одновременно выполняемых
+ * задач ограничивает семафор; на более ранних версиях используется обычный пул потоков.
+ */
+public class DbExecutor {
+
+    public static final String ATTRIBUTE = "dbExecutor";
+
+    private final ExecutorService executor;
+    //принятые задачи: выполняемые и ожидающие
+    private final Semaphore admitted;
+    //ограничение одновременно выполняемых задач для виртуальных потоков, для пула потоков - null
+    private final Semaphore running;
+    private final boolean virtualThreads;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    public DbExecutor(DbExecutorConfig config) {
+        this.admitted = new Semaphore(config.getThreads() + config.getQueueSize());
+        ExecutorService virtualExecutor = config.isVirtualThreads() ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.running = new Semaphore(config.getThreads());
+            this.virtualThreads = true;
+        } else {
+            //очередь не ограничена, её размер задаёт семафор admitted
+            this.executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), new DbThreadFactory());
+            this.running = null;
+            this.virtualThreads = false;
+        }
+    }
+
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("DB executor is saturated");
+        }
+        submitted.increment();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(task, queuedAt));
+        } catch (RejectedExecutionException e) {
+            //исполнитель уже остановлен
+            admitted.release();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task, long queuedAt) {
+        boolean acquired = false;
+        try {
+            if (running != null) {
+                running.acquire();
+                acquired = true;
+            }
+            queueWaitNanos.add(System.nanoTime() - queuedAt);
+            active.incrementAndGet();
+            try {
+                task.run();
+                completed.increment();
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                throw e;
+            } finally {
+                active.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            failed.increment();
+            Thread.currentThread().interrupt();
+        } finally {
+            if (acquired) {
+                running.release();
+            }
+            admitted.release();
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getQueuedCount() {
+        return (int) Math.max(0, submitted.sum() - completed.sum() - failed.sum() - active.get());
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getQueueWaitNanos() {
+        return queueWaitNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "DbExecutor{" +
+                "virtualThreads=" + virtualThreads +
+                ", active=" + getActiveCount() +
+                ", queued=" + getQueuedCount() +
+                ", submitted=" + getSubmittedCount() +
+                ", rejected=" + getRejectedCount() +
+                ", completed=" + getCompletedCount() +
+                ", failed=" + getFailedCount() +
+                '}';
+    }
+
+    //Executors.newVirtualThreadPerTaskExecutor() есть только с Java 21, исходники собираются под Java 8
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads are not available, DB executor uses a thread pool");
+            return null;
+        }
+    }
+
+    private static final class DbThreadFactory implements ThreadFactory {
+        private final AtomicInteger number = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "db-executor-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
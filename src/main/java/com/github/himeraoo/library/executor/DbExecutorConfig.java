@@ -0,0 +1,71 @@
+package com.github.himeraoo.library.executor;
+
+import java.util.Properties;
+
+public class DbExecutorConfig {
+
+    private boolean enabled = true;
+    private int threads = 10;
+    private int queueSize = 100;
+    private boolean virtualThreads = false;
+
+    public DbExecutorConfig() {
+    }
+
+    public static DbExecutorConfig fromProperties(Properties properties) {
+        DbExecutorConfig config = new DbExecutorConfig();
+        config.setEnabled(Boolean.parseBoolean(properties.getProperty("dbExecutorEnabled", String.valueOf(config.enabled)).trim()));
+        config.setThreads(Integer.parseInt(properties.getProperty("dbExecutorThreads", String.valueOf(config.threads)).trim()));
+        config.setQueueSize(Integer.parseInt(properties.getProperty("dbExecutorQueueSize", String.valueOf(config.queueSize)).trim()));
+        config.setVirtualThreads(Boolean.parseBoolean(properties.getProperty("dbExecutorVirtualThreads", String.valueOf(config.virtualThreads)).trim()));
+        return config;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("dbExecutorThreads must be greater than 0");
+        }
+        this.threads = threads;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        if (queueSize < 0) {
+            throw new IllegalArgumentException("dbExecutorQueueSize must not be negative");
+        }
+        this.queueSize = queueSize;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "DbExecutorConfig{" +
+                "enabled=" + enabled +
+                ", threads=" + threads +
+                ", queueSize=" + queueSize +
+                ", virtualThreads=" + virtualThreads +
+                '}';
+    }
+}
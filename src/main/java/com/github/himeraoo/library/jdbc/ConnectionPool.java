@@ -0,0 +1,329 @@
+package com.github.himeraoo.library.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный пул JDBC соединений: вытеснение простаивающих, максимальное время жизни,
+ * таймаут ожидания свободного соединения и обнаружение утечек.
+ * Соединение проверяется через isValid только если не использовалось дольше validationWindowMs,
+ * простаивающие соединения могут поддерживаться фоновым keepalive.
+ * Каждое физическое соединение держит свой кэш подготовленных запросов размером statementCacheSize.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final PoolConfig config;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final LongAdder validationsPerformed = new LongAdder();
+    private final LongAdder validationsSkipped = new LongAdder();
+    private final LongAdder validationsFailed = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password, PoolConfig config) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.config = config;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = config.getHousekeepingPeriodMs();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getConnectionTimeoutMs());
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            PooledConnection pooled = idleConnections.pollFirst();
+            if (pooled == null) {
+                if (reserveSlot()) {
+                    return lease(createConnection());
+                }
+                pooled = awaitIdleConnection(deadline);
+                if (pooled == null) {
+                    continue;
+                }
+            }
+
+            long now = System.nanoTime();
+            if (isExpired(pooled, now) || pooled.getConnection().isClosed() || !validate(pooled, now)) {
+                destroy(pooled);
+                continue;
+            }
+            return lease(pooled);
+        }
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    public int getActiveConnections() {
+        return borrowedConnections.size();
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads.get();
+    }
+
+    public long getValidationsPerformed() {
+        return validationsPerformed.sum();
+    }
+
+    public long getValidationsSkipped() {
+        return validationsSkipped.sum();
+    }
+
+    public long getValidationsFailed() {
+        return validationsFailed.sum();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions.sum();
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    void release(PooledConnection pooled) {
+        borrowedConnections.remove(pooled);
+        long now = System.nanoTime();
+        if (closed || pooled.isBroken() || isExpired(pooled, now)) {
+            destroy(pooled);
+            return;
+        }
+
+        //возвращаем соединение в исходное состояние, незавершённая транзакция откатывается
+        try {
+            Connection connection = pooled.getConnection();
+            if (connection.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+            destroy(pooled);
+            return;
+        }
+
+        pooled.markReleased(now);
+        idleConnections.offerFirst(pooled);
+        if (closed && idleConnections.remove(pooled)) {
+            destroy(pooled);
+        }
+    }
+
+    private PooledConnection awaitIdleConnection(long deadline) throws SQLException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new SQLTimeoutException("Connection is not available, request timed out after "
+                    + config.getConnectionTimeoutMs() + "ms (total=" + getTotalConnections()
+                    + ", active=" + getActiveConnections() + ", idle=" + getIdleConnections()
+                    + ", waiting=" + getWaitingThreads() + ")");
+        }
+
+        waitingThreads.incrementAndGet();
+        try {
+            //ждём короткими отрезками, чтобы заметить освободившийся слот после закрытия сломанного соединения
+            return idleConnections.pollFirst(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+    }
+
+    private boolean validate(PooledConnection pooled, long now) {
+        //соединение недавно использовалось или проверялось, сетевой ping не нужен
+        if (now - pooled.getLastAccessedAt() < TimeUnit.MILLISECONDS.toNanos(config.getValidationWindowMs())) {
+            validationsSkipped.increment();
+            return true;
+        }
+
+        validationsPerformed.increment();
+        try {
+            int timeoutSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(config.getValidationTimeoutMs()));
+            if (pooled.getConnection().isValid(timeoutSeconds)) {
+                pooled.markValidated(System.nanoTime());
+                return true;
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        validationsFailed.increment();
+        return false;
+    }
+
+    private Connection lease(PooledConnection pooled) {
+        Throwable borrowTrace = config.getLeakDetectionThresholdMs() > 0
+                ? new Exception("Connection borrowed by thread " + Thread.currentThread().getName())
+                : null;
+        pooled.markBorrowed(System.nanoTime(), borrowTrace);
+        borrowedConnections.add(pooled);
+        return pooled.newHandle(this);
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int total = totalConnections.get();
+            if (total >= config.getMaxPoolSize()) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(total, total + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(url, username, password);
+            StatementCache statementCache = new StatementCache(config.getStatementCacheSize(),
+                    statementCacheHits, statementCacheMisses, statementCacheEvictions);
+            return new PooledConnection(connection, statementCache, System.nanoTime());
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        pooled.closeQuietly();
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now) {
+        long maxLifetimeMs = config.getMaxLifetimeMs();
+        return maxLifetimeMs > 0 && now - pooled.getCreatedAt() > TimeUnit.MILLISECONDS.toNanos(maxLifetimeMs);
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.nanoTime();
+            long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMs());
+            for (PooledConnection pooled : idleConnections) {
+                boolean idleTooLong = config.getIdleTimeoutMs() > 0
+                        && now - pooled.getLastAccessedAt() > idleTimeoutNanos
+                        && totalConnections.get() > config.getMinIdle();
+                //remove() вернёт false, если соединение уже забрал другой поток
+                if ((idleTooLong || isExpired(pooled, now)) && idleConnections.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+
+            keepalive(now);
+            detectLeaks(now);
+            fillToMinIdle();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void keepalive(long now) {
+        long keepaliveTimeMs = config.getKeepaliveTimeMs();
+        if (keepaliveTimeMs <= 0) {
+            return;
+        }
+        long keepaliveNanos = TimeUnit.MILLISECONDS.toNanos(keepaliveTimeMs);
+        for (PooledConnection pooled : idleConnections) {
+            //на время проверки соединение забирается из очереди, чтобы его не получил другой поток
+            if (now - pooled.getLastAccessedAt() > keepaliveNanos && idleConnections.remove(pooled)) {
+                if (validate(pooled, now)) {
+                    idleConnections.offerLast(pooled);
+                } else {
+                    destroy(pooled);
+                }
+            }
+        }
+    }
+
+    private void detectLeaks(long now) {
+        long thresholdMs = config.getLeakDetectionThresholdMs();
+        if (thresholdMs <= 0) {
+            return;
+        }
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        for (PooledConnection pooled : borrowedConnections) {
+            if (!pooled.isLeakReported() && now - pooled.getBorrowedAt() > thresholdNanos) {
+                pooled.markLeakReported();
+                Exception leak = new Exception("Apparent connection leak detected, connection held for "
+                        + TimeUnit.NANOSECONDS.toMillis(now - pooled.getBorrowedAt()) + "ms");
+                Throwable borrowTrace = pooled.getBorrowTrace();
+                if (borrowTrace != null) {
+                    leak.initCause(borrowTrace);
+                }
+                leak.printStackTrace();
+            }
+        }
+    }
+
+    private void fillToMinIdle() {
+        while (!closed && idleConnections.size() < config.getMinIdle() && reserveSlot()) {
+            try {
+                idleConnections.offerLast(createConnection());
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+}
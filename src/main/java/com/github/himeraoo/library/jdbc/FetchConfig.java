@@ -0,0 +1,58 @@
+package com.github.himeraoo.library.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class FetchConfig {
+
+    public static final String STRATEGY_PREFIX = "fetchStrategy.";
+
+    private int fetchSize = 1000;
+    private final Map<String, FetchStrategy> strategies = new HashMap<>();
+
+    public FetchConfig() {
+    }
+
+    //fetchSize=1000, fetchStrategy.QUERY_BookFindAll=CURSOR
+    public static FetchConfig fromProperties(Properties properties) {
+        FetchConfig config = new FetchConfig();
+        config.setFetchSize(Integer.parseInt(properties.getProperty("fetchSize", String.valueOf(config.fetchSize)).trim()));
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(STRATEGY_PREFIX)) {
+                String strategy = properties.getProperty(name).trim().toUpperCase();
+                config.setStrategy(name.substring(STRATEGY_PREFIX.length()), FetchStrategy.valueOf(strategy));
+            }
+        }
+        return config;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be greater than 0");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    public void setStrategy(String queryName, FetchStrategy strategy) {
+        strategies.put(queryName, strategy);
+    }
+
+    //стратегия из настроек, если для запроса она не задана - стратегия запроса по умолчанию
+    public FetchStrategy strategyFor(String queryName, FetchStrategy defaultStrategy) {
+        FetchStrategy strategy = strategies.get(queryName);
+        return strategy != null ? strategy : defaultStrategy;
+    }
+
+    @Override
+    public String toString() {
+        return "FetchConfig{" +
+                "fetchSize=" + fetchSize +
+                ", strategies=" + strategies +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.himeraoo.library.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Способ чтения ResultSet драйвером MySQL Connector/J.
+ */
+public enum FetchStrategy {
+
+    /**
+     * Поведение драйвера по умолчанию: весь результат читается в память клиента до первого rs.next().
+     * Fetch size сбрасывается явно, запрос из кэша мог сохранить его от другой стратегии.
+     */
+    BUFFERED {
+        @Override
+        public void apply(PreparedStatement pst, int fetchSize) throws SQLException {
+            pst.setFetchSize(0);
+        }
+    },
+
+    /**
+     * Строки читаются из сокета по одной. Пока ResultSet не закрыт, другие запросы на этом соединении выполнять нельзя.
+     */
+    STREAMING {
+        @Override
+        public void apply(PreparedStatement pst, int fetchSize) throws SQLException {
+            pst.setFetchSize(Integer.MIN_VALUE);
+        }
+    },
+
+    /**
+     * Серверный курсор, строки запрашиваются окнами по fetchSize. Работает только с useCursorFetch=true в dbUrl,
+     * без него драйвер игнорирует fetch size и читает результат целиком.
+     */
+    CURSOR {
+        @Override
+        public void apply(PreparedStatement pst, int fetchSize) throws SQLException {
+            pst.setFetchSize(fetchSize);
+        }
+    };
+
+    public abstract void apply(PreparedStatement pst, int fetchSize) throws SQLException;
+}
@@ -0,0 +1,316 @@
+package com.github.himeraoo.library.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обёртка над соединением сессии, которая замеряет каждый execute подготовленных запросов и сообщает о нём
+ * {@link QueryListener}. Запрос называется ключом, под которым он подготовлен через {@link StatementCachingConnection}
+ * (для SQLQuery - именем константы), запросы, подготовленные напрямую, - {@link #UNNAMED}.
+ * Для запроса с результатом событие отправляется, когда результат прочитан и закрыт, вместе с числом прочитанных строк.
+ * <p>
+ * Сессия от beginSession до закрытия соединения - одна логическая операция DAO. Обёртка считает обращения к БД
+ * операции (execute, commit, rollback) и при закрытии соединения передаёт их слушателю. Запрос или операция дольше
+ * порога пишутся в журнал медленных запросов вместе с методом, который их выполнил; стек для этого разбирается
+ * только у медленных, поэтому обычные запросы он не замедляет.
+ */
+final class InstrumentedConnection {
+
+    static final String UNNAMED = "unnamed";
+
+    private static final String JDBC_PACKAGE = InstrumentedConnection.class.getPackage().getName() + ".";
+    private static final String APPLICATION_PACKAGE = "com.github.himeraoo.library.";
+
+    private InstrumentedConnection() {
+    }
+
+    /**
+     * @param listener       слушатель запросов или null
+     * @param slowQueryNanos порог журнала медленных запросов, 0 - журнал выключен
+     */
+    static Connection wrap(Connection connection, QueryListener listener, long slowQueryNanos) {
+        return (Connection) Proxy.newProxyInstance(
+                InstrumentedConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class, StatementCachingConnection.class},
+                new ConnectionHandle(connection, listener, slowQueryNanos));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    //ближайший метод приложения вне JDBC слоя, например AuthorDAOImpl.update
+    static String caller() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (className.startsWith(APPLICATION_PACKAGE) && !className.startsWith(JDBC_PACKAGE)) {
+                return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            }
+        }
+        return UNNAMED;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Соединение привязано к потоку сессии, поэтому счётчики операции не синхронизируются.
+     */
+    private static final class ConnectionHandle implements InvocationHandler {
+
+        private final Connection connection;
+        private final QueryListener listener;
+        private final long slowQueryNanos;
+        private final long startedAt = System.nanoTime();
+        private int roundTrips;
+        //число выполнений каждого запроса для журнала медленной операции, только при включённом журнале
+        private final Map<String, Integer> executions;
+        private boolean closed;
+
+        private ConnectionHandle(Connection connection, QueryListener listener, long slowQueryNanos) {
+            this.connection = connection;
+            this.listener = listener;
+            this.slowQueryNanos = slowQueryNanos;
+            this.executions = slowQueryNanos > 0 ? new LinkedHashMap<>() : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareCached":
+                    return statement(String.valueOf(args[0]), connection instanceof StatementCachingConnection
+                            ? ((StatementCachingConnection) connection).prepareCached(args[0], (String) args[1], (Integer) args[2])
+                            : connection.prepareStatement((String) args[1], (Integer) args[2]));
+                case "prepareUncached":
+                    return statement(String.valueOf(args[0]), connection instanceof StatementCachingConnection
+                            ? ((StatementCachingConnection) connection).prepareUncached(args[0], (String) args[1])
+                            : connection.prepareStatement((String) args[1]));
+                case "prepareStatement":
+                    return statement(UNNAMED, (PreparedStatement) InstrumentedConnection.invoke(connection, method, args));
+                case "commit":
+                case "rollback":
+                    roundTrips++;
+                    break;
+                case "close":
+                    InstrumentedConnection.invoke(connection, method, args);
+                    if (!closed) {
+                        closed = true;
+                        finishOperation();
+                    }
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "InstrumentedConnection[" + connection + "]";
+                default:
+                    break;
+            }
+            return InstrumentedConnection.invoke(connection, method, args);
+        }
+
+        private PreparedStatement statement(String query, PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    InstrumentedConnection.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new StatementHandle(query, statement, this));
+        }
+
+        private int nextRoundTrip() {
+            return ++roundTrips;
+        }
+
+        private void executed(String query, long elapsedNanos, long rows, boolean failed, int parameters, int batch, int roundTrip) {
+            if (listener != null) {
+                listener.onQuery(query, elapsedNanos, rows, failed);
+            }
+            if (executions == null) {
+                return;
+            }
+            executions.merge(query, 1, Integer::sum);
+            if (elapsedNanos >= slowQueryNanos) {
+                System.out.println("Slow query " + query + " in " + caller() + ": " + millis(elapsedNanos) + "ms"
+                        + ", parameters=" + parameters + (batch > 0 ? ", batch=" + batch : "")
+                        + ", rows=" + rows + ", round trip " + roundTrip + (failed ? ", failed" : ""));
+            }
+        }
+
+        //close() вызывается в методе DAO, поэтому caller() здесь - сама операция
+        private void finishOperation() {
+            long elapsedNanos = System.nanoTime() - startedAt;
+            if (listener != null) {
+                listener.onOperation(roundTrips, elapsedNanos);
+            }
+            if (executions != null && elapsedNanos >= slowQueryNanos) {
+                StringBuilder queries = new StringBuilder();
+                for (Map.Entry<String, Integer> execution : executions.entrySet()) {
+                    queries.append(queries.length() == 0 ? "" : ", ").append(execution.getKey()).append(" x").append(execution.getValue());
+                }
+                System.out.println("Slow operation " + caller() + ": " + millis(elapsedNanos) + "ms"
+                        + ", round trips=" + roundTrips + " [" + queries + "]");
+            }
+        }
+    }
+
+    /**
+     * Запрос используется одним потоком, поэтому состояние незавершённого execute не синхронизируется.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+
+        private final String query;
+        private final PreparedStatement statement;
+        private final ConnectionHandle session;
+        //наибольший номер параметра, заданного через set*, и число строк пакета addBatch
+        private int parameters;
+        private int batch;
+        //длительность execute, результат которого ещё читается, иначе -1
+        private long pendingNanos = -1;
+        private long pendingRows;
+        private int pendingRoundTrip;
+        //номер execute: результат прежнего execute при закрытии не завершает текущий
+        private int execution;
+
+        private StatementHandle(String query, PreparedStatement statement, ConnectionHandle session) {
+            this.query = query;
+            this.statement = statement;
+            this.session = session;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            //setInt(1, ...), setString(2, ...): параметры запроса, а не настройки вроде setFetchSize(int)
+            if (name.startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer) {
+                parameters = Math.max(parameters, (Integer) args[0]);
+            }
+            switch (name) {
+                case "addBatch":
+                    batch++;
+                    break;
+                case "clearBatch":
+                    batch = 0;
+                    break;
+                case "close":
+                    finish();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return InstrumentedConnection.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            //новый execute закрывает прежний результат
+            finish();
+            execution++;
+            int roundTrip = session.nextRoundTrip();
+            int executedBatch = batch;
+            batch = 0;
+            long startedAt = System.nanoTime();
+            Object result;
+            try {
+                result = InstrumentedConnection.invoke(statement, method, args);
+            } catch (Throwable e) {
+                session.executed(query, System.nanoTime() - startedAt, 0, true, parameters, executedBatch, roundTrip);
+                throw e;
+            }
+            long elapsedNanos = System.nanoTime() - startedAt;
+
+            if (result instanceof ResultSet) {
+                pendingNanos = elapsedNanos;
+                pendingRows = 0;
+                pendingRoundTrip = roundTrip;
+                return Proxy.newProxyInstance(
+                        InstrumentedConnection.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class},
+                        new ResultSetHandle((ResultSet) result, this, execution));
+            }
+            session.executed(query, elapsedNanos, rows(result), false, parameters, executedBatch, roundTrip);
+            return result;
+        }
+
+        private void finish() {
+            if (pendingNanos < 0) {
+                return;
+            }
+            session.executed(query, pendingNanos, pendingRows, false, parameters, 0, pendingRoundTrip);
+            pendingNanos = -1;
+        }
+
+        //executeUpdate возвращает число строк, executeBatch - массив, execute - признак результата
+        private static long rows(Object result) {
+            if (result instanceof Number) {
+                return Math.max(0, ((Number) result).longValue());
+            }
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(0, count);
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static final class ResultSetHandle implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final StatementHandle statement;
+        private final int execution;
+
+        private ResultSetHandle(ResultSet resultSet, StatementHandle statement, int execution) {
+            this.resultSet = resultSet;
+            this.statement = statement;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object hasNext = InstrumentedConnection.invoke(resultSet, method, args);
+                    if ((Boolean) hasNext && statement.execution == execution) {
+                        statement.pendingRows++;
+                    }
+                    return hasNext;
+                case "close":
+                    InstrumentedConnection.invoke(resultSet, method, args);
+                    if (statement.execution == execution) {
+                        statement.finish();
+                    }
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return InstrumentedConnection.invoke(resultSet, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.himeraoo.library.jdbc;
+
+import java.util.Properties;
+
+public class PoolConfig {
+
+    private int maxPoolSize = 10;
+    private int minIdle = 2;
+    private long connectionTimeoutMs = 30_000;
+    private long idleTimeoutMs = 600_000;
+    private long maxLifetimeMs = 1_800_000;
+    private long leakDetectionThresholdMs = 60_000;
+    private long housekeepingPeriodMs = 30_000;
+    private long validationTimeoutMs = 5_000;
+    private long validationWindowMs = 500;
+    private long keepaliveTimeMs = 0;
+    private int statementCacheSize = 64;
+
+    public PoolConfig() {
+    }
+
+    public static PoolConfig fromProperties(Properties properties) {
+        PoolConfig config = new PoolConfig();
+        config.setMaxPoolSize(Integer.parseInt(properties.getProperty("poolMaxSize", String.valueOf(config.maxPoolSize))));
+        config.setMinIdle(Integer.parseInt(properties.getProperty("poolMinIdle", String.valueOf(config.minIdle))));
+        config.setConnectionTimeoutMs(Long.parseLong(properties.getProperty("poolConnectionTimeoutMs", String.valueOf(config.connectionTimeoutMs))));
+        config.setIdleTimeoutMs(Long.parseLong(properties.getProperty("poolIdleTimeoutMs", String.valueOf(config.idleTimeoutMs))));
+        config.setMaxLifetimeMs(Long.parseLong(properties.getProperty("poolMaxLifetimeMs", String.valueOf(config.maxLifetimeMs))));
+        config.setLeakDetectionThresholdMs(Long.parseLong(properties.getProperty("poolLeakDetectionThresholdMs", String.valueOf(config.leakDetectionThresholdMs))));
+        config.setHousekeepingPeriodMs(Long.parseLong(properties.getProperty("poolHousekeepingPeriodMs", String.valueOf(config.housekeepingPeriodMs))));
+        config.setValidationTimeoutMs(Long.parseLong(properties.getProperty("poolValidationTimeoutMs", String.valueOf(config.validationTimeoutMs))));
+        config.setValidationWindowMs(Long.parseLong(properties.getProperty("poolValidationWindowMs", String.valueOf(config.validationWindowMs))));
+        config.setKeepaliveTimeMs(Long.parseLong(properties.getProperty("poolKeepaliveTimeMs", String.valueOf(config.keepaliveTimeMs))));
+        config.setStatementCacheSize(Integer.parseInt(properties.getProperty("poolStatementCacheSize", String.valueOf(config.statementCacheSize))));
+        return config;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        if (maxPoolSize < 1) {
+            throw new IllegalArgumentException("poolMaxSize must be greater than 0");
+        }
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = Math.max(0, minIdle);
+    }
+
+    public long getConnectionTimeoutMs() {
+        return connectionTimeoutMs;
+    }
+
+    public void setConnectionTimeoutMs(long connectionTimeoutMs) {
+        this.connectionTimeoutMs = connectionTimeoutMs;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public long getMaxLifetimeMs() {
+        return maxLifetimeMs;
+    }
+
+    public void setMaxLifetimeMs(long maxLifetimeMs) {
+        this.maxLifetimeMs = maxLifetimeMs;
+    }
+
+    public long getLeakDetectionThresholdMs() {
+        return leakDetectionThresholdMs;
+    }
+
+    public void setLeakDetectionThresholdMs(long leakDetectionThresholdMs) {
+        this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+    }
+
+    public long getHousekeepingPeriodMs() {
+        return housekeepingPeriodMs;
+    }
+
+    public void setHousekeepingPeriodMs(long housekeepingPeriodMs) {
+        this.housekeepingPeriodMs = housekeepingPeriodMs;
+    }
+
+    public long getValidationTimeoutMs() {
+        return validationTimeoutMs;
+    }
+
+    public void setValidationTimeoutMs(long validationTimeoutMs) {
+        this.validationTimeoutMs = validationTimeoutMs;
+    }
+
+    public long getValidationWindowMs() {
+        return validationWindowMs;
+    }
+
+    public void setValidationWindowMs(long validationWindowMs) {
+        this.validationWindowMs = validationWindowMs;
+    }
+
+    public long getKeepaliveTimeMs() {
+        return keepaliveTimeMs;
+    }
+
+    public void setKeepaliveTimeMs(long keepaliveTimeMs) {
+        this.keepaliveTimeMs = keepaliveTimeMs;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    //0 отключает кэш подготовленных запросов
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+    }
+
+    @Override
+    public String toString() {
+        return "PoolConfig{" +
+                "maxPoolSize=" + maxPoolSize +
+                ", minIdle=" + minIdle +
+                ", connectionTimeoutMs=" + connectionTimeoutMs +
+                ", idleTimeoutMs=" + idleTimeoutMs +
+                ", maxLifetimeMs=" + maxLifetimeMs +
+                ", leakDetectionThresholdMs=" + leakDetectionThresholdMs +
+                ", housekeepingPeriodMs=" + housekeepingPeriodMs +
+                ", validationTimeoutMs=" + validationTimeoutMs +
+                ", validationWindowMs=" + validationWindowMs +
+                ", keepaliveTimeMs=" + keepaliveTimeMs +
+                ", statementCacheSize=" + statementCacheSize +
+                '}';
+    }
+}
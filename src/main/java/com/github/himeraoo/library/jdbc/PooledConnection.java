@@ -0,0 +1,193 @@
+package com.github.himeraoo.library.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Физическое соединение, принадлежащее пулу, и его служебное состояние.
+ * Наружу отдаётся только прокси {@link #newHandle(ConnectionPool)}: его close() возвращает соединение в пул,
+ * а подготовленные через {@link StatementCachingConnection} запросы остаются в кэше соединения.
+ */
+final class PooledConnection {
+
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final long createdAt;
+    private volatile long lastAccessedAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowTrace;
+    private volatile boolean leakReported;
+    private volatile boolean broken;
+
+    PooledConnection(Connection connection, StatementCache statementCache, long now) {
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.createdAt = now;
+        this.lastAccessedAt = now;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    Throwable getBorrowTrace() {
+        return borrowTrace;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void markLeakReported() {
+        this.leakReported = true;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    void markBroken() {
+        this.broken = true;
+    }
+
+    void markValidated(long now) {
+        this.lastAccessedAt = now;
+    }
+
+    void markBorrowed(long now, Throwable borrowTrace) {
+        this.borrowedAt = now;
+        this.lastAccessedAt = now;
+        this.borrowTrace = borrowTrace;
+        this.leakReported = false;
+    }
+
+    void markReleased(long now) {
+        this.lastAccessedAt = now;
+        this.borrowTrace = null;
+    }
+
+    Connection newHandle(ConnectionPool pool) {
+        return (Connection) Proxy.newProxyInstance(
+                PooledConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class, StatementCachingConnection.class},
+                new ConnectionHandle(pool, this));
+    }
+
+    void closeQuietly() {
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    static boolean isConnectionError(SQLException e) {
+        String sqlState = e.getSQLState();
+        return sqlState != null && sqlState.startsWith("08");
+    }
+
+    private static final class ConnectionHandle implements InvocationHandler {
+
+        private final ConnectionPool pool;
+        private final PooledConnection pooled;
+        private volatile boolean closed;
+
+        private ConnectionHandle(ConnectionPool pool, PooledConnection pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pooled.statementCache.releaseAll();
+                        pool.release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    if (closed) {
+                        return false;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.connection + (closed ? ", closed]" : "]");
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+
+            try {
+                if (method.getDeclaringClass() == StatementCachingConnection.class) {
+                    return method.getName().equals("prepareCached")
+                            ? prepareCached((Connection) proxy, args)
+                            : prepareUncached(args);
+                }
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                //ошибки класса 08 (connection exception) означают, что физическое соединение больше непригодно
+                if (cause instanceof SQLException && isConnectionError((SQLException) cause)) {
+                    pooled.markBroken();
+                }
+                throw cause;
+            }
+        }
+
+        private PreparedStatement prepareCached(Connection proxy, Object[] args) throws SQLException {
+            try {
+                return pooled.statementCache.prepare(pooled.connection, proxy, args[0], (String) args[1], (Integer) args[2]);
+            } catch (SQLException e) {
+                if (isConnectionError(e)) {
+                    pooled.markBroken();
+                }
+                throw e;
+            }
+        }
+
+        //запрос вне кэша готовится на физическом соединении, как обычный prepareStatement
+        private PreparedStatement prepareUncached(Object[] args) throws SQLException {
+            try {
+                return pooled.connection.prepareStatement((String) args[1]);
+            } catch (SQLException e) {
+                if (isConnectionError(e)) {
+                    pooled.markBroken();
+                }
+                throw e;
+            }
+        }
+    }
+}
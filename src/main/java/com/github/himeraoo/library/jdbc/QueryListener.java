@@ -0,0 +1,25 @@
+package com.github.himeraoo.library.jdbc;
+
+/**
+ * Получает выполненные запросы сессий, см. {@link SessionManagerJDBC#setQueryListener(QueryListener)}.
+ * Вызывается в потоке, выполнившем запрос, поэтому должен работать быстро и не бросать исключений.
+ */
+public interface QueryListener {
+
+    /**
+     * @param query        ключ, под которым запрос подготовлен (имя константы SQLQuery), или {@link InstrumentedConnection#UNNAMED}
+     * @param elapsedNanos длительность вызова execute
+     * @param rows         прочитанные строки результата или изменённые строки
+     * @param failed       execute завершился ошибкой
+     */
+    void onQuery(String query, long elapsedNanos, long rows, boolean failed);
+
+    /**
+     * Сессия закрыта: логическая операция DAO от beginSession до закрытия соединения.
+     *
+     * @param roundTrips   обращения к БД операции: execute, commit и rollback
+     * @param elapsedNanos длительность операции
+     */
+    default void onOperation(int roundTrips, long elapsedNanos) {
+    }
+}
@@ -0,0 +1,310 @@
+package com.github.himeraoo.library.jdbc;
+
+import com.github.himeraoo.library.exception.SessionManagerException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Приведение схемы БД к последней версии. Скрипты V{версия}__{описание}.sql лежат в db/migration и перечислены
+ * по порядку в db/migration/migrations.list, применённые версии с контрольными суммами хранятся в schema_version.
+ * Если схема актуальна, запуск обходится одним запросом к schema_version. Изменённый после применения скрипт
+ * останавливает запуск. Скрипты применяются под именованной блокировкой MySQL, поэтому несколько экземпляров
+ * приложения могут стартовать одновременно.
+ * <p>
+ * Запрос, перед которым стоит комментарий "-- check: описание", - проверка данных: все проверки скрипта выполняются
+ * до его первого запроса, и если хотя бы одна вернула строки, скрипт не применяется, а запуск останавливается
+ * с перечнем найденных строк. DDL в MySQL не откатывается, поэтому данные проверяются до изменения схемы.
+ */
+final class SchemaMigrator {
+
+    private static final String LOCATION = "db/migration/";
+
+    //ER_NO_SUCH_TABLE
+    private static final int NO_SUCH_TABLE = 1146;
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+    private static final String LOCK_NAME = "library_schema_migration";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String CHECK_PREFIX = "-- check:";
+    //сколько строк каждой проверки попадает в сообщение
+    private static final int CHECK_REPORT_ROWS = 20;
+
+    private final List<Migration> migrations;
+
+    SchemaMigrator(List<Migration> migrations) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort((a, b) -> Integer.compare(a.version, b.version));
+        this.migrations = Collections.unmodifiableList(sorted);
+    }
+
+    static SchemaMigrator fromClasspath() {
+        List<Migration> migrations = new ArrayList<>();
+        for (String line : readResource(LOCATION + "migrations.list").split("\n")) {
+            String name = line.trim();
+            if (!name.isEmpty()) {
+                migrations.add(Migration.of(name, readResource(LOCATION + name)));
+            }
+        }
+        return new SchemaMigrator(migrations);
+    }
+
+    void migrate(Connection connection) throws SQLException {
+        if (isCurrent(appliedVersions(connection))) {
+            return;
+        }
+
+        lock(connection);
+        try {
+            //пока ждали блокировку, схему мог обновить другой экземпляр
+            Map<Integer, Long> applied = appliedVersions(connection);
+            if (isCurrent(applied)) {
+                return;
+            }
+            createVersionTable(connection);
+            for (Migration migration : migrations) {
+                if (!applied.containsKey(migration.version)) {
+                    apply(migration, connection);
+                }
+            }
+        } finally {
+            unlock(connection);
+        }
+    }
+
+    //проверяет контрольные суммы применённых скриптов, версии новее известных приложению не мешают запуску
+    private boolean isCurrent(Map<Integer, Long> applied) {
+        boolean current = true;
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.version);
+            if (checksum == null) {
+                current = false;
+            } else if (checksum != migration.checksum) {
+                throw new SessionManagerException("Migration " + migration.name + " has been changed after it was applied");
+            }
+        }
+        return current;
+    }
+
+    private Map<Integer, Long> appliedVersions(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (PreparedStatement pst = connection.prepareStatement("select version, checksum from schema_version");
+             ResultSet rs = pst.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        } catch (SQLException ex) {
+            //таблицы версий ещё нет - не применено ни одного скрипта
+            if (ex.getErrorCode() != NO_SUCH_TABLE) {
+                throw ex;
+            }
+        }
+        return applied;
+    }
+
+    private void createVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version (\n" +
+                    "        version INT NOT NULL,\n" +
+                    "        description VARCHAR(255) NOT NULL,\n" +
+                    "        checksum BIGINT NOT NULL,\n" +
+                    "        installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,\n" +
+                    "        PRIMARY KEY (version))\n" +
+                    "    ENGINE = InnoDB");
+        }
+    }
+
+    //DDL в MySQL фиксируется сразу, поэтому версия записывается только после всех запросов скрипта
+    private void apply(Migration migration, Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            String report = checkReport(migration, statement);
+            if (!report.isEmpty()) {
+                throw new SessionManagerException("Migration " + migration.name + " is not applied, data checks failed"
+                        + " (resolve the rows below and restart, see the script comments):" + report);
+            }
+            for (String sql : migration.statements()) {
+                statement.execute(sql);
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Migration " + migration.name + " failed: " + ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), ex);
+        }
+        try (PreparedStatement pst = connection.prepareStatement("insert into schema_version (version, description, checksum) values (?, ?, ?)")) {
+            pst.setInt(1, migration.version);
+            pst.setString(2, migration.description);
+            pst.setLong(3, migration.checksum);
+            pst.executeUpdate();
+        }
+    }
+
+    //строки, найденные проверками скрипта, или пустая строка, если данные готовы к скрипту
+    private String checkReport(Migration migration, Statement statement) throws SQLException {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, String> check : migration.checks().entrySet()) {
+            StringBuilder rows = new StringBuilder();
+            int count = 0;
+            try (ResultSet rs = statement.executeQuery(check.getValue())) {
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    if (++count > CHECK_REPORT_ROWS) {
+                        continue;
+                    }
+                    rows.append("\n    ");
+                    for (int i = 1; i <= columns; i++) {
+                        rows.append(i > 1 ? " | " : "").append(rs.getString(i));
+                    }
+                }
+            } catch (SQLException ex) {
+                throw new SQLException("Migration " + migration.name + " check failed: " + ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), ex);
+            }
+            if (count > 0) {
+                report.append("\n  ").append(check.getKey()).append(" (").append(count).append("):").append(rows);
+                if (count > CHECK_REPORT_ROWS) {
+                    report.append("\n    ...");
+                }
+            }
+        }
+        return report.toString();
+    }
+
+    private void lock(Connection connection) throws SQLException {
+        try (PreparedStatement pst = connection.prepareStatement("select get_lock(?, ?)")) {
+            pst.setString(1, LOCK_NAME);
+            pst.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = pst.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SessionManagerException("Schema migration lock is not acquired in " + LOCK_TIMEOUT_SECONDS + " s");
+                }
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement pst = connection.prepareStatement("select release_lock(?)")) {
+            pst.setString(1, LOCK_NAME);
+            pst.executeQuery().close();
+        }
+    }
+
+    private static String readResource(String name) {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new SessionManagerException("Migration resource " + name + " is not found");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SessionManagerException(e);
+        }
+    }
+
+    static final class Migration {
+        final int version;
+        final String name;
+        final String description;
+        final String script;
+        final long checksum;
+
+        private Migration(int version, String name, String description, String script) {
+            this.version = version;
+            this.name = name;
+            this.description = description;
+            this.script = script;
+            CRC32 crc = new CRC32();
+            crc.update(script.getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc.getValue();
+        }
+
+        static Migration of(String name, String script) {
+            Matcher matcher = SCRIPT_NAME.matcher(name);
+            if (!matcher.matches()) {
+                throw new SessionManagerException("Migration name " + name + " does not match V<version>__<description>.sql");
+            }
+            //переводы строк не влияют на контрольную сумму, иначе она зависела бы от настроек git
+            return new Migration(Integer.parseInt(matcher.group(1)), name, matcher.group(2).replace('_', ' '),
+                    script.replace("\r\n", "\n"));
+        }
+
+        //запросы скрипта без проверок
+        List<String> statements() {
+            List<String> statements = new ArrayList<>();
+            for (Step step : steps()) {
+                if (step.check == null) {
+                    statements.add(step.sql);
+                }
+            }
+            return statements;
+        }
+
+        //проверки скрипта, ключ - описание, значение - запрос
+        Map<String, String> checks() {
+            Map<String, String> checks = new LinkedHashMap<>();
+            for (Step step : steps()) {
+                if (step.check != null) {
+                    checks.put(step.check, step.sql);
+                }
+            }
+            return checks;
+        }
+
+        //запросы скрипта разделены ";" в конце строки, строки-комментарии "--" пропускаются,
+        //кроме "-- check:", описание проверки относится к следующему запросу
+        private List<Step> steps() {
+            List<Step> steps = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            String check = null;
+            for (String line : script.split("\n")) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith(CHECK_PREFIX)) {
+                    check = trimmed.substring(CHECK_PREFIX.length()).trim();
+                    continue;
+                }
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                    continue;
+                }
+                if (trimmed.endsWith(";")) {
+                    current.append(line, 0, line.lastIndexOf(';'));
+                    steps.add(new Step(check, current.toString()));
+                    current.setLength(0);
+                    check = null;
+                } else {
+                    current.append(line).append('\n');
+                }
+            }
+            if (current.toString().trim().length() > 0) {
+                steps.add(new Step(check, current.toString()));
+            }
+            return steps;
+        }
+    }
+
+    private static final class Step {
+        //описание проверки или null для обычного запроса
+        final String check;
+        final String sql;
+
+        private Step(String check, String sql) {
+            this.check = check;
+            this.sql = sql;
+        }
+    }
+}
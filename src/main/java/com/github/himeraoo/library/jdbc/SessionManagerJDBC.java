@@ -3,22 +3,20 @@ package com.github.himeraoo.library.jdbc;
 import com.github.himeraoo.library.exception.SessionManagerException;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
 
 public class SessionManagerJDBC implements SessionManager {
-    private static final int TIMEOUT_IN_SECONDS = 10;
-    private final String url;
-    private final String username;
-    private final String password;
-    private Connection connection;
+    private final ConnectionPool connectionPool;
+    private final ThreadLocal<Connection> currentSession = new ThreadLocal<>();
+    private volatile QueryListener queryListener;
+    private volatile long slowQueryThresholdNanos;
 
     public SessionManagerJDBC(String urlProp, String usernameProp, String passwordProp, String driver) {
+        this(urlProp, usernameProp, passwordProp, driver, new PoolConfig());
+    }
 
-        this.url = urlProp;
-        this.username = usernameProp;
-        this.password = passwordProp;
+    public SessionManagerJDBC(String urlProp, String usernameProp, String passwordProp, String driver, PoolConfig poolConfig) {
 
         try {
             Class.forName(driver);
@@ -26,13 +24,24 @@ public class SessionManagerJDBC implements SessionManager {
             e.printStackTrace();
         }
 
-        initBD();
+        this.connectionPool = new ConnectionPool(urlProp, usernameProp, passwordProp, poolConfig);
+
+        migrateSchema();
     }
 
     @Override
     public void beginSession() {
         try {
-            connection = DriverManager.getConnection(url, username, password);
+            Connection connection = currentSession.get();
+            //сессия привязана к потоку, повторный вызов в том же потоке использует уже выданное соединение
+            if (connection == null || connection.isClosed()) {
+                connection = connectionPool.getConnection();
+                QueryListener listener = queryListener;
+                long slowQueryNanos = slowQueryThresholdNanos;
+                currentSession.set(listener != null || slowQueryNanos > 0
+                        ? InstrumentedConnection.wrap(connection, listener, slowQueryNanos)
+                        : connection);
+            }
         } catch (SQLException e) {
             throw new SessionManagerException(e);
         }
@@ -40,7 +49,7 @@ public class SessionManagerJDBC implements SessionManager {
 
     @Override
     public void startTransaction() {
-        checkConnection();
+        Connection connection = checkConnection();
         try {
             connection.setAutoCommit(false);
         } catch (SQLException e) {
@@ -50,7 +59,7 @@ public class SessionManagerJDBC implements SessionManager {
 
     @Override
     public void finishTransaction() {
-        checkConnection();
+        Connection connection = checkConnection();
         try {
             connection.setAutoCommit(true);
         } catch (SQLException e) {
@@ -60,7 +69,7 @@ public class SessionManagerJDBC implements SessionManager {
 
     @Override
     public void commitSession() {
-        checkConnection();
+        Connection connection = checkConnection();
         try {
             connection.commit();
         } catch (SQLException e) {
@@ -70,8 +79,13 @@ public class SessionManagerJDBC implements SessionManager {
 
     @Override
     public void rollbackSession() {
-        checkConnection();
+        Connection connection = currentSession.get();
         try {
+            //если соединение уже вернулось в пул, незавершённая транзакция откачена при возврате
+            if (connection == null || connection.isClosed()) {
+                currentSession.remove();
+                return;
+            }
             connection.rollback();
         } catch (SQLException e) {
             throw new SessionManagerException(e);
@@ -80,7 +94,11 @@ public class SessionManagerJDBC implements SessionManager {
 
     @Override
     public void close() {
-        checkConnection();
+        Connection connection = currentSession.get();
+        currentSession.remove();
+        if (connection == null) {
+            return;
+        }
         try {
             connection.close();
         } catch (SQLException e) {
@@ -90,43 +108,57 @@ public class SessionManagerJDBC implements SessionManager {
 
     @Override
     public Connection getCurrentSession() {
-        checkConnection();
-        return connection;
+        return checkConnection();
+    }
+
+    /**
+     * Слушатель, которому соединения новых сессий сообщают о каждом выполненном запросе, или null.
+     */
+    public void setQueryListener(QueryListener queryListener) {
+        this.queryListener = queryListener;
+    }
+
+    /**
+     * Запросы и операции новых сессий дольше порога пишутся в журнал медленных запросов, 0 - журнал выключен.
+     */
+    public void setSlowQueryThresholdMs(long slowQueryThresholdMs) {
+        if (slowQueryThresholdMs < 0) {
+            throw new IllegalArgumentException("slowQueryThresholdMs must not be negative");
+        }
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMs);
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public void shutdown() {
+        close();
+        connectionPool.close();
     }
 
-    private void checkConnection() {
+    //соединение проверяется пулом при выдаче, здесь достаточно локальной проверки без обращения к БД
+    private Connection checkConnection() {
+        Connection connection = currentSession.get();
         try {
-            if (connection == null || !connection.isValid(TIMEOUT_IN_SECONDS)) {
+            if (connection == null || connection.isClosed()) {
                 throw new SessionManagerException("Connection is invalid");
             }
         } catch (SQLException ex) {
             throw new SessionManagerException(ex);
         }
+        return connection;
     }
 
-    private void initBD() {
+    //схема приводится к последней версии один раз при создании, см. SchemaMigrator
+    private void migrateSchema() {
         beginSession();
-
         try {
-            try (PreparedStatement statement = getCurrentSession().prepareStatement("CREATE TABLE IF NOT EXISTS author (\n" + "        id INT NOT NULL AUTO_INCREMENT,\n" + "        name VARCHAR(255) NOT NULL,\n" + "        surname VARCHAR(255) NOT NULL,\n" + "        PRIMARY KEY (id))\n" + "    ENGINE = InnoDB")) {
-                statement.execute();
-            }
-
-            try (PreparedStatement statement = getCurrentSession().prepareStatement("CREATE TABLE IF NOT EXISTS genre (\n" + "        id INT NOT NULL AUTO_INCREMENT,\n" + "        name VARCHAR(255) NOT NULL,\n" + "        PRIMARY KEY (id))\n" + "    ENGINE = InnoDB")) {
-                statement.execute();
-            }
-
-            try (PreparedStatement statement = getCurrentSession().prepareStatement("CREATE TABLE IF NOT EXISTS book (\n" + "        id INT NOT NULL AUTO_INCREMENT,\n" + "        title VARCHAR(255) NOT NULL,\n" + "        genre_id INT NOT NULL,\n" + "        PRIMARY KEY (id),\n" + "        FOREIGN KEY (genre_id)\n" + "            REFERENCES genre (id)\n" + "            ON DELETE NO ACTION\n" + "            ON UPDATE NO ACTION)\n" + "    ENGINE = InnoDB")) {
-                statement.execute();
-            }
-
-            try (PreparedStatement statement = getCurrentSession().prepareStatement("CREATE TABLE IF NOT EXISTS authors_books (\n" + "        author_id INT NOT NULL,\n" + "        book_id INT NOT NULL,\n" + "        PRIMARY KEY (author_id, book_id),\n" + "        FOREIGN KEY (author_id)\n" + "         REFERENCES author (id)\n" + "         ON DELETE NO ACTION\n" + "         ON UPDATE NO ACTION,\n" + "        FOREIGN KEY (book_id)\n" + "         REFERENCES book (id)\n" + "         ON DELETE NO ACTION\n" + "         ON UPDATE NO ACTION)\n" + "    ENGINE = InnoDB")) {
-                statement.execute();
-            }
-
-            close();
+            SchemaMigrator.fromClasspath().migrate(getCurrentSession());
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new SessionManagerException(e);
+        } finally {
+            close();
         }
     }
 }
@@ -0,0 +1,207 @@
+package com.github.himeraoo.library.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU кэш подготовленных запросов одного физического соединения.
+ * Запрос выдаётся одному пользователю за раз: повторная выдача того же ключа, пока запрос не закрыт,
+ * готовит обычный некэшируемый запрос. Запросы закрываются вместе с физическим соединением.
+ */
+final class StatementCache {
+
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final Map<Object, CachedStatement> statements;
+
+    StatementCache(int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<Object, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                StatementCache.this.evictions.increment();
+                eldest.getValue().discard();
+                return true;
+            }
+        };
+    }
+
+    synchronized PreparedStatement prepare(Connection connection, Connection owner, Object key, String sql, int autoGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            return connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse && cached.matches(sql, autoGeneratedKeys)) {
+            hits.increment();
+            return cached.checkout(owner);
+        }
+
+        misses.increment();
+        PreparedStatement statement = connection.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null && cached.inUse) {
+            //тот же запрос уже выполняется на этом соединении, второй экземпляр живёт до close()
+            return statement;
+        }
+        if (cached != null) {
+            cached.discard();
+        }
+        cached = new CachedStatement(key, statement, sql, autoGeneratedKeys);
+        statements.put(key, cached);
+        return cached.checkout(owner);
+    }
+
+    //запросы, не закрытые до возврата соединения в пул, больше не выдаются и закроются при своём close()
+    synchronized void releaseAll() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            CachedStatement cached = iterator.next();
+            if (cached.inUse) {
+                cached.discarded = true;
+                iterator.remove();
+            }
+        }
+    }
+
+    //физическое соединение закрывается, вместе с ним закрываются и его запросы
+    synchronized void clear() {
+        for (CachedStatement cached : statements.values()) {
+            cached.discarded = true;
+        }
+        statements.clear();
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    private synchronized void checkin(CachedStatement cached) {
+        cached.inUse = false;
+        if (cached.discarded) {
+            closeQuietly(cached.statement);
+            return;
+        }
+        try {
+            cached.statement.clearParameters();
+            cached.statement.clearBatch();
+            cached.statement.clearWarnings();
+            //следующий пользователь без стратегии чтения получает поведение драйвера по умолчанию
+            cached.statement.setFetchSize(0);
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+            statements.remove(cached.key, cached);
+            closeQuietly(cached.statement);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private final class CachedStatement {
+
+        private final Object key;
+        private final PreparedStatement statement;
+        private final String sql;
+        private final int autoGeneratedKeys;
+        private boolean inUse;
+        private boolean discarded;
+
+        private CachedStatement(Object key, PreparedStatement statement, String sql, int autoGeneratedKeys) {
+            this.key = key;
+            this.statement = statement;
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        private boolean matches(String sql, int autoGeneratedKeys) {
+            return this.autoGeneratedKeys == autoGeneratedKeys && this.sql.equals(sql);
+        }
+
+        private PreparedStatement checkout(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new StatementHandle(this, owner));
+        }
+
+        //вытесненный запрос закрывается сразу или, если он сейчас выдан, при возврате
+        private void discard() {
+            discarded = true;
+            if (!inUse) {
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    /**
+     * Обёртка над выданным запросом: close() возвращает запрос в кэш, getConnection() отдаёт соединение пула.
+     */
+    private final class StatementHandle implements InvocationHandler {
+
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean closed;
+
+        private StatementHandle(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkin(cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.sql + (closed ? ", closed]" : "]");
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.himeraoo.library.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Соединение из пула, которое умеет переиспользовать подготовленные запросы между запросами приложения.
+ * Ключ - константа запроса (например SQLQuery), close() у полученного запроса возвращает его в кэш.
+ */
+public interface StatementCachingConnection {
+
+    PreparedStatement prepareCached(Object key, String sql, int autoGeneratedKeys) throws SQLException;
+
+    /**
+     * Запрос под тем же ключом, но вне кэша: для запросов, SQL которых меняется от вызова к вызову (IN со списком).
+     */
+    PreparedStatement prepareUncached(Object key, String sql) throws SQLException;
+}
@@ -0,0 +1,55 @@
+package com.github.himeraoo.library.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительности с фиксированными корзинами, границы которых растут вдвое: от 50 мкс до ~26 с и +Inf.
+ * Корзина вычисляется по старшему биту, без поиска по границам, а запись - это приращение LongAdder без блокировок,
+ * поэтому её можно вызывать на каждый запрос из любого числа потоков. Точность - до корзины, как у histogram в Prometheus.
+ */
+final class LatencyHistogram {
+
+    static final long BASE_NANOS = 50_000;
+    //число конечных границ, последняя корзина - +Inf
+    static final int BUCKETS = 20;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        counts[bucket(nanos)].increment();
+        sumNanos.add(Math.max(0, nanos));
+    }
+
+    //корзина i считает длительности в (BASE_NANOS * 2^(i-1), BASE_NANOS * 2^i]
+    static int bucket(long nanos) {
+        if (nanos <= BASE_NANOS) {
+            return 0;
+        }
+        long units = (nanos - 1) / BASE_NANOS;
+        return Math.min(BUCKETS, 64 - Long.numberOfLeadingZeros(units));
+    }
+
+    static long upperBoundNanos(int bucket) {
+        return BASE_NANOS << bucket;
+    }
+
+    //число записей по корзинам, не накопленное
+    long[] counts() {
+        long[] snapshot = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return snapshot;
+    }
+
+    long sumNanos() {
+        return sumNanos.sum();
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.himeraoo.library.metrics;
+
+import com.github.himeraoo.library.jdbc.QueryListener;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики и гистограммы приложения: запросы к REST по методу, маршруту и статусу (MetricsFilter)
+ * и выполнение запросов к БД по имени константы SQLQuery, а также обращения к БД на операцию DAO (как QueryListener
+ * сессий). Запись не блокирует, {@link #writeTo(Writer)} отдаёт всё в текстовом формате Prometheus для /metrics.
+ */
+public class Metrics implements QueryListener {
+
+    public static final String ATTRIBUTE = "metrics";
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    //маршруты берутся из пути запроса, поэтому их число ограничено, остальные попадают в OTHER_ROUTE
+    static final int MAX_ROUTES = 200;
+    static final String OTHER_ROUTE = "other";
+
+    //границы корзин в секундах для le
+    private static final String[] BOUNDS = new String[LatencyHistogram.BUCKETS + 1];
+
+    static {
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            BOUNDS[i] = BigDecimal.valueOf(LatencyHistogram.upperBoundNanos(i), 9).stripTrailingZeros().toPlainString();
+        }
+        BOUNDS[LatencyHistogram.BUCKETS] = "+Inf";
+    }
+
+    private final ConcurrentMap<String, RequestStats> requests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, QueryStats> queries = new ConcurrentHashMap<>();
+    private final LatencyHistogram operations = new LatencyHistogram();
+    private final LongAdder operationRoundTrips = new LongAdder();
+
+    public void recordRequest(String method, String route, int status, long elapsedNanos) {
+        String key = method + " " + route;
+        RequestStats stats = requests.get(key);
+        if (stats == null) {
+            if (requests.size() >= MAX_ROUTES) {
+                route = OTHER_ROUTE;
+                key = method + " " + route;
+            }
+            String statsRoute = route;
+            stats = requests.computeIfAbsent(key, k -> new RequestStats(method, statsRoute));
+        }
+        stats.latency.record(elapsedNanos);
+        LongAdder statusCount = stats.statuses.get(status);
+        if (statusCount == null) {
+            statusCount = stats.statuses.computeIfAbsent(status, s -> new LongAdder());
+        }
+        statusCount.increment();
+    }
+
+    @Override
+    public void onQuery(String query, long elapsedNanos, long rows, boolean failed) {
+        QueryStats stats = queries.get(query);
+        if (stats == null) {
+            stats = queries.computeIfAbsent(query, QueryStats::new);
+        }
+        stats.latency.record(elapsedNanos);
+        stats.rows.add(rows);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    @Override
+    public void onOperation(int roundTrips, long elapsedNanos) {
+        operations.record(elapsedNanos);
+        operationRoundTrips.add(roundTrips);
+    }
+
+    public void writeTo(Writer out) throws IOException {
+        Map<String, RequestStats> requests = new TreeMap<>(this.requests);
+        Map<String, QueryStats> queries = new TreeMap<>(this.queries);
+        StringBuilder sb = new StringBuilder(4096);
+
+        header(sb, "library_http_requests_total", "counter", "REST requests by method, route and status");
+        for (RequestStats stats : requests.values()) {
+            for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(stats.statuses).entrySet()) {
+                sb.append("library_http_requests_total{");
+                requestLabels(sb, stats).append(",status=\"").append(status.getKey()).append("\"} ")
+                        .append(status.getValue().sum()).append('\n');
+            }
+        }
+        header(sb, "library_http_request_duration_seconds", "histogram", "REST request latency by method and route");
+        for (RequestStats stats : requests.values()) {
+            histogram(sb, "library_http_request_duration_seconds", requestLabels(new StringBuilder(), stats), stats.latency);
+        }
+
+        header(sb, "library_db_query_duration_seconds", "histogram", "SQL statement execution time by SQLQuery name");
+        for (QueryStats stats : queries.values()) {
+            histogram(sb, "library_db_query_duration_seconds", queryLabels(new StringBuilder(), stats), stats.latency);
+        }
+        header(sb, "library_db_query_rows_total", "counter", "Rows read or changed by SQLQuery name");
+        for (QueryStats stats : queries.values()) {
+            sb.append("library_db_query_rows_total{");
+            queryLabels(sb, stats).append("} ").append(stats.rows.sum()).append('\n');
+        }
+        header(sb, "library_db_query_errors_total", "counter", "Failed SQL statement executions by SQLQuery name");
+        for (QueryStats stats : queries.values()) {
+            sb.append("library_db_query_errors_total{");
+            queryLabels(sb, stats).append("} ").append(stats.errors.sum()).append('\n');
+        }
+
+        header(sb, "library_db_operation_duration_seconds", "histogram", "DAO operation time from session start to connection close");
+        histogram(sb, "library_db_operation_duration_seconds", "", operations);
+        header(sb, "library_db_operation_round_trips_total", "counter", "Database round trips of all DAO operations");
+        sb.append("library_db_operation_round_trips_total ").append(operationRoundTrips.sum()).append('\n');
+
+        out.write(sb.toString());
+        out.flush();
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    //корзины в Prometheus накопленные: каждая включает все меньшие
+    private static void histogram(StringBuilder sb, String name, CharSequence labels, LatencyHistogram histogram) {
+        String separator = labels.length() == 0 ? "" : ",";
+        long[] counts = histogram.counts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            sb.append(name).append("_bucket{").append(labels).append(separator).append("le=\"").append(BOUNDS[i]).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        String series = labels.length() == 0 ? " " : "{" + labels + "} ";
+        sb.append(name).append("_sum").append(series).append(histogram.sumNanos() / 1e9).append('\n');
+        sb.append(name).append("_count").append(series).append(cumulative).append('\n');
+    }
+
+    private static StringBuilder requestLabels(StringBuilder sb, RequestStats stats) {
+        sb.append("method=\"");
+        escape(sb, stats.method).append("\",route=\"");
+        return escape(sb, stats.route).append('"');
+    }
+
+    private static StringBuilder queryLabels(StringBuilder sb, QueryStats stats) {
+        sb.append("query=\"");
+        return escape(sb, stats.query).append('"');
+    }
+
+    private static StringBuilder escape(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb;
+    }
+
+    private static final class RequestStats {
+        private final String method;
+        private final String route;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private RequestStats(String method, String route) {
+            this.method = method;
+            this.route = route;
+        }
+    }
+
+    private static final class QueryStats {
+        private final String query;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private QueryStats(String query) {
+            this.query = query;
+        }
+    }
+}
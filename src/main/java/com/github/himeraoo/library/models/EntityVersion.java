@@ -0,0 +1,49 @@
+package com.github.himeraoo.library.models;
+
+import java.util.Objects;
+
+public class EntityVersion {
+    //меняется при любом изменении данных, которые входят в ответ
+    private final String tag;
+    //время последнего изменения в мс, 0 - если неизвестно
+    private final long lastModified;
+
+    public EntityVersion(String tag, long lastModified) {
+        this.tag = tag;
+        this.lastModified = lastModified;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EntityVersion that = (EntityVersion) o;
+        return lastModified == that.lastModified && Objects.equals(tag, that.tag);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tag, lastModified);
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("EntityVersion{");
+        sb.append("tag='").append(tag).append('\'');
+        sb.append(", lastModified=").append(lastModified);
+        sb.append('}');
+
+        return sb.toString();
+    }
+}
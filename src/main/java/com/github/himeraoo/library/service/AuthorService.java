@@ -1,19 +1,35 @@
 package com.github.himeraoo.library.service;
 
+import com.github.himeraoo.library.dao.EntityConsumer;
 import com.github.himeraoo.library.dto.AuthorDTO;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Optional;
 
 public interface AuthorService {
 
     AuthorDTO findById(int authorId) throws SQLException, ElementHasNotFoundException;
 
+    /**
+     * То же, что {@link #findById(int)}, но данные не старше версии version, с которой будет отправлен ответ.
+     */
+    AuthorDTO findById(int authorId, EntityVersion version) throws SQLException, ElementHasNotFoundException;
+
+    Optional<EntityVersion> findVersionById(int authorId) throws SQLException;
+
     List<AuthorDTO> findAll() throws SQLException, ElementHasNotFoundException;
 
+    EntityVersion findAllVersion() throws SQLException;
+
+    List<AuthorDTO> findAll(int afterAuthorId, int limit) throws SQLException;
+
+    <E extends Exception> void streamAll(EntityConsumer<AuthorDTO, E> consumer) throws SQLException, E;
+
     int save(AuthorDTO authorDTO) throws SQLException, ElementHasNotAddedException;
 
     int update(AuthorDTO authorDTO) throws SQLException, ElementHasNotFoundException, ElementHasNotUpdatedException;
@@ -4,8 +4,10 @@ import com.github.himeraoo.library.dto.AuthorDTO;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.models.Author;
 import com.github.himeraoo.library.dao.AuthorDAO;
+import com.github.himeraoo.library.dao.EntityConsumer;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -22,13 +24,17 @@ public class AuthorServiceImpl implements AuthorService {
 
     @Override
     public AuthorDTO findById(int authorId) throws SQLException, ElementHasNotFoundException {
-        Optional<Author> optionalAuthor = authorDAO.findById(authorId);
-        if (optionalAuthor.isPresent()) {
-            Author dbAuthor = optionalAuthor.get();
-            return new AuthorDTO(dbAuthor.getId(), dbAuthor.getName(), dbAuthor.getSurname(), dbAuthor.getBookList());
-        } else {
-            throw new ElementHasNotFoundException("Элемент с id  = " + authorId + " не найден.");
-        }
+        return toAuthorDTO(authorId, authorDAO.findById(authorId));
+    }
+
+    @Override
+    public AuthorDTO findById(int authorId, EntityVersion version) throws SQLException, ElementHasNotFoundException {
+        return toAuthorDTO(authorId, authorDAO.findById(authorId, version));
+    }
+
+    @Override
+    public Optional<EntityVersion> findVersionById(int authorId) throws SQLException {
+        return authorDAO.findVersionById(authorId);
     }
 
     @Override
@@ -46,6 +52,27 @@ public class AuthorServiceImpl implements AuthorService {
         }
     }
 
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        return authorDAO.findAllVersion();
+    }
+
+    @Override
+    public List<AuthorDTO> findAll(int afterAuthorId, int limit) throws SQLException {
+        List<Author> authorList = authorDAO.findAll(afterAuthorId, limit);
+        List<AuthorDTO> authorDTOList = new ArrayList<>();
+        for (Author a : authorList) {
+            AuthorDTO authorDTO = new AuthorDTO(a.getId(), a.getName(), a.getSurname(), a.getBookList());
+            authorDTOList.add(authorDTO);
+        }
+        return authorDTOList;
+    }
+
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<AuthorDTO, E> consumer) throws SQLException, E {
+        authorDAO.streamAll(a -> consumer.accept(new AuthorDTO(a.getId(), a.getName(), a.getSurname(), a.getBookList())));
+    }
+
     @Override
     public int save(AuthorDTO authorDTO) throws SQLException, ElementHasNotAddedException {
         Author author = new Author();
@@ -92,4 +119,13 @@ public class AuthorServiceImpl implements AuthorService {
         }
         return del;
     }
+
+    private AuthorDTO toAuthorDTO(int authorId, Optional<Author> optionalAuthor) throws ElementHasNotFoundException {
+        if (optionalAuthor.isPresent()) {
+            Author dbAuthor = optionalAuthor.get();
+            return new AuthorDTO(dbAuthor.getId(), dbAuthor.getName(), dbAuthor.getSurname(), dbAuthor.getBookList());
+        } else {
+            throw new ElementHasNotFoundException("Элемент с id  = " + authorId + " не найден.");
+        }
+    }
 }
@@ -0,0 +1,111 @@
+package com.github.himeraoo.library.service;
+
+import com.github.himeraoo.library.dao.BookDAO;
+import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.ImportReport;
+import com.github.himeraoo.library.dto.ImportResult;
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетный импорт книг. Записи проверяются по мере чтения и сохраняются пакетами по chunkSize,
+ * каждый пакет - отдельная транзакция, поэтому при ошибке уже сохранённые пакеты остаются в БД.
+ * Объект не потокобезопасен и создаётся на один запрос.
+ */
+public class BookImport {
+
+    private final BookDAO bookDAO;
+    private final int chunkSize;
+    private final long startNanos = System.nanoTime();
+    private final ImportReport report = new ImportReport();
+    private final List<Book> chunk = new ArrayList<>();
+    private final List<Integer> chunkIndexes = new ArrayList<>();
+    private int recordCount;
+
+    BookImport(BookDAO bookDAO, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Размер пакета импорта должен быть больше 0");
+        }
+        this.bookDAO = bookDAO;
+        this.chunkSize = chunkSize;
+    }
+
+    public void add(BookDTO bookDTO) throws SQLException {
+        int index = recordCount++;
+        String error = validate(bookDTO);
+        if (error != null) {
+            report.setInvalid(report.getInvalid() + 1);
+            report.getResults().add(new ImportResult(index, ImportResult.Status.INVALID, 0, error));
+            return;
+        }
+
+        Book book = new Book();
+        book.setTitle(bookDTO.getTitle());
+        book.setGenre(bookDTO.getGenre());
+        book.setAuthorList(bookDTO.getAuthorList());
+        chunk.add(book);
+        chunkIndexes.add(index);
+        if (chunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    public ImportReport finish() throws SQLException {
+        flush();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        report.setTotal(recordCount);
+        report.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.setRowsPerSecond(elapsedNanos == 0 ? 0 : report.getCreated() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        //невалидные записи попадают в отчёт сразу, сохранённые - после записи пакета
+        report.getResults().sort(Comparator.comparingInt(ImportResult::getIndex));
+        return report;
+    }
+
+    private void flush() throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Integer> bookIds = bookDAO.saveAll(chunk);
+        for (int i = 0; i < bookIds.size(); i++) {
+            int bookId = bookIds.get(i);
+            if (bookId > 0) {
+                report.setCreated(report.getCreated() + 1);
+                report.getResults().add(new ImportResult(chunkIndexes.get(i), ImportResult.Status.CREATED, bookId, null));
+            } else {
+                report.setDuplicates(report.getDuplicates() + 1);
+                report.getResults().add(new ImportResult(chunkIndexes.get(i), ImportResult.Status.DUPLICATE, 0,
+                        "Книга с названием " + chunk.get(i).getTitle() + " уже существует."));
+            }
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private static String validate(BookDTO bookDTO) {
+        if (isBlank(bookDTO.getTitle())) {
+            return "Не указано название книги.";
+        }
+        if (bookDTO.getGenre() == null || isBlank(bookDTO.getGenre().getName())) {
+            return "Не указан жанр книги.";
+        }
+        if (bookDTO.getAuthorList() == null) {
+            return "Не указан список авторов книги.";
+        }
+        for (Author author : bookDTO.getAuthorList()) {
+            if (author == null || isBlank(author.getName()) || isBlank(author.getSurname())) {
+                return "Не указаны имя или фамилия автора книги.";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
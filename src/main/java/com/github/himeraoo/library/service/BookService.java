@@ -1,21 +1,39 @@
 package com.github.himeraoo.library.service;
 
+import com.github.himeraoo.library.dao.EntityConsumer;
 import com.github.himeraoo.library.dto.BookDTO;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookService {
 
     BookDTO findById(int bookId) throws SQLException, ElementHasNotFoundException;
 
+    /**
+     * То же, что {@link #findById(int)}, но данные не старше версии version, с которой будет отправлен ответ.
+     */
+    BookDTO findById(int bookId, EntityVersion version) throws SQLException, ElementHasNotFoundException;
+
+    Optional<EntityVersion> findVersionById(int bookId) throws SQLException;
+
     List<BookDTO> findAll() throws SQLException, ElementHasNotFoundException;
 
+    EntityVersion findAllVersion() throws SQLException;
+
+    List<BookDTO> findAll(int afterBookId, int limit) throws SQLException;
+
+    <E extends Exception> void streamAll(EntityConsumer<BookDTO, E> consumer) throws SQLException, E;
+
     int save(BookDTO bookDTO) throws SQLException, ElementHasNotAddedException;
 
+    BookImport startImport();
+
     int update(BookDTO bookDTO) throws SQLException, ElementHasNotFoundException, ElementHasNotUpdatedException;
 
     int deleteById(int bookId) throws SQLException, ElementHasNotFoundException;
@@ -4,8 +4,10 @@ import com.github.himeraoo.library.dto.BookDTO;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.models.Book;
 import com.github.himeraoo.library.dao.BookDAO;
+import com.github.himeraoo.library.dao.EntityConsumer;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -14,21 +16,33 @@ import java.util.Optional;
 
 public class BookServiceImpl implements BookService {
 
+    public static final int DEFAULT_IMPORT_CHUNK_SIZE = 500;
+
     private final BookDAO bookDAO;
+    private final int importChunkSize;
 
     public BookServiceImpl(BookDAO bookDAO) {
+        this(bookDAO, DEFAULT_IMPORT_CHUNK_SIZE);
+    }
+
+    public BookServiceImpl(BookDAO bookDAO, int importChunkSize) {
         this.bookDAO = bookDAO;
+        this.importChunkSize = importChunkSize;
     }
 
     @Override
     public BookDTO findById(int bookId) throws SQLException, ElementHasNotFoundException {
-        Optional<Book> optionalBook = bookDAO.findById(bookId);
-        if (optionalBook.isPresent()) {
-            Book dbBook = optionalBook.get();
-            return new BookDTO(dbBook.getId(), dbBook.getTitle(), dbBook.getGenre(), dbBook.getAuthorList());
-        } else {
-            throw new ElementHasNotFoundException("Элемент с id  = " + bookId + " не найден.");
-        }
+        return toBookDTO(bookId, bookDAO.findById(bookId));
+    }
+
+    @Override
+    public BookDTO findById(int bookId, EntityVersion version) throws SQLException, ElementHasNotFoundException {
+        return toBookDTO(bookId, bookDAO.findById(bookId, version));
+    }
+
+    @Override
+    public Optional<EntityVersion> findVersionById(int bookId) throws SQLException {
+        return bookDAO.findVersionById(bookId);
     }
 
     @Override
@@ -46,6 +60,27 @@ public class BookServiceImpl implements BookService {
         }
     }
 
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        return bookDAO.findAllVersion();
+    }
+
+    @Override
+    public List<BookDTO> findAll(int afterBookId, int limit) throws SQLException {
+        List<Book> bookList = bookDAO.findAll(afterBookId, limit);
+        List<BookDTO> bookDTOList = new ArrayList<>();
+        for (Book b : bookList) {
+            BookDTO bookDTO = new BookDTO(b.getId(), b.getTitle(), b.getGenre(), b.getAuthorList());
+            bookDTOList.add(bookDTO);
+        }
+        return bookDTOList;
+    }
+
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<BookDTO, E> consumer) throws SQLException, E {
+        bookDAO.streamAll(b -> consumer.accept(new BookDTO(b.getId(), b.getTitle(), b.getGenre(), b.getAuthorList())));
+    }
+
     @Override
     public int save(BookDTO bookDTO) throws SQLException, ElementHasNotAddedException {
         Book book = new Book();
@@ -65,6 +100,11 @@ public class BookServiceImpl implements BookService {
         return add;
     }
 
+    @Override
+    public BookImport startImport() {
+        return new BookImport(bookDAO, importChunkSize);
+    }
+
     @Override
     public int update(BookDTO bookDTO) throws SQLException, ElementHasNotFoundException, ElementHasNotUpdatedException {
         Book book = new Book();
@@ -92,4 +132,13 @@ public class BookServiceImpl implements BookService {
         }
         return del;
     }
+
+    private BookDTO toBookDTO(int bookId, Optional<Book> optionalBook) throws ElementHasNotFoundException {
+        if (optionalBook.isPresent()) {
+            Book dbBook = optionalBook.get();
+            return new BookDTO(dbBook.getId(), dbBook.getTitle(), dbBook.getGenre(), dbBook.getAuthorList());
+        } else {
+            throw new ElementHasNotFoundException("Элемент с id  = " + bookId + " не найден.");
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package com.github.himeraoo.library.service;
+
+import com.github.himeraoo.library.dao.EntityConsumer;
+import com.github.himeraoo.library.dto.AuthorDTO;
+import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.GenreDTO;
+
+import java.sql.SQLException;
+
+public interface ExportService {
+
+    <E extends Exception> void exportSnapshot(EntityConsumer<GenreDTO, E> genreConsumer,
+                                              EntityConsumer<AuthorDTO, E> authorConsumer,
+                                              EntityConsumer<BookDTO, E> bookConsumer) throws SQLException, E;
+}
@@ -0,0 +1,28 @@
+package com.github.himeraoo.library.service;
+
+import com.github.himeraoo.library.dao.EntityConsumer;
+import com.github.himeraoo.library.dao.ExportDAO;
+import com.github.himeraoo.library.dto.AuthorDTO;
+import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.GenreDTO;
+
+import java.sql.SQLException;
+
+public class ExportServiceImpl implements ExportService {
+
+    private final ExportDAO exportDAO;
+
+    public ExportServiceImpl(ExportDAO exportDAO) {
+        this.exportDAO = exportDAO;
+    }
+
+    @Override
+    public <E extends Exception> void exportSnapshot(EntityConsumer<GenreDTO, E> genreConsumer,
+                                                     EntityConsumer<AuthorDTO, E> authorConsumer,
+                                                     EntityConsumer<BookDTO, E> bookConsumer) throws SQLException, E {
+        exportDAO.exportSnapshot(
+                g -> genreConsumer.accept(new GenreDTO(g.getId(), g.getName())),
+                a -> authorConsumer.accept(new AuthorDTO(a.getId(), a.getName(), a.getSurname(), a.getBookList())),
+                b -> bookConsumer.accept(new BookDTO(b.getId(), b.getTitle(), b.getGenre(), b.getAuthorList())));
+    }
+}
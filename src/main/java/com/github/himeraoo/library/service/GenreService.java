@@ -1,20 +1,36 @@
 package com.github.himeraoo.library.service;
 
+import com.github.himeraoo.library.dao.EntityConsumer;
 import com.github.himeraoo.library.dto.GenreDTO;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotDeletedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Optional;
 
 public interface GenreService {
 
     GenreDTO findById(int genreId) throws SQLException, ElementHasNotFoundException;
 
+    /**
+     * То же, что {@link #findById(int)}, но данные не старше версии version, с которой будет отправлен ответ.
+     */
+    GenreDTO findById(int genreId, EntityVersion version) throws SQLException, ElementHasNotFoundException;
+
+    Optional<EntityVersion> findVersionById(int genreId) throws SQLException;
+
     List<GenreDTO> findAll() throws SQLException, ElementHasNotFoundException;
 
+    EntityVersion findAllVersion() throws SQLException;
+
+    List<GenreDTO> findAll(int afterGenreId, int limit) throws SQLException;
+
+    <E extends Exception> void streamAll(EntityConsumer<GenreDTO, E> consumer) throws SQLException, E;
+
     int save(GenreDTO genreDTO) throws SQLException, ElementHasNotAddedException;
 
     int update(GenreDTO genreDTO) throws SQLException, ElementHasNotFoundException, ElementHasNotUpdatedException;
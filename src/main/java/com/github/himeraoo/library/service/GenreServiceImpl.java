@@ -5,8 +5,10 @@ import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotDeletedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.models.Genre;
 import com.github.himeraoo.library.dao.GenreDAO;
+import com.github.himeraoo.library.dao.EntityConsumer;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -23,13 +25,17 @@ public class GenreServiceImpl implements GenreService {
 
     @Override
     public GenreDTO findById(int genreId) throws SQLException, ElementHasNotFoundException {
-        Optional<Genre> optionalGenre = genreDAO.findById(genreId);
-        if (optionalGenre.isPresent()) {
-            Genre dbGenre = optionalGenre.get();
-            return new GenreDTO(dbGenre.getId(), dbGenre.getName());
-        } else {
-            throw new ElementHasNotFoundException("Элемент с id  = " + genreId + " не найден.");
-        }
+        return toGenreDTO(genreId, genreDAO.findById(genreId));
+    }
+
+    @Override
+    public GenreDTO findById(int genreId, EntityVersion version) throws SQLException, ElementHasNotFoundException {
+        return toGenreDTO(genreId, genreDAO.findById(genreId, version));
+    }
+
+    @Override
+    public Optional<EntityVersion> findVersionById(int genreId) throws SQLException {
+        return genreDAO.findVersionById(genreId);
     }
 
     @Override
@@ -47,6 +53,27 @@ public class GenreServiceImpl implements GenreService {
         }
     }
 
+    @Override
+    public EntityVersion findAllVersion() throws SQLException {
+        return genreDAO.findAllVersion();
+    }
+
+    @Override
+    public List<GenreDTO> findAll(int afterGenreId, int limit) throws SQLException {
+        List<Genre> genreList = genreDAO.findAll(afterGenreId, limit);
+        List<GenreDTO> genreDTOList = new ArrayList<>();
+        for (Genre g : genreList) {
+            GenreDTO genreDTO = new GenreDTO(g.getId(), g.getName());
+            genreDTOList.add(genreDTO);
+        }
+        return genreDTOList;
+    }
+
+    @Override
+    public <E extends Exception> void streamAll(EntityConsumer<GenreDTO, E> consumer) throws SQLException, E {
+        genreDAO.streamAll(g -> consumer.accept(new GenreDTO(g.getId(), g.getName())));
+    }
+
     @Override
     public int save(GenreDTO genreDTO) throws SQLException, ElementHasNotAddedException {
         Genre genre = new Genre();
@@ -93,4 +120,13 @@ public class GenreServiceImpl implements GenreService {
         }
         return del;
     }
+
+    private GenreDTO toGenreDTO(int genreId, Optional<Genre> optionalGenre) throws ElementHasNotFoundException {
+        if (optionalGenre.isPresent()) {
+            Genre dbGenre = optionalGenre.get();
+            return new GenreDTO(dbGenre.getId(), dbGenre.getName());
+        } else {
+            throw new ElementHasNotFoundException("Элемент с id  = " + genreId + " не найден.");
+        }
+    }
 }
@@ -0,0 +1,222 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.himeraoo.library.executor.DbExecutor;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Сервлет, методы doGet/doPost/doPut/doDelete которого выполняются на {@link DbExecutor}, а не в потоке контейнера.
+ * Запрос переводится в асинхронный режим, поток контейнера сразу освобождается, ответ завершается после работы с БД.
+ * JSON тело запроса, тип которого задаёт {@link #bodyType(HttpServletRequest)}, до этого читается неблокирующим
+ * {@link NonBlockingBodyReader} и передаётся в doPost/doPut через {@link #readBody(HttpServletRequest, ObjectReader)}.
+ * Запрос, не завершённый за asyncTimeoutMs, получает 408, если тело ещё читается, или 503, если запрос ещё ждёт
+ * исполнителя или выполняется на нём. Задача, которая выполняется в момент таймаута, дорабатывает, но пишет уже
+ * в отключённый {@link TimeoutGuardedResponse}. Запросы, которые законно работают дольше, задаёт
+ * {@link #asyncTimeout(HttpServletRequest, long)}.
+ * Если исполнителя нет в контексте или запрос не поддерживает асинхронный режим, обработка идёт как обычно.
+ */
+public abstract class AsyncRESTServlet extends HttpServlet {
+
+    static final String ASYNC_TIMEOUT_ATTRIBUTE = "asyncTimeoutMs";
+    static final long DEFAULT_ASYNC_TIMEOUT_MS = 30000;
+
+    private static final String BODY_ATTRIBUTE = AsyncRESTServlet.class.getName() + ".body";
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        DbExecutor dbExecutor = (DbExecutor) getServletContext().getAttribute(DbExecutor.ATTRIBUTE);
+        if (dbExecutor == null || !req.isAsyncSupported()) {
+            super.service(req, resp);
+            return;
+        }
+
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        Object asyncTimeoutAttribute = getServletContext().getAttribute(ASYNC_TIMEOUT_ATTRIBUTE);
+        asyncContext.setTimeout(asyncTimeout(req, asyncTimeoutAttribute != null ? (Long) asyncTimeoutAttribute : DEFAULT_ASYNC_TIMEOUT_MS));
+        Class<?> bodyType = bodyType(req);
+        AsyncRequest asyncRequest = new AsyncRequest(asyncContext, resp, bodyType != null ? Phase.READING_BODY : Phase.QUEUED);
+        asyncContext.addListener(asyncRequest);
+
+        if (bodyType == null) {
+            dispatch(dbExecutor, req, resp, asyncRequest);
+            return;
+        }
+
+        Object maxBodySizeAttribute = getServletContext().getAttribute(NonBlockingBodyReader.MAX_BODY_SIZE_ATTRIBUTE);
+        long maxBodySize = maxBodySizeAttribute != null ? (Long) maxBodySizeAttribute : NonBlockingBodyReader.DEFAULT_MAX_BODY_SIZE;
+        if (req.getContentLengthLong() > maxBodySize) {
+            asyncRequest.fail(Phase.READING_BODY, 413, new NonBlockingBodyReader.BodyTooLargeException(maxBodySize).getMessage());
+            return;
+        }
+        JsonCodec jsonCodec = (JsonCodec) getServletContext().getAttribute(JsonCodec.ATTRIBUTE);
+        req.getInputStream().setReadListener(new NonBlockingBodyReader(req.getInputStream(), jsonCodec.reader(bodyType), maxBodySize,
+                new NonBlockingBodyReader.Callback() {
+                    @Override
+                    public void onBody(Object body) {
+                        req.setAttribute(BODY_ATTRIBUTE, body);
+                        //после таймаута ответ уже отправлен
+                        if (asyncRequest.advance(Phase.READING_BODY, Phase.QUEUED)) {
+                            dispatch(dbExecutor, req, resp, asyncRequest);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        t.printStackTrace();
+                        int status = t instanceof NonBlockingBodyReader.BodyTooLargeException ? 413 : 400;
+                        asyncRequest.fail(Phase.READING_BODY, status, t.getMessage());
+                    }
+                }));
+    }
+
+    /**
+     * Тип DTO в теле запроса, которое нужно прочитать до выполнения на исполнителе, или null, если тело не читается заранее.
+     */
+    protected Class<?> bodyType(HttpServletRequest req) {
+        return null;
+    }
+
+    /**
+     * Таймаут асинхронного запроса в мс, 0 - без таймаута. Потоковый список (?stream=true) передаётся частями
+     * и может законно идти дольше таймаута, поэтому не ограничивается: запись в медленное соединение ограничивает
+     * таймаут сокета контейнера.
+     */
+    protected long asyncTimeout(HttpServletRequest req, long defaultTimeout) {
+        return JsonArrayWriter.isStreamRequested(req) ? 0 : defaultTimeout;
+    }
+
+    /**
+     * Тело запроса, уже прочитанное неблокирующим чтением, а при синхронной обработке - прочитанное из потока запроса.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T> T readBody(HttpServletRequest req, ObjectReader reader) throws IOException {
+        Object body = req.getAttribute(BODY_ATTRIBUTE);
+        if (body != null) {
+            return (T) body;
+        }
+        return reader.readValue(req.getInputStream());
+    }
+
+    private void dispatch(DbExecutor dbExecutor, HttpServletRequest req, HttpServletResponse resp, AsyncRequest asyncRequest) {
+        try {
+            dbExecutor.execute(() -> {
+                //запрос, простоявший в очереди дольше таймаута, уже получил 503
+                if (!asyncRequest.advance(Phase.QUEUED, Phase.RUNNING)) {
+                    return;
+                }
+                try {
+                    super.service(req, asyncRequest.guardedResponse);
+                } catch (ServletException | IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    asyncRequest.fail(Phase.RUNNING, 500, e.getMessage());
+                } finally {
+                    asyncRequest.complete(Phase.RUNNING);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            asyncRequest.fail(Phase.QUEUED, 503, "Сервер перегружен, повторите запрос позже");
+        }
+    }
+
+    private static void writeError(HttpServletResponse resp, int status, String message) {
+        //часть ответа уже отправлена клиенту, статус изменить нельзя
+        if (resp.isCommitted()) {
+            return;
+        }
+        try {
+            resp.reset();
+            resp.setContentType("text/html");
+            resp.setCharacterEncoding("UTF-8");
+            PrintWriter out = resp.getWriter();
+            out.write(String.valueOf(message));
+            resp.setStatus(status);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private enum Phase {
+        READING_BODY, QUEUED, RUNNING, DONE
+    }
+
+    /**
+     * Этап асинхронного запроса. Ответ завершает тот, кто первым переводит запрос в DONE: чтение тела, задача
+     * исполнителя или таймаут контейнера, поэтому complete() вызывается ровно один раз. Задача, выполняющаяся
+     * на исполнителе в момент таймаута, дорабатывает, но её ответ к этому моменту отключён и дальнейшие записи
+     * отбрасываются, а завершить ответ она уже не может.
+     */
+    private static final class AsyncRequest implements AsyncListener {
+
+        private final AsyncContext asyncContext;
+        private final HttpServletResponse resp;
+        //ответ, в который пишет задача исполнителя
+        private final TimeoutGuardedResponse guardedResponse;
+        private final AtomicReference<Phase> phase;
+
+        private AsyncRequest(AsyncContext asyncContext, HttpServletResponse resp, Phase phase) {
+            this.asyncContext = asyncContext;
+            this.resp = resp;
+            this.guardedResponse = new TimeoutGuardedResponse(resp);
+            this.phase = new AtomicReference<>(phase);
+        }
+
+        private boolean advance(Phase expected, Phase next) {
+            return phase.compareAndSet(expected, next);
+        }
+
+        private void complete(Phase expected) {
+            if (advance(expected, Phase.DONE)) {
+                asyncContext.complete();
+            }
+        }
+
+        private void fail(Phase expected, int status, String message) {
+            if (advance(expected, Phase.DONE)) {
+                writeError(resp, status, message);
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            Phase timedOut = phase.getAndSet(Phase.DONE);
+            if (timedOut == Phase.READING_BODY) {
+                writeError(resp, 408, "Тело запроса не получено за отведённое время");
+                asyncContext.complete();
+            } else if (timedOut == Phase.QUEUED || timedOut == Phase.RUNNING) {
+                //ждёт окончания начатой задачей записи, дальше задача в ответ не пишет
+                guardedResponse.detach();
+                writeError(resp, 503, "Запрос не выполнен за отведённое время, повторите запрос позже");
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            //соединение с клиентом оборвано, отвечать некому
+            if (phase.getAndSet(Phase.DONE) != Phase.DONE) {
+                guardedResponse.detach();
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
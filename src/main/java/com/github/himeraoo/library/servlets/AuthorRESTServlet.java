@@ -1,46 +1,88 @@
 package com.github.himeraoo.library.servlets;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.himeraoo.library.dto.AuthorDTO;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.service.AuthorService;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.stream.Collectors;
 
-@WebServlet("/api/rest/author/*")
-public class AuthorRESTServlet extends HttpServlet {
+@WebServlet(value = "/api/rest/author/*", asyncSupported = true)
+public class AuthorRESTServlet extends AsyncRESTServlet {
+
+    private static final RestPath PATH = new RestPath("author");
 
     private AuthorService authorService;
+    private JsonCodec jsonCodec;
+    private JsonArrayWriter jsonArrayWriter;
 
     public void init() {
         final Object authorService = getServletContext().getAttribute("authorService");
         this.authorService = (AuthorService) authorService;
+        this.jsonCodec = (JsonCodec) getServletContext().getAttribute(JsonCodec.ATTRIBUTE);
+        this.jsonArrayWriter = new JsonArrayWriter(jsonCodec.writer(AuthorDTO.class));
+    }
+
+    @Override
+    protected Class<?> bodyType(HttpServletRequest req) {
+        String method = req.getMethod();
+        return "POST".equals(method) || "PUT".equals(method) ? AuthorDTO.class : null;
     }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
         String requestPath = req.getRequestURI();
+        int authorId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
         String json = "";
 
-        if (requestPath.matches("^/api/rest/author/$")) {
+        if (PATH.isCollection(requestPath) && JsonArrayWriter.isStreamRequested(req)) {
             try {
-                List<AuthorDTO> allAuthorDTOs = authorService.findAll();
-                json = mapper.writeValueAsString(allAuthorDTOs);
+                if (ConditionalGet.isCollectionNotModified(req, resp, authorService.findAllVersion())) {
+                    return;
+                }
+                jsonArrayWriter.<AuthorDTO>write(resp, authorService::streamAll);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                //часть массива уже отправлена клиенту, статус изменить нельзя, соединение просто обрывается
+                if (resp.isCommitted()) {
+                    throw new ServletException(e);
+                }
+                resp.reset();
+                resp.setContentType("text/html");
+                resp.setCharacterEncoding("UTF-8");
+                PrintWriter out = resp.getWriter();
+                out.write(e.getMessage());
+                resp.setStatus(500);
+            }
+        } else if (PATH.isCollection(requestPath)) {
+            try {
+                PageRequest pageRequest = PageRequest.from(req);
+                //версия списка одна на все страницы, страница не изменилась, если не изменился весь список
+                if (ConditionalGet.isCollectionNotModified(req, resp, authorService.findAllVersion())) {
+                    return;
+                }
+                List<AuthorDTO> allAuthorDTOs;
+                if (pageRequest == null) {
+                    allAuthorDTOs = authorService.findAll();
+                } else {
+                    allAuthorDTOs = authorService.findAll(pageRequest.getAfter(), pageRequest.getLimit());
+                    if (!allAuthorDTOs.isEmpty()) {
+                        pageRequest.writeNextCursor(resp, requestPath, allAuthorDTOs.size(), allAuthorDTOs.get(allAuthorDTOs.size() - 1).getId());
+                    }
+                }
+                json = jsonCodec.listWriter(AuthorDTO.class).writeValueAsString(allAuthorDTOs);
                 resp.setContentType("application/json");
                 resp.setCharacterEncoding("UTF-8");
                 resp.getWriter().write(json);
@@ -52,6 +94,13 @@ public class AuthorRESTServlet extends HttpServlet {
                 PrintWriter out = resp.getWriter();
                 out.write(e.getMessage());
                 resp.setStatus(404);
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+                resp.setContentType("text/html");
+                resp.setCharacterEncoding("UTF-8");
+                PrintWriter out = resp.getWriter();
+                out.write(e.getMessage());
+                resp.setStatus(400);
             } catch (SQLException e) {
                 e.printStackTrace();
                 resp.setContentType("text/html");
@@ -60,12 +109,15 @@ public class AuthorRESTServlet extends HttpServlet {
                 out.write(e.getMessage());
                 resp.setStatus(500);
             }
-        } else if (requestPath.matches("^/api/rest/author/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String authorIdParam = parts[4];
+        } else if (authorId != RestPath.NO_ID) {
             try {
-                AuthorDTO authorDTO = authorService.findById(Integer.parseInt(authorIdParam));
-                json = mapper.writeValueAsString(authorDTO);
+                //версия читается дешёвым запросом, сам автор читается, только если он изменился
+                EntityVersion version = authorService.findVersionById(authorId).orElse(null);
+                if (ConditionalGet.isNotModified(req, resp, version)) {
+                    return;
+                }
+                AuthorDTO authorDTO = authorService.findById(authorId, version);
+                json = jsonCodec.writer(AuthorDTO.class).writeValueAsString(authorDTO);
                 resp.setContentType("application/json");
                 resp.setCharacterEncoding("UTF-8");
                 resp.getWriter().write(json);
@@ -98,13 +150,12 @@ public class AuthorRESTServlet extends HttpServlet {
     protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
         String requestPath = req.getRequestURI();
+        int authorId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        if (requestPath.matches("^/api/rest/author/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String authorIdParam = parts[4];
+        if (authorId != RestPath.NO_ID) {
             try {
-                int del = authorService.deleteById(Integer.parseInt(authorIdParam));
+                int del = authorService.deleteById(authorId);
 
                 resp.setContentType("text/html");
                 resp.setCharacterEncoding("UTF-8");
@@ -139,18 +190,14 @@ public class AuthorRESTServlet extends HttpServlet {
     @Override
     protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String requestPath = req.getRequestURI();
+        int authorId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
-        String json = req.getReader().lines().collect(Collectors.joining());
+        AuthorDTO authorDTO = readBody(req, jsonCodec.reader(AuthorDTO.class));
 
-        AuthorDTO authorDTO = mapper.readValue(json, AuthorDTO.class);
-
-        if (requestPath.matches("^/api/rest/author/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String authorIdParam = parts[4];
+        if (authorId != RestPath.NO_ID) {
             try {
-                authorDTO.setId(Integer.parseInt(authorIdParam));
+                authorDTO.setId(authorId);
                 int upd = authorService.update(authorDTO);
 
                 resp.setContentType("text/html");
@@ -195,12 +242,9 @@ public class AuthorRESTServlet extends HttpServlet {
         String requestPath = req.getRequestURI();
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
-        String json = req.getReader().lines().collect(Collectors.joining());
-
-        AuthorDTO authorDTO = mapper.readValue(json, AuthorDTO.class);
+        AuthorDTO authorDTO = readBody(req, jsonCodec.reader(AuthorDTO.class));
 
-        if (requestPath.matches("^/api/rest/author/$")) {
+        if (PATH.isCollection(requestPath)) {
             try {
                 int add = authorService.save(authorDTO);
 
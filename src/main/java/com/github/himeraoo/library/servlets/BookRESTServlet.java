@@ -1,46 +1,106 @@
 package com.github.himeraoo.library.servlets;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.ImportReport;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
+import com.github.himeraoo.library.service.BookImport;
 import com.github.himeraoo.library.service.BookService;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.stream.Collectors;
 
-@WebServlet("/api/rest/book/*")
-public class BookRESTServlet extends HttpServlet {
+@WebServlet(value = "/api/rest/book/*", asyncSupported = true)
+public class BookRESTServlet extends AsyncRESTServlet {
+
+    private static final RestPath PATH = new RestPath("book");
 
     private BookService bookService;
+    private JsonCodec jsonCodec;
+    private JsonArrayWriter jsonArrayWriter;
 
     public void init() {
         final Object bookService = getServletContext().getAttribute("bookService");
         this.bookService = (BookService) bookService;
+        this.jsonCodec = (JsonCodec) getServletContext().getAttribute(JsonCodec.ATTRIBUTE);
+        this.jsonArrayWriter = new JsonArrayWriter(jsonCodec.writer(BookDTO.class));
+    }
+
+    //тело импорта читается потоком на исполнителе, а не целиком в один BookDTO
+    @Override
+    protected Class<?> bodyType(HttpServletRequest req) {
+        String method = req.getMethod();
+        if (("POST".equals(method) && !PATH.isAction(req.getRequestURI(), "import")) || "PUT".equals(method)) {
+            return BookDTO.class;
+        }
+        return null;
+    }
+
+    //импорт читает тело блокирующим потоком на исполнителе и может законно идти дольше таймаута,
+    //медленного клиента ограничивает таймаут сокета контейнера
+    @Override
+    protected long asyncTimeout(HttpServletRequest req, long defaultTimeout) {
+        if ("POST".equals(req.getMethod()) && PATH.isAction(req.getRequestURI(), "import")) {
+            return 0;
+        }
+        return super.asyncTimeout(req, defaultTimeout);
     }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
         String requestPath = req.getRequestURI();
+        int bookId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
         String json = "";
 
-        if (requestPath.matches("^/api/rest/book/$")) {
+        if (PATH.isCollection(requestPath) && JsonArrayWriter.isStreamRequested(req)) {
+            try {
+                if (ConditionalGet.isCollectionNotModified(req, resp, bookService.findAllVersion())) {
+                    return;
+                }
+                jsonArrayWriter.<BookDTO>write(resp, bookService::streamAll);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                //часть массива уже отправлена клиенту, статус изменить нельзя, соединение просто обрывается
+                if (resp.isCommitted()) {
+                    throw new ServletException(e);
+                }
+                resp.reset();
+                resp.setContentType("text/html");
+                resp.setCharacterEncoding("UTF-8");
+                PrintWriter out = resp.getWriter();
+                out.write(e.getMessage());
+                resp.setStatus(500);
+            }
+        } else if (PATH.isCollection(requestPath)) {
             try {
-                List<BookDTO> allBookDTOs = bookService.findAll();
-                json = mapper.writeValueAsString(allBookDTOs);
+                PageRequest pageRequest = PageRequest.from(req);
+                //версия списка одна на все страницы, страница не изменилась, если не изменился весь список
+                if (ConditionalGet.isCollectionNotModified(req, resp, bookService.findAllVersion())) {
+                    return;
+                }
+                List<BookDTO> allBookDTOs;
+                if (pageRequest == null) {
+                    allBookDTOs = bookService.findAll();
+                } else {
+                    allBookDTOs = bookService.findAll(pageRequest.getAfter(), pageRequest.getLimit());
+                    if (!allBookDTOs.isEmpty()) {
+                        pageRequest.writeNextCursor(resp, requestPath, allBookDTOs.size(), allBookDTOs.get(allBookDTOs.size() - 1).getId());
+                    }
+                }
+                json = jsonCodec.listWriter(BookDTO.class).writeValueAsString(allBookDTOs);
                 resp.setContentType("application/json");
                 resp.setCharacterEncoding("UTF-8");
                 resp.getWriter().write(json);
@@ -52,6 +112,13 @@ public class BookRESTServlet extends HttpServlet {
                 PrintWriter out = resp.getWriter();
                 out.write(e.getMessage());
                 resp.setStatus(404);
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+                resp.setContentType("text/html");
+                resp.setCharacterEncoding("UTF-8");
+                PrintWriter out = resp.getWriter();
+                out.write(e.getMessage());
+                resp.setStatus(400);
             } catch (SQLException e) {
                 e.printStackTrace();
                 resp.setContentType("text/html");
@@ -60,12 +127,15 @@ public class BookRESTServlet extends HttpServlet {
                 out.write(e.getMessage());
                 resp.setStatus(500);
             }
-        } else if (requestPath.matches("^/api/rest/book/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String bookIdParam = parts[4];
+        } else if (bookId != RestPath.NO_ID) {
             try {
-                BookDTO bookDTO = bookService.findById(Integer.parseInt(bookIdParam));
-                json = mapper.writeValueAsString(bookDTO);
+                //версия читается дешёвым запросом, сама книга читается, только если она изменилась
+                EntityVersion version = bookService.findVersionById(bookId).orElse(null);
+                if (ConditionalGet.isNotModified(req, resp, version)) {
+                    return;
+                }
+                BookDTO bookDTO = bookService.findById(bookId, version);
+                json = jsonCodec.writer(BookDTO.class).writeValueAsString(bookDTO);
                 resp.setContentType("application/json");
                 resp.setCharacterEncoding("UTF-8");
                 resp.getWriter().write(json);
@@ -98,13 +168,12 @@ public class BookRESTServlet extends HttpServlet {
     protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
         String requestPath = req.getRequestURI();
+        int bookId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        if (requestPath.matches("^/api/rest/book/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String bookIdParam = parts[4];
+        if (bookId != RestPath.NO_ID) {
             try {
-                int del = bookService.deleteById(Integer.parseInt(bookIdParam));
+                int del = bookService.deleteById(bookId);
 
                 resp.setContentType("text/html");
                 resp.setCharacterEncoding("UTF-8");
@@ -139,18 +208,14 @@ public class BookRESTServlet extends HttpServlet {
     @Override
     protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String requestPath = req.getRequestURI();
+        int bookId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
-        String json = req.getReader().lines().collect(Collectors.joining());
-
-        BookDTO bookDTO = mapper.readValue(json, BookDTO.class);
+        BookDTO bookDTO = readBody(req, jsonCodec.reader(BookDTO.class));
 
-        if (requestPath.matches("^/api/rest/book/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String bookIdParam = parts[4];
+        if (bookId != RestPath.NO_ID) {
             try {
-                bookDTO.setId(Integer.parseInt(bookIdParam));
+                bookDTO.setId(bookId);
                 int upd = bookService.update(bookDTO);
 
                 resp.setContentType("text/html");
@@ -195,12 +260,15 @@ public class BookRESTServlet extends HttpServlet {
         String requestPath = req.getRequestURI();
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
-        String json = req.getReader().lines().collect(Collectors.joining());
+        //тело импорта читается потоком, а не целиком в один BookDTO
+        if (PATH.isAction(requestPath, "import")) {
+            importBooks(req, resp);
+            return;
+        }
 
-        BookDTO bookDTO = mapper.readValue(json, BookDTO.class);
+        BookDTO bookDTO = readBody(req, jsonCodec.reader(BookDTO.class));
 
-        if (requestPath.matches("^/api/rest/book/$")) {
+        if (PATH.isCollection(requestPath)) {
             try {
                 int add = bookService.save(bookDTO);
 
@@ -233,4 +301,44 @@ public class BookRESTServlet extends HttpServlet {
             resp.setStatus(400);
         }
     }
+
+    //тело - JSON массив книг или книги через перевод строки (NDJSON), записи разбираются по одной
+    private void importBooks(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        BookImport bookImport = bookService.startImport();
+        String parseError = null;
+        try (MappingIterator<BookDTO> records = jsonCodec.reader(BookDTO.class).readValues(req.getInputStream())) {
+            while (records.hasNextValue()) {
+                bookImport.add(records.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+            //записи до ошибки разбора уже приняты, в отчёте указывается место ошибки
+            parseError = e.getOriginalMessage();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            resp.setContentType("text/html");
+            resp.setCharacterEncoding("UTF-8");
+            PrintWriter out = resp.getWriter();
+            out.write(e.getMessage());
+            resp.setStatus(500);
+            return;
+        }
+
+        try {
+            ImportReport report = bookImport.finish();
+            report.setError(parseError);
+            String json = jsonCodec.writer(ImportReport.class).writeValueAsString(report);
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.getWriter().write(json);
+            resp.setStatus(parseError == null ? 200 : 400);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            resp.setContentType("text/html");
+            resp.setCharacterEncoding("UTF-8");
+            PrintWriter out = resp.getWriter();
+            out.write(e.getMessage());
+            resp.setStatus(500);
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.github.himeraoo.library.servlets;
+
+import com.github.himeraoo.library.models.EntityVersion;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Условный GET по версии ресурса: ответ получает ETag и Last-Modified, а если версия у клиента совпадает
+ * с текущей (If-None-Match, при его отсутствии - If-Modified-Since), отдаётся 304 без тела.
+ * Версия читается до самих данных, и данные передаются в сервис вместе с ней: кэш отдаёт запись, только если она
+ * загружена при той же версии, иначе перечитывает сущность. Поэтому данные не бывают старше ETag: если они изменятся
+ * между двумя запросами, клиент получит новые данные со старым ETag и при следующем запросе загрузит их ещё раз.
+ * Списки проверяются только по ETag: время изменения списка - max(updated_at) его записей, удаление записи его
+ * не сдвигает, поэтому по If-Modified-Since клиент получил бы 304 на устаревший список.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * @param version версия ресурса или null, если её нет, тогда заголовки не выставляются
+     * @return true, если ответ 304 уже выставлен и тело отдавать не нужно
+     */
+    static boolean isNotModified(HttpServletRequest req, HttpServletResponse resp, EntityVersion version) {
+        if (version == null) {
+            return false;
+        }
+        //Last-Modified передаётся с точностью до секунды
+        return isNotModified(req, resp, version.getTag(), version.getLastModified() / 1000 * 1000);
+    }
+
+    /**
+     * Условный GET списка: выставляется только ETag, If-Modified-Since не учитывается.
+     *
+     * @param version версия списка или null, если её нет, тогда заголовки не выставляются
+     * @return true, если ответ 304 уже выставлен и тело отдавать не нужно
+     */
+    static boolean isCollectionNotModified(HttpServletRequest req, HttpServletResponse resp, EntityVersion version) {
+        if (version == null) {
+            return false;
+        }
+        return isNotModified(req, resp, version.getTag(), 0);
+    }
+
+    //lastModified <= 0 - Last-Modified не выставляется и If-Modified-Since не проверяется
+    private static boolean isNotModified(HttpServletRequest req, HttpServletResponse resp, String tag, long lastModified) {
+        String etag = "\"" + tag + "\"";
+        resp.setHeader("ETag", etag);
+        if (lastModified > 0) {
+            resp.setDateHeader("Last-Modified", lastModified);
+        }
+        //клиент может хранить ответ, но перед использованием обязан проверить его версию
+        resp.setHeader("Cache-Control", "no-cache");
+
+        if (isNotModified(req, etag, lastModified)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isNotModified(HttpServletRequest req, String etag, long lastModified) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, etag);
+        }
+        if (lastModified <= 0) {
+            return false;
+        }
+        try {
+            long ifModifiedSince = req.getDateHeader("If-Modified-Since");
+            return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            //неразбираемая дата игнорируется
+            return false;
+        }
+    }
+
+    //If-None-Match сравнивается слабым сравнением: префикс W/ не учитывается
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,17 +1,29 @@
 package com.github.himeraoo.library.servlets;
 
-import com.github.himeraoo.library.jdbc.SessionManager;
+import com.github.himeraoo.library.cache.CacheConfig;
+import com.github.himeraoo.library.cache.EntityCaches;
+import com.github.himeraoo.library.dao.CachingAuthorDAO;
+import com.github.himeraoo.library.dao.CachingBookDAO;
+import com.github.himeraoo.library.dao.CachingGenreDAO;
+import com.github.himeraoo.library.executor.DbExecutor;
+import com.github.himeraoo.library.executor.DbExecutorConfig;
+import com.github.himeraoo.library.jdbc.FetchConfig;
+import com.github.himeraoo.library.jdbc.PoolConfig;
 import com.github.himeraoo.library.jdbc.SessionManagerJDBC;
+import com.github.himeraoo.library.metrics.Metrics;
 import com.github.himeraoo.library.dao.AuthorDAO;
 import com.github.himeraoo.library.dao.AuthorDAOImpl;
 import com.github.himeraoo.library.dao.BookDAO;
 import com.github.himeraoo.library.dao.BookDAOImpl;
+import com.github.himeraoo.library.dao.ExportDAOImpl;
 import com.github.himeraoo.library.dao.GenreDAO;
 import com.github.himeraoo.library.dao.GenreDAOImpl;
 import com.github.himeraoo.library.service.AuthorService;
 import com.github.himeraoo.library.service.AuthorServiceImpl;
 import com.github.himeraoo.library.service.BookService;
 import com.github.himeraoo.library.service.BookServiceImpl;
+import com.github.himeraoo.library.service.ExportService;
+import com.github.himeraoo.library.service.ExportServiceImpl;
 import com.github.himeraoo.library.service.GenreService;
 import com.github.himeraoo.library.service.GenreServiceImpl;
 
@@ -26,13 +38,21 @@ import java.util.Properties;
 @WebListener
 public class ContextListener implements ServletContextListener {
 
+    private SessionManagerJDBC sessionManager;
+    private DbExecutor dbExecutor;
+
     @Override
     public void contextInitialized(ServletContextEvent servletContextEvent) {
 
         final ServletContext servletContext = servletContextEvent.getServletContext();
 
-        SessionManager sessionManager = null;
-
+        CacheConfig cacheConfig = new CacheConfig();
+        FetchConfig fetchConfig = new FetchConfig();
+        DbExecutorConfig dbExecutorConfig = new DbExecutorConfig();
+        int importChunkSize = BookServiceImpl.DEFAULT_IMPORT_CHUNK_SIZE;
+        long maxBodySize = NonBlockingBodyReader.DEFAULT_MAX_BODY_SIZE;
+        long asyncTimeoutMs = AsyncRESTServlet.DEFAULT_ASYNC_TIMEOUT_MS;
+        Metrics metrics = new Metrics();
         try (InputStream inStream = servletContext.getResourceAsStream("/WEB-INF/resources/app.properties")) {
             Properties properties = new Properties();
             properties.load(inStream);
@@ -41,27 +61,63 @@ public class ContextListener implements ServletContextListener {
                     properties.getProperty("dbUrl"),
                     properties.getProperty("dbUsername"),
                     properties.getProperty("dbPassword"),
-                    properties.getProperty("dbDriver")
+                    properties.getProperty("dbDriver"),
+                    PoolConfig.fromProperties(properties)
             );
+            sessionManager.setQueryListener(metrics);
+            sessionManager.setSlowQueryThresholdMs(Long.parseLong(properties.getProperty("slowQueryThresholdMs", "0").trim()));
+            cacheConfig = CacheConfig.fromProperties(properties);
+            fetchConfig = FetchConfig.fromProperties(properties);
+            dbExecutorConfig = DbExecutorConfig.fromProperties(properties);
+            maxBodySize = Long.parseLong(properties.getProperty("maxBodySize", String.valueOf(maxBodySize)).trim());
+            asyncTimeoutMs = Long.parseLong(properties.getProperty("asyncTimeoutMs", String.valueOf(asyncTimeoutMs)).trim());
+            importChunkSize = Integer.parseInt(properties.getProperty("importChunkSize", String.valueOf(importChunkSize)).trim());
         } catch (IOException e) {
             e.printStackTrace();
         }
 
-        AuthorDAO authorDAO = new AuthorDAOImpl(sessionManager);
-        BookDAO bookDAO = new BookDAOImpl(sessionManager);
-        GenreDAO genreDAO = new GenreDAOImpl(sessionManager);
+        AuthorDAO authorDAO = new AuthorDAOImpl(sessionManager, fetchConfig);
+        BookDAO bookDAO = new BookDAOImpl(sessionManager, fetchConfig);
+        GenreDAO genreDAO = new GenreDAOImpl(sessionManager, fetchConfig);
+
+        if (cacheConfig.isEnabled()) {
+            EntityCaches entityCaches = new EntityCaches(cacheConfig);
+            authorDAO = new CachingAuthorDAO(authorDAO, entityCaches);
+            bookDAO = new CachingBookDAO(bookDAO, entityCaches);
+            genreDAO = new CachingGenreDAO(genreDAO, entityCaches);
+            servletContext.setAttribute("entityCaches", entityCaches);
+        }
 
         AuthorService authorService = new AuthorServiceImpl(authorDAO);
-        BookService bookService = new BookServiceImpl(bookDAO);
+        BookService bookService = new BookServiceImpl(bookDAO, importChunkSize);
         GenreService genreService = new GenreServiceImpl(genreDAO);
+        //выгрузка читает БД напрямую, мимо кэша сущностей
+        ExportService exportService = new ExportServiceImpl(new ExportDAOImpl(sessionManager, fetchConfig));
 
         servletContext.setAttribute("authorService", authorService);
         servletContext.setAttribute("bookService", bookService);
         servletContext.setAttribute("genreService", genreService);
+        servletContext.setAttribute("exportService", exportService);
+        servletContext.setAttribute(JsonCodec.ATTRIBUTE, new JsonCodec());
+        servletContext.setAttribute(NonBlockingBodyReader.MAX_BODY_SIZE_ATTRIBUTE, maxBodySize);
+        servletContext.setAttribute(AsyncRESTServlet.ASYNC_TIMEOUT_ATTRIBUTE, asyncTimeoutMs);
+        servletContext.setAttribute(Metrics.ATTRIBUTE, metrics);
+
+        if (dbExecutorConfig.isEnabled()) {
+            dbExecutor = new DbExecutor(dbExecutorConfig);
+            servletContext.setAttribute(DbExecutor.ATTRIBUTE, dbExecutor);
+        }
     }
 
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        //сначала дожидаемся задач исполнителя, они ещё используют соединения
+        if (dbExecutor != null) {
+            dbExecutor.shutdown();
+        }
+        if (sessionManager != null) {
+            sessionManager.shutdown();
+        }
     }
 
 }
@@ -0,0 +1,99 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.himeraoo.library.dto.AuthorDTO;
+import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.GenreDTO;
+import com.github.himeraoo.library.service.ExportService;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+@WebServlet("/api/rest/export/*")
+public class ExportServlet extends HttpServlet {
+
+    public static final String GZIP_PARAMETER = "gzip";
+
+    private static final RestPath PATH = new RestPath("export");
+
+    private ExportService exportService;
+    private JsonCodec jsonCodec;
+    private ObjectWriter genreWriter;
+    private ObjectWriter authorWriter;
+    private ObjectWriter bookWriter;
+
+    public void init() {
+        final Object exportService = getServletContext().getAttribute("exportService");
+        this.exportService = (ExportService) exportService;
+        this.jsonCodec = (JsonCodec) getServletContext().getAttribute(JsonCodec.ATTRIBUTE);
+        this.genreWriter = NdjsonWriter.dataWriter(jsonCodec.writer(GenreDTO.class));
+        this.authorWriter = NdjsonWriter.dataWriter(jsonCodec.writer(AuthorDTO.class));
+        this.bookWriter = NdjsonWriter.dataWriter(jsonCodec.writer(BookDTO.class));
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+
+        String requestPath = req.getRequestURI();
+        req.setCharacterEncoding("UTF-8");
+
+        if (PATH.isResource(requestPath)) {
+            try {
+                boolean gzip = isGzipRequested(req);
+                resp.setContentType(NdjsonWriter.CONTENT_TYPE);
+                resp.setCharacterEncoding("UTF-8");
+                if (gzip) {
+                    resp.setHeader("Content-Encoding", "gzip");
+                }
+                resp.setStatus(200);
+
+                OutputStream out = gzip ? new GZIPOutputStream(resp.getOutputStream(), 8192) : resp.getOutputStream();
+                try (NdjsonWriter ndjsonWriter = new NdjsonWriter(jsonCodec, out)) {
+                    exportService.<IOException>exportSnapshot(
+                            genre -> ndjsonWriter.write("genre", genreWriter, genre),
+                            author -> ndjsonWriter.write("author", authorWriter, author),
+                            book -> ndjsonWriter.write("book", bookWriter, book));
+                }
+                if (out instanceof GZIPOutputStream) {
+                    ((GZIPOutputStream) out).finish();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                //часть выгрузки уже отправлена клиенту, статус изменить нельзя, соединение просто обрывается
+                if (resp.isCommitted()) {
+                    throw new ServletException(e);
+                }
+                resp.reset();
+                resp.setContentType("text/html");
+                resp.setCharacterEncoding("UTF-8");
+                PrintWriter out = resp.getWriter();
+                out.write(e.getMessage());
+                resp.setStatus(500);
+            }
+        } else {
+            resp.setContentType("text/html");
+            resp.setCharacterEncoding("UTF-8");
+            PrintWriter out = resp.getWriter();
+            out.write("Неправильный запрос");
+            resp.setStatus(400);
+        }
+    }
+
+    //gzip включается параметром ?gzip=true или заголовком Accept-Encoding
+    private static boolean isGzipRequested(HttpServletRequest req) {
+        String gzipParameter = req.getParameter(GZIP_PARAMETER);
+        if (gzipParameter != null) {
+            return Boolean.parseBoolean(gzipParameter);
+        }
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+}
@@ -1,47 +1,89 @@
 package com.github.himeraoo.library.servlets;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.himeraoo.library.dto.GenreDTO;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotDeletedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.models.EntityVersion;
 import com.github.himeraoo.library.service.GenreService;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.stream.Collectors;
 
-@WebServlet("/api/rest/genre/*")
-public class GenreRESTServlet extends HttpServlet {
+@WebServlet(value = "/api/rest/genre/*", asyncSupported = true)
+public class GenreRESTServlet extends AsyncRESTServlet {
+
+    private static final RestPath PATH = new RestPath("genre");
 
     private GenreService genreService;
+    private JsonCodec jsonCodec;
+    private JsonArrayWriter jsonArrayWriter;
 
     public void init() {
         final Object genreService = getServletContext().getAttribute("genreService");
         this.genreService = (GenreService) genreService;
+        this.jsonCodec = (JsonCodec) getServletContext().getAttribute(JsonCodec.ATTRIBUTE);
+        this.jsonArrayWriter = new JsonArrayWriter(jsonCodec.writer(GenreDTO.class));
+    }
+
+    @Override
+    protected Class<?> bodyType(HttpServletRequest req) {
+        String method = req.getMethod();
+        return "POST".equals(method) || "PUT".equals(method) ? GenreDTO.class : null;
     }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
         String requestPath = req.getRequestURI();
+        int genreId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
         String json = "";
 
-        if (requestPath.matches("^/api/rest/genre/$")) {
+        if (PATH.isCollection(requestPath) && JsonArrayWriter.isStreamRequested(req)) {
             try {
-                List<GenreDTO> allGenreDTOs = genreService.findAll();
-                json = mapper.writeValueAsString(allGenreDTOs);
+                if (ConditionalGet.isCollectionNotModified(req, resp, genreService.findAllVersion())) {
+                    return;
+                }
+                jsonArrayWriter.<GenreDTO>write(resp, genreService::streamAll);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                //часть массива уже отправлена клиенту, статус изменить нельзя, соединение просто обрывается
+                if (resp.isCommitted()) {
+                    throw new ServletException(e);
+                }
+                resp.reset();
+                resp.setContentType("text/html");
+                resp.setCharacterEncoding("UTF-8");
+                PrintWriter out = resp.getWriter();
+                out.write(e.getMessage());
+                resp.setStatus(500);
+            }
+        } else if (PATH.isCollection(requestPath)) {
+            try {
+                PageRequest pageRequest = PageRequest.from(req);
+                //версия списка одна на все страницы, страница не изменилась, если не изменился весь список
+                if (ConditionalGet.isCollectionNotModified(req, resp, genreService.findAllVersion())) {
+                    return;
+                }
+                List<GenreDTO> allGenreDTOs;
+                if (pageRequest == null) {
+                    allGenreDTOs = genreService.findAll();
+                } else {
+                    allGenreDTOs = genreService.findAll(pageRequest.getAfter(), pageRequest.getLimit());
+                    if (!allGenreDTOs.isEmpty()) {
+                        pageRequest.writeNextCursor(resp, requestPath, allGenreDTOs.size(), allGenreDTOs.get(allGenreDTOs.size() - 1).getId());
+                    }
+                }
+                json = jsonCodec.listWriter(GenreDTO.class).writeValueAsString(allGenreDTOs);
                 resp.setContentType("application/json");
                 resp.setCharacterEncoding("UTF-8");
                 resp.getWriter().write(json);
@@ -53,6 +95,13 @@ public class GenreRESTServlet extends HttpServlet {
                 PrintWriter out = resp.getWriter();
                 out.write(e.getMessage());
                 resp.setStatus(404);
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+                resp.setContentType("text/html");
+                resp.setCharacterEncoding("UTF-8");
+                PrintWriter out = resp.getWriter();
+                out.write(e.getMessage());
+                resp.setStatus(400);
             } catch (SQLException e) {
                 e.printStackTrace();
                 resp.setContentType("text/html");
@@ -61,12 +110,15 @@ public class GenreRESTServlet extends HttpServlet {
                 out.write(e.getMessage());
                 resp.setStatus(500);
             }
-        } else if (requestPath.matches("^/api/rest/genre/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String genreIdParam = parts[4];
+        } else if (genreId != RestPath.NO_ID) {
             try {
-                GenreDTO genreDTO = genreService.findById(Integer.parseInt(genreIdParam));
-                json = mapper.writeValueAsString(genreDTO);
+                //версия читается дешёвым запросом, сам жанр читается, только если он изменился
+                EntityVersion version = genreService.findVersionById(genreId).orElse(null);
+                if (ConditionalGet.isNotModified(req, resp, version)) {
+                    return;
+                }
+                GenreDTO genreDTO = genreService.findById(genreId, version);
+                json = jsonCodec.writer(GenreDTO.class).writeValueAsString(genreDTO);
                 resp.setContentType("application/json");
                 resp.setCharacterEncoding("UTF-8");
                 resp.getWriter().write(json);
@@ -99,13 +151,12 @@ public class GenreRESTServlet extends HttpServlet {
     protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
         String requestPath = req.getRequestURI();
+        int genreId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        if (requestPath.matches("^/api/rest/genre/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String genreIdParam = parts[4];
+        if (genreId != RestPath.NO_ID) {
             try {
-                int del = genreService.deleteById(Integer.parseInt(genreIdParam));
+                int del = genreService.deleteById(genreId);
 
                 resp.setContentType("text/html");
                 resp.setCharacterEncoding("UTF-8");
@@ -147,18 +198,14 @@ public class GenreRESTServlet extends HttpServlet {
     @Override
     protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String requestPath = req.getRequestURI();
+        int genreId = PATH.id(requestPath);
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
-        String json = req.getReader().lines().collect(Collectors.joining());
+        GenreDTO genreDTO = readBody(req, jsonCodec.reader(GenreDTO.class));
 
-        GenreDTO genreDTO = mapper.readValue(json, GenreDTO.class);
-
-        if (requestPath.matches("^/api/rest/genre/\\d+$")) {
-            String[] parts = requestPath.split("/");
-            String genreIdParam = parts[4];
+        if (genreId != RestPath.NO_ID) {
             try {
-                genreDTO.setId(Integer.parseInt(genreIdParam));
+                genreDTO.setId(genreId);
                 int upd = genreService.update(genreDTO);
 
                 resp.setContentType("text/html");
@@ -203,12 +250,9 @@ public class GenreRESTServlet extends HttpServlet {
         String requestPath = req.getRequestURI();
         req.setCharacterEncoding("UTF-8");
 
-        ObjectMapper mapper = new ObjectMapper();
-        String json = req.getReader().lines().collect(Collectors.joining());
-
-        GenreDTO genreDTO = mapper.readValue(json, GenreDTO.class);
+        GenreDTO genreDTO = readBody(req, jsonCodec.reader(GenreDTO.class));
 
-        if (requestPath.matches("^/api/rest/genre/$")) {
+        if (PATH.isCollection(requestPath)) {
             try {
                 int add = genreService.save(genreDTO);
 
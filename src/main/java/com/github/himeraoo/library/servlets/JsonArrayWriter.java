@@ -0,0 +1,57 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.himeraoo.library.dao.EntityConsumer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Потоковая запись JSON массива в ответ: элементы сериализуются по мере чтения из БД
+ * прямо в выходной поток, без промежуточного списка и строки со всем ответом.
+ * Длина ответа заранее не известна, поэтому контейнер отдаёт его chunked.
+ */
+public class JsonArrayWriter {
+
+    public static final String STREAM_PARAMETER = "stream";
+
+    private final ObjectWriter writer;
+
+    public JsonArrayWriter(ObjectWriter elementWriter) {
+        //сброс буфера после каждого элемента не нужен, контейнер сам отправляет заполненные чанки
+        this.writer = elementWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public static boolean isStreamRequested(HttpServletRequest req) {
+        return Boolean.parseBoolean(req.getParameter(STREAM_PARAMETER));
+    }
+
+    /**
+     * Источник элементов массива, например {@code bookService::streamAll}.
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        void writeTo(EntityConsumer<T, IOException> consumer) throws SQLException, IOException;
+    }
+
+    public <T> void write(HttpServletResponse resp, Source<T> source) throws SQLException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setStatus(200);
+
+        try (JsonGenerator generator = writer.getFactory().createGenerator(resp.getOutputStream(), JsonEncoding.UTF8)) {
+            //поток ответа закрывает контейнер, а незавершённый массив не должен выглядеть как корректный JSON
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+
+            generator.writeStartArray();
+            source.writeTo(element -> writer.writeValue(generator, element));
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.himeraoo.library.dto.AuthorDTO;
+import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.GenreDTO;
+import com.github.himeraoo.library.dto.ImportReport;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Общий для всех сервлетов JSON кодек, создаётся один раз в {@link ContextListener}.
+ * ObjectMapper потокобезопасен после настройки, а ObjectReader/ObjectWriter неизменяемы,
+ * поэтому кэши сериализаторов и десериализаторов Jackson переиспользуются между запросами.
+ */
+public class JsonCodec {
+
+    public static final String ATTRIBUTE = "jsonCodec";
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, ObjectReader> readers = new HashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new HashMap<>();
+    private final Map<Class<?>, ObjectWriter> listWriters = new HashMap<>();
+
+    public JsonCodec() {
+        this(new ObjectMapper());
+    }
+
+    public JsonCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+        register(BookDTO.class);
+        register(AuthorDTO.class);
+        register(GenreDTO.class);
+        register(ImportReport.class);
+    }
+
+    private void register(Class<?> type) {
+        readers.put(type, mapper.readerFor(type));
+        writers.put(type, mapper.writerFor(type));
+        listWriters.put(type, mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, type)));
+    }
+
+    public ObjectReader reader(Class<?> type) {
+        return lookup(readers, type);
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        return lookup(writers, type);
+    }
+
+    public ObjectWriter listWriter(Class<?> type) {
+        return lookup(listWriters, type);
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    private static <V> V lookup(Map<Class<?>, V> cache, Class<?> type) {
+        V value = cache.get(type);
+        if (value == null) {
+            throw new IllegalArgumentException("Тип " + type.getName() + " не зарегистрирован в JsonCodec");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.himeraoo.library.servlets;
+
+import com.github.himeraoo.library.metrics.Metrics;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Записывает в {@link Metrics} статус и длительность каждого запроса к REST. Маршрут - путь сервлета,
+ * в котором числовые сегменты заменены на {id}, чтобы /api/rest/book/1 и /api/rest/book/2 считались вместе.
+ * Запрос, который {@link AsyncRESTServlet} перевёл в асинхронный режим, записывается при завершении ответа.
+ */
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
+public class MetricsFilter implements Filter {
+
+    private Metrics metrics;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        this.metrics = (Metrics) filterConfig.getServletContext().getAttribute(Metrics.ATTRIBUTE);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (metrics == null || !(request instanceof HttpServletRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse resp = (HttpServletResponse) response;
+        long startedAt = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            record(req, 500, startedAt);
+            throw e;
+        }
+
+        if (req.isAsyncStarted()) {
+            req.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    record(req, resp.getStatus(), startedAt);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            record(req, resp.getStatus(), startedAt);
+        }
+    }
+
+    private void record(HttpServletRequest req, int status, long startedAt) {
+        metrics.recordRequest(req.getMethod(), route(req), status, System.nanoTime() - startedAt);
+    }
+
+    static String route(HttpServletRequest req) {
+        String servletPath = req.getServletPath();
+        String pathInfo = req.getPathInfo();
+        if (pathInfo == null) {
+            return servletPath;
+        }
+        StringBuilder route = new StringBuilder(servletPath.length() + pathInfo.length()).append(servletPath);
+        int start = 0;
+        while (start < pathInfo.length()) {
+            int end = pathInfo.indexOf('/', start + 1);
+            if (end < 0) {
+                end = pathInfo.length();
+            }
+            route.append('/');
+            if (isNumber(pathInfo, start + 1, end)) {
+                route.append("{id}");
+            } else {
+                route.append(pathInfo, start + 1, end);
+            }
+            start = end;
+        }
+        return route.toString();
+    }
+
+    private static boolean isNumber(String path, int from, int to) {
+        if (from == to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.himeraoo.library.servlets;
+
+import com.github.himeraoo.library.metrics.Metrics;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Метрики приложения в текстовом формате Prometheus. Данные уже в памяти, поэтому запрос обрабатывается
+ * в потоке контейнера, без исполнителя БД.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    private Metrics metrics;
+
+    public void init() {
+        this.metrics = (Metrics) getServletContext().getAttribute(Metrics.ATTRIBUTE);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (metrics == null) {
+            resp.sendError(404, "Metrics are disabled");
+            return;
+        }
+        resp.setContentType(Metrics.CONTENT_TYPE);
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.setStatus(200);
+        metrics.writeTo(resp.getWriter());
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Запись NDJSON: каждая запись - отдельный JSON объект {"type": ..., "data": ...} на своей строке.
+ * Записи сериализуются сразу в выходной поток, поэтому потребление памяти не зависит от их числа.
+ */
+public class NdjsonWriter implements Closeable {
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private final JsonGenerator generator;
+
+    public NdjsonWriter(JsonCodec jsonCodec, OutputStream out) throws IOException {
+        this.generator = jsonCodec.getMapper().getFactory().createGenerator(out, JsonEncoding.UTF8);
+        //поток закрывает вызывающий код, незавершённая запись не должна дописываться до корректного JSON
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        //записи разделяются только переводом строки, без пробела по умолчанию между корневыми значениями
+        generator.setRootValueSeparator(null);
+    }
+
+    //сброс буфера после каждой записи не нужен, поэтому писатели для данных создаются без FLUSH_AFTER_WRITE_VALUE
+    public static ObjectWriter dataWriter(ObjectWriter writer) {
+        return writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void write(String type, ObjectWriter dataWriter, Object data) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", type);
+        generator.writeFieldName("data");
+        dataWriter.writeValue(generator, data);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
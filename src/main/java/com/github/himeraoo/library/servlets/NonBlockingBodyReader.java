@@ -0,0 +1,124 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+
+/**
+ * Неблокирующее чтение JSON тела запроса. Байты читаются только когда контейнер сообщает о готовности данных
+ * и сразу передаются неблокирующему парсеру Jackson, поток контейнера не ждёт медленного клиента.
+ * Разобранные токены копятся в {@link TokenBuffer}, из которого после конца тела собирается DTO,
+ * поэтому тело не хранится целиком ни в байтах, ни в строке. Тело больше maxBodySize байт отклоняется.
+ */
+final class NonBlockingBodyReader implements ReadListener {
+
+    static final String MAX_BODY_SIZE_ATTRIBUTE = "maxBodySize";
+    static final long DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+
+    interface Callback {
+        void onBody(Object body);
+
+        void onError(Throwable t);
+    }
+
+    static final class BodyTooLargeException extends IOException {
+        BodyTooLargeException(long maxBodySize) {
+            super("Тело запроса больше " + maxBodySize + " байт");
+        }
+    }
+
+    private final ServletInputStream in;
+    private final ObjectReader reader;
+    private final long maxBodySize;
+    private final Callback callback;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final TokenBuffer tokens;
+    private final byte[] buffer = new byte[8192];
+    private long bodySize;
+    private boolean done;
+
+    NonBlockingBodyReader(ServletInputStream in, ObjectReader reader, long maxBodySize, Callback callback) throws IOException {
+        this.in = in;
+        this.reader = reader;
+        this.maxBodySize = maxBodySize;
+        this.callback = callback;
+        this.parser = reader.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.tokens = new TokenBuffer(parser);
+    }
+
+    @Override
+    public void onDataAvailable() {
+        try {
+            //isReady() == false означает, что контейнер снова вызовет onDataAvailable, когда придут данные
+            while (!done && in.isReady()) {
+                int read = in.read(buffer);
+                if (read == -1) {
+                    return;
+                }
+                bodySize += read;
+                if (bodySize > maxBodySize) {
+                    throw new BodyTooLargeException(maxBodySize);
+                }
+                feeder.feedInput(buffer, 0, read);
+                //парсер ссылается на buffer, поэтому все токены забираются до следующего чтения
+                drainTokens();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onAllDataRead() {
+        if (done) {
+            return;
+        }
+        Object body;
+        try {
+            feeder.endOfInput();
+            drainTokens();
+            try (JsonParser bodyParser = tokens.asParser()) {
+                body = reader.readValue(bodyParser);
+            }
+            parser.close();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+            return;
+        }
+        done = true;
+        callback.onBody(body);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    private void drainTokens() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            tokens.copyCurrentEvent(parser);
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (done) {
+            return;
+        }
+        done = true;
+        try {
+            parser.close();
+        } catch (IOException e) {
+            t.addSuppressed(e);
+        }
+        callback.onError(t);
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.himeraoo.library.servlets;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Параметры постраничного запроса ?after=&lt;id&gt;&amp;limit=&lt;n&gt; (keyset pagination по id).
+ */
+public class PageRequest {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final int after;
+    private final int limit;
+
+    public PageRequest(int after, int limit) {
+        this.after = after;
+        this.limit = limit;
+    }
+
+    /**
+     * @return null, если запрос не постраничный
+     * @throws IllegalArgumentException если параметры заданы неправильно
+     */
+    public static PageRequest from(HttpServletRequest req) {
+        String afterParam = req.getParameter("after");
+        String limitParam = req.getParameter("limit");
+        if (afterParam == null && limitParam == null) {
+            return null;
+        }
+
+        int after = afterParam == null ? 0 : Integer.parseInt(afterParam);
+        int limit = limitParam == null ? DEFAULT_LIMIT : Integer.parseInt(limitParam);
+        if (after < 0 || limit < 1) {
+            throw new IllegalArgumentException("Неправильные параметры after = " + afterParam + ", limit = " + limitParam);
+        }
+        return new PageRequest(after, Math.min(limit, MAX_LIMIT));
+    }
+
+    public int getAfter() {
+        return after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    //курсор следующей страницы передаётся, только если страница заполнена полностью
+    public void writeNextCursor(HttpServletResponse resp, String requestPath, int pageSize, int lastId) {
+        if (pageSize < limit) {
+            return;
+        }
+        resp.setHeader(NEXT_CURSOR_HEADER, String.valueOf(lastId));
+        resp.setHeader("Link", "<" + requestPath + "?after=" + lastId + "&limit=" + limit + ">; rel=\"next\"");
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.himeraoo.library.servlets;
+
+/**
+ * Разбор пути запроса к ресурсу /api/rest/&lt;ресурс&gt;/... для REST сервлетов. Путь сравнивается с префиксом
+ * ресурса, а id читается прямо из символов пути, поэтому на запрос не компилируется регулярное выражение
+ * и не создаются массивы и строки, как у String.matches и String.split. Экземпляр неизменяемый,
+ * каждый сервлет держит свой в статическом поле.
+ */
+final class RestPath {
+
+    //путь не /api/rest/<ресурс>/<id> или id не помещается в int
+    static final int NO_ID = -1;
+
+    private final String prefix;
+
+    RestPath(String resource) {
+        this.prefix = "/api/rest/" + resource + "/";
+    }
+
+    //список ресурса: /api/rest/<ресурс>/
+    boolean isCollection(String path) {
+        return path.equals(prefix);
+    }
+
+    //список ресурса с необязательным / в конце: /api/rest/<ресурс> или /api/rest/<ресурс>/
+    boolean isResource(String path) {
+        return path.equals(prefix) || path.length() == prefix.length() - 1 && prefix.startsWith(path);
+    }
+
+    //действие над ресурсом: /api/rest/<ресурс>/<action>
+    boolean isAction(String path, String action) {
+        return path.length() == prefix.length() + action.length() && path.startsWith(prefix) && path.endsWith(action);
+    }
+
+    //id из /api/rest/<ресурс>/<id>
+    int id(String path) {
+        int length = path.length();
+        if (length == prefix.length() || !path.startsWith(prefix)) {
+            return NO_ID;
+        }
+        int id = 0;
+        for (int i = prefix.length(); i < length; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_ID;
+            }
+            int digit = c - '0';
+            if (id > (Integer.MAX_VALUE - digit) / 10) {
+                return NO_ID;
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+}
@@ -0,0 +1,284 @@
+package com.github.himeraoo.library.servlets;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Ответ, который задача исполнителя получает вместо ответа контейнера. После {@link #detach()} все изменения ответа
+ * молча отбрасываются: по таймауту ответ уже отправлен и завершён, контейнер переиспользует его для других запросов,
+ * а задача при этом может ещё работать. Изменения и отключение выполняются под одной блокировкой, поэтому после
+ * возврата из detach() задача больше не пишет в ответ, а начатая запись к этому моменту закончена.
+ */
+final class TimeoutGuardedResponse extends HttpServletResponseWrapper {
+
+    private final Object lock = new Object();
+    private boolean detached;
+    private PrintWriter writer;
+    private ServletOutputStream outputStream;
+
+    TimeoutGuardedResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * @return false, если ответ уже отключён
+     */
+    boolean detach() {
+        synchronized (lock) {
+            if (detached) {
+                return false;
+            }
+            detached = true;
+            return true;
+        }
+    }
+
+    private interface Change {
+        void apply() throws IOException;
+    }
+
+    private void guarded(Change change) throws IOException {
+        synchronized (lock) {
+            if (!detached) {
+                change.apply();
+            }
+        }
+    }
+
+    private void guardedQuietly(Runnable change) {
+        synchronized (lock) {
+            if (!detached) {
+                change.run();
+            }
+        }
+    }
+
+    //отключённый ответ для задачи выглядит отправленным, и она не пытается его переписать
+    @Override
+    public boolean isCommitted() {
+        synchronized (lock) {
+            return detached || super.isCommitted();
+        }
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        synchronized (lock) {
+            if (writer == null) {
+                writer = new GuardedWriter(super.getWriter());
+            }
+            return writer;
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        synchronized (lock) {
+            if (outputStream == null) {
+                outputStream = new GuardedOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        guardedQuietly(() -> super.setStatus(sc));
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        guarded(() -> super.sendError(sc, msg));
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        guarded(() -> super.sendError(sc));
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        guarded(() -> super.sendRedirect(location));
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        guardedQuietly(() -> super.addCookie(cookie));
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        guardedQuietly(() -> super.setHeader(name, value));
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        guardedQuietly(() -> super.addHeader(name, value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        guardedQuietly(() -> super.setDateHeader(name, date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        guardedQuietly(() -> super.addDateHeader(name, date));
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        guardedQuietly(() -> super.setIntHeader(name, value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        guardedQuietly(() -> super.addIntHeader(name, value));
+    }
+
+    @Override
+    public void setContentType(String type) {
+        guardedQuietly(() -> super.setContentType(type));
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        guardedQuietly(() -> super.setCharacterEncoding(charset));
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        guardedQuietly(() -> super.setContentLength(len));
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        guardedQuietly(() -> super.setContentLengthLong(len));
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        guardedQuietly(() -> super.setLocale(loc));
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        guardedQuietly(() -> super.setBufferSize(size));
+    }
+
+    @Override
+    public void reset() {
+        guardedQuietly(super::reset);
+    }
+
+    @Override
+    public void resetBuffer() {
+        guardedQuietly(super::resetBuffer);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        guarded(super::flushBuffer);
+    }
+
+    private final class GuardedWriter extends PrintWriter {
+
+        private final PrintWriter delegate;
+
+        private GuardedWriter(PrintWriter delegate) {
+            super(delegate);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int c) {
+            guardedQuietly(() -> delegate.write(c));
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            guardedQuietly(() -> delegate.write(buf, off, len));
+        }
+
+        @Override
+        public void write(char[] buf) {
+            guardedQuietly(() -> delegate.write(buf));
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            guardedQuietly(() -> delegate.write(s, off, len));
+        }
+
+        @Override
+        public void write(String s) {
+            guardedQuietly(() -> delegate.write(s));
+        }
+
+        //PrintWriter пишет перевод строки напрямую в delegate, минуя write
+        @Override
+        public void println() {
+            guardedQuietly(delegate::println);
+        }
+
+        @Override
+        public void flush() {
+            guardedQuietly(delegate::flush);
+        }
+
+        @Override
+        public void close() {
+            guardedQuietly(delegate::close);
+        }
+
+        @Override
+        public boolean checkError() {
+            return delegate.checkError();
+        }
+    }
+
+    private final class GuardedOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        private GuardedOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            guarded(() -> delegate.write(b));
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            guarded(() -> delegate.write(b, off, len));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            guarded(delegate::flush);
+        }
+
+        @Override
+        public void close() throws IOException {
+            guarded(delegate::close);
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
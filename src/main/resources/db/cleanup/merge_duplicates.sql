@@ -0,0 +1,59 @@
+-- сведение повторов перед миграцией V2__add_indexes.sql. Скрипт не входит в миграции и запускается вручную,
+-- после резервной копии, когда запуск приложения остановлен проверкой V2 с перечнем повторов.
+-- повторами считаются строки, равные по правилам сравнения столбцов, т.е. без учёта регистра и диакритики:
+-- "Fantasy" и "fantasy" - одна запись. Остаётся запись с наименьшим id, ссылки на остальные переносятся на неё,
+-- связь, которая уже есть у оставляемой записи, удаляется. Название оставляемой записи не меняется.
+-- если повторы - на самом деле разные записи, переименуйте их вместо запуска скрипта.
+-- скрипт меняет только данные и выполняется в одной транзакции: при ошибке ничего не изменится.
+START TRANSACTION;
+
+DROP TEMPORARY TABLE IF EXISTS cleanup_keep;
+
+CREATE TEMPORARY TABLE cleanup_keep AS
+    SELECT MIN(id) AS keep_id, name FROM genre GROUP BY name HAVING COUNT(*) > 1;
+
+UPDATE book b
+    JOIN genre g ON g.id = b.genre_id
+    JOIN cleanup_keep k ON k.name = g.name AND g.id <> k.keep_id
+    SET b.genre_id = k.keep_id;
+
+DELETE g FROM genre g
+    JOIN cleanup_keep k ON k.name = g.name AND g.id <> k.keep_id;
+
+DROP TEMPORARY TABLE cleanup_keep;
+
+CREATE TEMPORARY TABLE cleanup_keep AS
+    SELECT MIN(id) AS keep_id, name, surname FROM author GROUP BY name, surname HAVING COUNT(*) > 1;
+
+UPDATE IGNORE authors_books ab
+    JOIN author a ON a.id = ab.author_id
+    JOIN cleanup_keep k ON k.name = a.name AND k.surname = a.surname AND a.id <> k.keep_id
+    SET ab.author_id = k.keep_id;
+
+DELETE ab FROM authors_books ab
+    JOIN author a ON a.id = ab.author_id
+    JOIN cleanup_keep k ON k.name = a.name AND k.surname = a.surname AND a.id <> k.keep_id;
+
+DELETE a FROM author a
+    JOIN cleanup_keep k ON k.name = a.name AND k.surname = a.surname AND a.id <> k.keep_id;
+
+DROP TEMPORARY TABLE cleanup_keep;
+
+CREATE TEMPORARY TABLE cleanup_keep AS
+    SELECT MIN(id) AS keep_id, title FROM book GROUP BY title HAVING COUNT(*) > 1;
+
+UPDATE IGNORE authors_books ab
+    JOIN book b ON b.id = ab.book_id
+    JOIN cleanup_keep k ON k.title = b.title AND b.id <> k.keep_id
+    SET ab.book_id = k.keep_id;
+
+DELETE ab FROM authors_books ab
+    JOIN book b ON b.id = ab.book_id
+    JOIN cleanup_keep k ON k.title = b.title AND b.id <> k.keep_id;
+
+DELETE b FROM book b
+    JOIN cleanup_keep k ON k.title = b.title AND b.id <> k.keep_id;
+
+DROP TEMPORARY TABLE cleanup_keep;
+
+COMMIT;
@@ -0,0 +1,37 @@
+CREATE TABLE IF NOT EXISTS author (
+    id INT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    surname VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id))
+    ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS genre (
+    id INT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id))
+    ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS book (
+    id INT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    genre_id INT NOT NULL,
+    PRIMARY KEY (id),
+    FOREIGN KEY (genre_id)
+        REFERENCES genre (id)
+        ON DELETE NO ACTION
+        ON UPDATE NO ACTION)
+    ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS authors_books (
+    author_id INT NOT NULL,
+    book_id INT NOT NULL,
+    PRIMARY KEY (author_id, book_id),
+    FOREIGN KEY (author_id)
+        REFERENCES author (id)
+        ON DELETE NO ACTION
+        ON UPDATE NO ACTION,
+    FOREIGN KEY (book_id)
+        REFERENCES book (id)
+        ON DELETE NO ACTION
+        ON UPDATE NO ACTION)
+    ENGINE = InnoDB;
@@ -0,0 +1,26 @@
+-- до появления уникальных индексов часть путей записи сравнивала названия и имена с учётом регистра,
+-- а путь сохранения автора - книги по названию и жанру, поэтому в БД могут быть повторы.
+-- индексы сравнивают строки по правилам сравнения столбцов (без учёта регистра и диакритики), группировка ниже - так же.
+-- повторы не сводятся автоматически: если они есть, скрипт не применяется и запуск останавливается с их перечнем,
+-- свести их можно вручную или скриптом db/cleanup/merge_duplicates.sql.
+-- check: жанры с одинаковым названием (название | id)
+SELECT MIN(name), GROUP_CONCAT(id ORDER BY id) FROM genre GROUP BY name HAVING COUNT(*) > 1;
+
+-- check: авторы с одинаковыми именем и фамилией (имя | фамилия | id)
+SELECT MIN(name), MIN(surname), GROUP_CONCAT(id ORDER BY id) FROM author GROUP BY name, surname HAVING COUNT(*) > 1;
+
+-- check: книги с одинаковым названием (название | id)
+SELECT MIN(title), GROUP_CONCAT(id ORDER BY id) FROM book GROUP BY title HAVING COUNT(*) > 1;
+
+ALTER TABLE author
+    ADD UNIQUE KEY uq_author_name_surname (name, surname);
+
+ALTER TABLE genre
+    ADD UNIQUE KEY uq_genre_name (name);
+
+ALTER TABLE book
+    ADD UNIQUE KEY uq_book_title (title),
+    ADD KEY idx_book_genre_title (genre_id, title);
+
+ALTER TABLE authors_books
+    ADD KEY idx_authors_books_book (book_id, author_id);
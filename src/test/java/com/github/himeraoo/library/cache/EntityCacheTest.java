@@ -0,0 +1,127 @@
+package com.github.himeraoo.library.cache;
+
+import com.github.himeraoo.library.models.Genre;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.himeraoo.library.util.TestUtils.getFullGenre;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Epic(value = "Тестирование кэша сущностей")
+@Feature(value = "Тестирование EntityCache")
+class EntityCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private EntityCache<Genre> cache;
+
+    @BeforeEach
+    void setUp() {
+        CacheConfig config = new CacheConfig();
+        config.setMaxWeight(2);
+        config.setTtlMs(1000);
+        cache = new EntityCache<>("genre", config, genre -> 1, ticker::get);
+        loads.set(0);
+    }
+
+    private Optional<Genre> load(int genreId) {
+        loads.incrementAndGet();
+        return genreId > 0 ? Optional.of(getFullGenre(genreId)) : Optional.empty();
+    }
+
+    @Test
+    @DisplayName("Тест повторного чтения из кэша")
+    @Story(value = "Тестирование чтения")
+    void readThrough() throws SQLException {
+        Optional<Genre> first = cache.get(1, this::load);
+        Optional<Genre> second = cache.get(1, this::load);
+
+        Assertions.assertAll("Проверка чтения через кэш",
+                () -> assertEquals(first, second),
+                () -> assertEquals(1, loads.get(), "Сущность должна загружаться один раз"),
+                () -> assertEquals(1, cache.getHitCount()),
+                () -> assertEquals(1, cache.getMissCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест отсутствующей сущности")
+    @Story(value = "Тестирование чтения")
+    void missingNotCached() throws SQLException {
+        cache.get(0, this::load);
+        Optional<Genre> genre = cache.get(0, this::load);
+
+        assertFalse(genre.isPresent());
+        assertEquals(2, loads.get(), "Отсутствующая сущность не должна кэшироваться");
+    }
+
+    @Test
+    @DisplayName("Тест вытеснения давно не использованной записи")
+    @Story(value = "Тестирование вытеснения")
+    void evictLeastRecentlyUsed() throws SQLException {
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        cache.get(1, this::load);
+        cache.get(3, this::load);
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+
+        Assertions.assertAll("Проверка вытеснения",
+                () -> assertEquals(2, cache.size()),
+                () -> assertEquals(2, cache.getEvictionCount()),
+                () -> assertEquals(4, loads.get(), "Запись 2 должна быть загружена повторно")
+        );
+    }
+
+    @Test
+    @DisplayName("Тест истечения TTL")
+    @Story(value = "Тестирование вытеснения")
+    void expireAfterTtl() throws SQLException {
+        cache.get(1, this::load);
+        ticker.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        cache.get(1, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    @DisplayName("Тест инвалидации по условию")
+    @Story(value = "Тестирование инвалидации")
+    void invalidateIf() throws SQLException {
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+
+        cache.invalidateIf(genre -> genre.getId() == 2);
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    @DisplayName("Тест инвалидации во время загрузки")
+    @Story(value = "Тестирование инвалидации")
+    void invalidateDuringLoad() throws SQLException {
+        Optional<Genre> genre = cache.get(1, genreId -> {
+            //запись в БД и инвалидация произошли, пока читалось старое значение
+            cache.invalidate(genreId);
+            return load(genreId);
+        });
+
+        assertTrue(genre.isPresent());
+        assertEquals(0, cache.size(), "Значение, загруженное до инвалидации, не должно попасть в кэш");
+    }
+}
@@ -3,6 +3,7 @@ package com.github.himeraoo.library.dao;
 import com.github.himeraoo.library.jdbc.SessionManager;
 import com.github.himeraoo.library.jdbc.SessionManagerJDBC;
 import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
 import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Story;
@@ -18,9 +19,12 @@ import java.util.List;
 import java.util.Optional;
 
 import static com.github.himeraoo.library.util.TestUtils.getAuthor;
+import static com.github.himeraoo.library.util.TestUtils.getBookWithoutAuthors;
 import static com.github.himeraoo.library.util.TestUtils.getFullAuthor;
 import static com.github.himeraoo.library.util.TestUtils.getFullBook;
+import static com.github.himeraoo.library.util.TestUtils.getGenre;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @Epic(value = "Тестирование слоя DAO)")
@@ -153,4 +157,46 @@ class AuthorDAOImplTest extends BaseDAOTest {
                         "Размер полученного списка должен быть 6")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(6)
+    @DisplayName("Тест постраничного поиска авторов")
+    @Story(value = "Тестирование метода постраничного поиска")
+    void findAllPage() throws SQLException {
+        List<Author> firstPage = authorDAO.findAll(0, 4);
+        List<Author> secondPage = authorDAO.findAll(firstPage.get(firstPage.size() - 1).getId(), 4);
+
+        Assertions.assertAll("Проверка постраничного поиска",
+                () -> assertEquals(4, firstPage.size(),
+                        "Размер первой страницы должен быть 4"),
+                () -> assertEquals(1, firstPage.get(0).getId()),
+                () -> assertEquals(4, firstPage.get(3).getId()),
+                () -> assertEquals(2, secondPage.size(),
+                        "Размер второй страницы должен быть 2"),
+                () -> assertEquals(5, secondPage.get(0).getId()),
+                () -> assertEquals(6, secondPage.get(1).getId())
+        );
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Тест сохранения автора с существующей книгой под другим жанром")
+    @Story(value = "Тестирование метода сохранения элемента")
+    void saveWithExistingTitleOfAnotherGenre() throws SQLException {
+        Book existingBook = getBookWithoutAuthors(2, "book2", getGenre(2, "genre2"));
+        Book bookWithAnotherGenre = getBookWithoutAuthors(0, "book2", getGenre(3, "genre3"));
+        Author authorForSave = getAuthor(0, "other_genre_author_name", "other_genre_author_surname",
+                Collections.singletonList(bookWithAnotherGenre));
+
+        int addedId = authorDAO.save(authorForSave);
+
+        Author authorDB = authorDAO.findById(addedId).get();
+        authorDAO.deleteById(addedId);
+
+        Assertions.assertAll("Проверка связи автора с книгой из БД",
+                () -> assertNotEquals(-1, addedId),
+                () -> assertEquals(Collections.singletonList(existingBook), authorDB.getBookList()),
+                () -> assertEquals(2, authorDB.getBookList().get(0).getId())
+        );
+    }
+}
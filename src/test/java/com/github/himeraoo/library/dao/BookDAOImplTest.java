@@ -2,7 +2,9 @@ package com.github.himeraoo.library.dao;
 
 import com.github.himeraoo.library.jdbc.SessionManager;
 import com.github.himeraoo.library.jdbc.SessionManagerJDBC;
+import com.github.himeraoo.library.models.Author;
 import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.EntityVersion;
 import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Story;
@@ -13,16 +15,24 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static com.github.himeraoo.library.util.TestUtils.getAuthorWithoutBooks;
 import static com.github.himeraoo.library.util.TestUtils.getBook;
 import static com.github.himeraoo.library.util.TestUtils.getFullAuthor;
 import static com.github.himeraoo.library.util.TestUtils.getFullBook;
 import static com.github.himeraoo.library.util.TestUtils.getFullGenre;
+import static com.github.himeraoo.library.util.TestUtils.getGenre;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Epic(value = "Тестирование слоя DAO")
 @Feature(value = "Тестирование BookDAO")
@@ -74,6 +84,25 @@ class BookDAOImplTest extends BaseDAOTest {
                 "Размер полученного списка должен быть 6");
     }
 
+    @Test
+    @Order(2)
+    @DisplayName("Тест общих жанров и авторов в списке всех книг")
+    @Story(value = "Тестирование метода поиска всех элементов")
+    void findAllSharesEntities() throws SQLException {
+        List<Book> bookListFromBD = bookDAO.findAll();
+
+        //книги 5 и 6 жанра 5, автор 3 написал книги 1 и 2
+        Book book1 = findBook(bookListFromBD, 1);
+        Book book2 = findBook(bookListFromBD, 2);
+        Book book5 = findBook(bookListFromBD, 5);
+        Book book6 = findBook(bookListFromBD, 6);
+
+        Assertions.assertAll("Проверка общих объектов",
+                () -> assertSame(book5.getGenre(), book6.getGenre()),
+                () -> assertSame(findAuthor(book1, 3), findAuthor(book2, 3))
+        );
+    }
+
     @Test
     @Order(3)
     @DisplayName("Тест сохранения новой книги")
@@ -152,4 +181,161 @@ class BookDAOImplTest extends BaseDAOTest {
                         "Размер полученного списка должен быть 6")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(6)
+    @DisplayName("Тест постраничного поиска книг")
+    @Story(value = "Тестирование метода постраничного поиска")
+    void findAllPage() throws SQLException {
+        List<Book> firstPage = bookDAO.findAll(0, 4);
+        List<Book> secondPage = bookDAO.findAll(firstPage.get(firstPage.size() - 1).getId(), 4);
+
+        Assertions.assertAll("Проверка постраничного поиска",
+                () -> assertEquals(4, firstPage.size(),
+                        "Размер первой страницы должен быть 4"),
+                () -> assertEquals(1, firstPage.get(0).getId()),
+                () -> assertEquals(4, firstPage.get(3).getId()),
+                () -> assertEquals(2, secondPage.size(),
+                        "Размер второй страницы должен быть 2"),
+                () -> assertEquals(5, secondPage.get(0).getId()),
+                () -> assertEquals(6, secondPage.get(1).getId())
+        );
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Тест потоковой выдачи всех книг")
+    @Story(value = "Тестирование метода потоковой выдачи")
+    void streamAll() throws SQLException {
+        List<Book> bookListFromBD = bookDAO.findAll();
+        List<Book> streamedBookList = new ArrayList<>();
+
+        bookDAO.streamAll(streamedBookList::add);
+
+        Assertions.assertAll("Проверка потоковой выдачи книг",
+                () -> assertEquals(6, streamedBookList.size(),
+                        "Размер полученного списка должен быть 6"),
+                () -> assertEquals(bookListFromBD, streamedBookList),
+                () -> assertEquals(bookListFromBD.get(0).getAuthorList(), streamedBookList.get(0).getAuthorList())
+        );
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Тест пакетного сохранения книг")
+    @Story(value = "Тестирование метода пакетного сохранения")
+    void saveAll() throws SQLException {
+        //жанр и авторы передаются без id и должны быть найдены в БД по названию и имени
+        Book newBook = getBook(0, "import_book", getGenre(0, "genre1"), Arrays.asList(
+                getAuthorWithoutBooks(0, "author_name1", "author_surname1"),
+                getAuthorWithoutBooks(0, "author_name3", "author_surname3")));
+        Book existingBook = getBook(0, "book1", getGenre(0, "genre1"), Collections.emptyList());
+        Book repeatedBook = getBook(0, "import_book", getGenre(0, "genre5"), Collections.emptyList());
+
+        List<Integer> bookIds = bookDAO.saveAll(Arrays.asList(newBook, existingBook, repeatedBook));
+
+        Book bookDB = bookDAO.findById(bookIds.get(0)).get();
+        int rowsDeleted = bookDAO.deleteById(bookIds.get(0));
+
+        Assertions.assertAll("Проверка пакетного сохранения книг",
+                () -> assertEquals(3, bookIds.size()),
+                () -> assertEquals(-1, bookIds.get(1), "Книга с таким названием уже есть в БД"),
+                () -> assertEquals(-1, bookIds.get(2), "Название уже встречалось в пакете"),
+                () -> assertEquals(newBook, bookDB),
+                () -> assertEquals(1, bookDB.getGenre().getId()),
+                () -> assertEquals(Arrays.asList(1, 3), Arrays.asList(bookDB.getAuthorList().get(0).getId(), bookDB.getAuthorList().get(1).getId())),
+                () -> assertEquals(1, rowsDeleted)
+        );
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Тест отказа в сохранении и обновлении книги с занятым названием")
+    @Story(value = "Тестирование ограничений схемы")
+    void duplicateTitle() throws SQLException {
+        //книга book1 уже есть
+        Book bookBefore = bookDAO.findById(2).get();
+        int addedId = bookDAO.save(getBook(0, "book1", getFullGenre(2), Collections.emptyList()));
+        int rowUpdated = bookDAO.update(getBook(2, "book1", getFullGenre(2), Collections.singletonList(getFullAuthor(1))));
+
+        Book bookDB = bookDAO.findById(2).get();
+
+        Assertions.assertAll("Проверка уникальности названия книги",
+                () -> assertEquals(-1, addedId, "Книга с таким названием уже есть в БД"),
+                () -> assertEquals(-1, rowUpdated, "Название занято другой книгой"),
+                () -> assertEquals(bookBefore, bookDB),
+                () -> assertEquals(bookBefore.getAuthorList(), bookDB.getAuthorList()),
+                () -> assertEquals(6, bookDAO.findAll().size(),
+                        "Размер полученного списка должен быть 6")
+        );
+    }
+
+    @Test
+    @Order(10)
+    @DisplayName("Тест версии книги и списка книг при изменении связей с авторами")
+    @Story(value = "Тестирование версий для условного GET")
+    void versionTracksRelations() throws SQLException {
+        Book book = bookDAO.findById(3).get();
+        List<Author> authorsWithNew = new ArrayList<>(book.getAuthorList());
+        authorsWithNew.add(getAuthorWithoutBooks(4, "author_name4", "author_surname4"));
+
+        EntityVersion versionBefore = bookDAO.findVersionById(3).get();
+        EntityVersion versionRepeated = bookDAO.findVersionById(3).get();
+        EntityVersion listVersionBefore = bookDAO.findAllVersion();
+
+        bookDAO.update(getBook(3, book.getTitle(), book.getGenre(), authorsWithNew));
+        EntityVersion versionAdded = bookDAO.findVersionById(3).get();
+        EntityVersion listVersionAdded = bookDAO.findAllVersion();
+
+        //связь удаляется, книга возвращается к исходным авторам
+        bookDAO.update(getBook(3, book.getTitle(), book.getGenre(), book.getAuthorList()));
+        EntityVersion versionRemoved = bookDAO.findVersionById(3).get();
+
+        Assertions.assertAll("Проверка версий книги",
+                () -> assertEquals(versionBefore, versionRepeated, "Без изменений версия не меняется"),
+                () -> assertNotEquals(versionBefore.getTag(), versionAdded.getTag()),
+                () -> assertNotEquals(listVersionBefore.getTag(), listVersionAdded.getTag()),
+                () -> assertNotEquals(versionAdded.getTag(), versionRemoved.getTag()),
+                () -> assertNotEquals(versionBefore.getTag(), versionRemoved.getTag()),
+                () -> assertTrue(versionRemoved.getLastModified() >= versionBefore.getLastModified()),
+                () -> assertFalse(bookDAO.findVersionById(100).isPresent())
+        );
+    }
+
+    @Test
+    @Order(11)
+    @DisplayName("Тест сопоставления названий и имён без учёта регистра")
+    @Story(value = "Тестирование ограничений схемы")
+    void saveAllCaseVariants() throws SQLException {
+        //уникальные индексы не различают регистр, поэтому жанр, автор и книга должны найтись в БД
+        Book newBook = getBook(0, "import_case_book", getGenre(0, "GENRE1"), Arrays.asList(
+                getAuthorWithoutBooks(0, "AUTHOR_NAME1", "AUTHOR_SURNAME1"),
+                getAuthorWithoutBooks(0, "author_name1", "author_surname1")));
+        Book existingBook = getBook(0, "BOOK1", getGenre(0, "genre1"), Collections.emptyList());
+        Book repeatedBook = getBook(0, "IMPORT_CASE_BOOK", getGenre(0, "genre1"), Collections.emptyList());
+
+        List<Integer> bookIds = bookDAO.saveAll(Arrays.asList(newBook, existingBook, repeatedBook));
+
+        Book bookDB = bookDAO.findById(bookIds.get(0)).get();
+        int rowsDeleted = bookDAO.deleteById(bookIds.get(0));
+
+        Assertions.assertAll("Проверка сохранения книг с названиями в другом регистре",
+                () -> assertEquals(-1, bookIds.get(1), "Книга с таким названием уже есть в БД"),
+                () -> assertEquals(-1, bookIds.get(2), "Название уже встречалось в пакете"),
+                () -> assertEquals(1, bookDB.getGenre().getId()),
+                () -> assertEquals(1, bookDB.getAuthorList().size()),
+                () -> assertEquals(1, bookDB.getAuthorList().get(0).getId()),
+                () -> assertEquals(1, rowsDeleted),
+                () -> assertEquals(6, bookDAO.findAll().size(),
+                        "Размер полученного списка должен быть 6")
+        );
+    }
+
+    private static Book findBook(List<Book> bookList, int bookId) {
+        return bookList.stream().filter(b -> b.getId() == bookId).findFirst().orElseThrow(AssertionError::new);
+    }
+
+    private static Author findAuthor(Book book, int authorId) {
+        return book.getAuthorList().stream().filter(a -> a.getId() == authorId).findFirst().orElseThrow(AssertionError::new);
+    }
+}
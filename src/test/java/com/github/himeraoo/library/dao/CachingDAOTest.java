@@ -0,0 +1,213 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.cache.CacheConfig;
+import com.github.himeraoo.library.cache.EntityCaches;
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.EntityVersion;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.github.himeraoo.library.util.TestUtils.getAuthorWithoutBooks;
+import static com.github.himeraoo.library.util.TestUtils.getBookWithoutAuthors;
+import static com.github.himeraoo.library.util.TestUtils.getFullAuthor;
+import static com.github.himeraoo.library.util.TestUtils.getFullBook;
+import static com.github.himeraoo.library.util.TestUtils.getFullGenre;
+import static com.github.himeraoo.library.util.TestUtils.getGenre;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.lenient;
+
+@Epic(value = "Тестирование кэша сущностей")
+@Feature(value = "Тестирование кэширующих DAO")
+@ExtendWith(MockitoExtension.class)
+class CachingDAOTest {
+
+    @Mock
+    private BookDAO bookDAO;
+    @Mock
+    private AuthorDAO authorDAO;
+    @Mock
+    private GenreDAO genreDAO;
+
+    private EntityCaches caches;
+    private CachingBookDAO cachingBookDAO;
+    private CachingAuthorDAO cachingAuthorDAO;
+    private CachingGenreDAO cachingGenreDAO;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        caches = new EntityCaches(new CacheConfig());
+        cachingBookDAO = new CachingBookDAO(bookDAO, caches);
+        cachingAuthorDAO = new CachingAuthorDAO(authorDAO, caches);
+        cachingGenreDAO = new CachingGenreDAO(genreDAO, caches);
+
+        //автор 1 пишет книги 1 и 5, книга 1 жанра 1
+        lenient().when(bookDAO.findById(1)).thenReturn(Optional.of(getFullBook(1)));
+        lenient().when(authorDAO.findById(1)).thenReturn(Optional.of(getFullAuthor(1)));
+        lenient().when(genreDAO.findById(1)).thenReturn(Optional.of(getFullGenre(1)));
+    }
+
+    @Test
+    @DisplayName("Тест чтения книги через кэш")
+    @Story(value = "Тестирование чтения")
+    void findByIdCached() throws SQLException {
+        cachingBookDAO.findById(1);
+        cachingBookDAO.findById(1);
+
+        Mockito.verify(bookDAO, Mockito.times(1)).findById(1);
+        assertEquals(1, caches.books().getHitCount());
+    }
+
+    @Test
+    @DisplayName("Тест чтения книги с версией, пока кэш ещё не инвалидирован после изменения")
+    @Story(value = "Тестирование чтения")
+    void findByIdWithVersionDuringUpdate() throws Exception {
+        //состояние книги в БД: до update - v1 и книга 1, после фиксации update - v2 и new_title
+        AtomicBoolean updated = new AtomicBoolean();
+        EntityVersion oldVersion = new EntityVersion("v1", 1_700_000_000_000L);
+        EntityVersion newVersion = new EntityVersion("v2", 1_700_000_001_000L);
+        Mockito.when(bookDAO.findVersionById(1)).thenAnswer(invocation -> Optional.of(updated.get() ? newVersion : oldVersion));
+        Mockito.when(bookDAO.findById(1)).thenAnswer(invocation -> Optional.of(updated.get() ? getFullBook(1, "new_title") : getFullBook(1)));
+        cachingBookDAO.findById(1, cachingBookDAO.findVersionById(1).orElse(null));
+
+        //изменение зафиксировано в БД, но update ещё не вернулся, и запись кэша не инвалидирована
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch read = new CountDownLatch(1);
+        Mockito.when(bookDAO.update(Mockito.any(Book.class))).thenAnswer(invocation -> {
+            updated.set(true);
+            committed.countDown();
+            read.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+        Thread update = new Thread(() -> {
+            try {
+                cachingBookDAO.update(getFullBook(1, "new_title"));
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+        update.start();
+        committed.await(5, TimeUnit.SECONDS);
+
+        EntityVersion version = cachingBookDAO.findVersionById(1).orElse(null);
+        Optional<Book> book = cachingBookDAO.findById(1, version);
+        read.countDown();
+        update.join();
+
+        Assertions.assertAll("Проверка чтения",
+                () -> assertEquals(newVersion, version),
+                () -> assertEquals("new_title", book.get().getTitle(),
+                        "С новой версией не должна отдаваться книга из кэша, загруженная до изменения"),
+                () -> Mockito.verify(bookDAO, Mockito.times(2)).findById(1)
+        );
+    }
+
+    @Test
+    @DisplayName("Тест инвалидации книги и её авторов при обновлении книги")
+    @Story(value = "Тестирование инвалидации")
+    void updateBookInvalidatesAuthors() throws SQLException {
+        cachingBookDAO.findById(1);
+        cachingAuthorDAO.findById(1);
+
+        Book book = getFullBook(1, "new_title");
+        book.setAuthorList(Collections.emptyList());
+        cachingBookDAO.update(book);
+
+        Assertions.assertAll("Проверка инвалидации",
+                () -> assertEquals(0, caches.books().size()),
+                () -> assertEquals(0, caches.authors().size(),
+                        "Автор, у которого в списке есть книга 1, должен быть удалён из кэша")
+        );
+    }
+
+    @Test
+    @DisplayName("Тест инвалидации автора, который становится автором новой книги")
+    @Story(value = "Тестирование инвалидации")
+    void saveBookInvalidatesNewAuthors() throws SQLException {
+        Author author = getFullAuthor(2, "author_name2", "author_surname2");
+        author.setBookList(Collections.emptyList());
+        Mockito.when(authorDAO.findById(2)).thenReturn(Optional.of(author));
+        cachingAuthorDAO.findById(1);
+        cachingAuthorDAO.findById(2);
+
+        Book book = getFullBook(0, "new_book");
+        book.setAuthorList(Collections.singletonList(getAuthorWithoutBooks(0, "author_name2", "author_surname2")));
+        cachingBookDAO.save(book);
+
+        Assertions.assertAll("Проверка инвалидации",
+                () -> assertEquals(1, caches.authors().size()),
+                () -> assertEquals(1, caches.authors().getInvalidationCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест инвалидации книги, с которой автор связывается по названию под другим жанром")
+    @Story(value = "Тестирование инвалидации")
+    void saveAuthorInvalidatesBookOfAnotherGenre() throws SQLException {
+        cachingBookDAO.findById(1);
+
+        Author author = getAuthorWithoutBooks(0, "new_author_name", "new_author_surname");
+        author.setBookList(Collections.singletonList(getBookWithoutAuthors(0, "book1", getGenre(2, "genre2"))));
+        cachingAuthorDAO.save(author);
+
+        assertEquals(0, caches.books().size(),
+                "Книга 1 связывается с автором по названию и должна быть удалена из кэша");
+    }
+
+    @Test
+    @DisplayName("Тест инвалидации книг при удалении автора")
+    @Story(value = "Тестирование инвалидации")
+    void deleteAuthorInvalidatesBooks() throws SQLException {
+        cachingBookDAO.findById(1);
+        cachingAuthorDAO.findById(1);
+
+        cachingAuthorDAO.deleteById(1);
+
+        assertEquals(0, caches.books().size());
+        assertEquals(0, caches.authors().size());
+    }
+
+    @Test
+    @DisplayName("Тест инвалидации книг и авторов при изменении жанра")
+    @Story(value = "Тестирование инвалидации")
+    void updateGenreInvalidatesBooksAndAuthors() throws SQLException {
+        cachingBookDAO.findById(1);
+        cachingAuthorDAO.findById(1);
+        cachingGenreDAO.findById(1);
+
+        cachingGenreDAO.update(getFullGenre(1, "new_genre"));
+
+        Assertions.assertAll("Проверка инвалидации",
+                () -> assertEquals(0, caches.genres().size()),
+                () -> assertEquals(0, caches.books().size()),
+                () -> assertEquals(0, caches.authors().size())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест инвалидации при ошибке записи")
+    @Story(value = "Тестирование инвалидации")
+    void invalidateOnFailedWrite() throws SQLException {
+        cachingBookDAO.findById(1);
+        Mockito.when(bookDAO.deleteById(1)).thenThrow(new SQLException("error"));
+
+        Assertions.assertThrows(SQLException.class, () -> cachingBookDAO.deleteById(1));
+        assertEquals(0, caches.books().size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.jdbc.SessionManager;
+import com.github.himeraoo.library.jdbc.SessionManagerJDBC;
+import com.github.himeraoo.library.models.Author;
+import com.github.himeraoo.library.models.Book;
+import com.github.himeraoo.library.models.Genre;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Epic(value = "Тестирование слоя DAO")
+@Feature(value = "Тестирование ExportDAO")
+class ExportDAOImplTest extends BaseDAOTest {
+
+    private SessionManager sessionManager;
+    private ExportDAO exportDAO;
+
+    @BeforeEach
+    void setUp() {
+        sessionManager = new SessionManagerJDBC(
+                mySQLContainer.getJdbcUrl(),
+                mySQLContainer.getUsername(),
+                mySQLContainer.getPassword(),
+                mySQLContainer.getDriverClassName()
+        );
+
+        exportDAO = new ExportDAOImpl(sessionManager);
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Тест выгрузки всего каталога")
+    @Story(value = "Тестирование метода выгрузки")
+    void exportSnapshot() throws SQLException {
+        List<Genre> genreList = new ArrayList<>();
+        List<Author> authorList = new ArrayList<>();
+        List<Book> bookList = new ArrayList<>();
+
+        exportDAO.exportSnapshot(genreList::add, authorList::add, bookList::add);
+
+        List<Genre> genreListFromBD = new GenreDAOImpl(sessionManager).findAll();
+        List<Author> authorListFromBD = new AuthorDAOImpl(sessionManager).findAll();
+        List<Book> bookListFromBD = new BookDAOImpl(sessionManager).findAll();
+
+        Assertions.assertAll("Проверка выгрузки каталога",
+                () -> assertEquals(genreListFromBD, genreList),
+                () -> assertEquals(authorListFromBD, authorList),
+                () -> assertEquals(bookListFromBD, bookList),
+                () -> assertEquals(bookListFromBD.get(0).getAuthorList(), bookList.get(0).getAuthorList()),
+                () -> assertEquals(authorListFromBD.get(0).getBookList(), authorList.get(0).getBookList())
+        );
+    }
+}
@@ -144,4 +144,46 @@ class GenreDAOImplTest extends BaseDAOTest {
                         "Размер конечного списка должен быть 6")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(6)
+    @DisplayName("Тест постраничного поиска жанров")
+    @Story(value = "Тестирование метода постраничного поиска")
+    void findAllPage() throws SQLException {
+        List<Genre> firstPage = genreDAO.findAll(0, 4);
+        List<Genre> secondPage = genreDAO.findAll(firstPage.get(firstPage.size() - 1).getId(), 4);
+
+        Assertions.assertAll("Проверка постраничного поиска",
+                () -> assertEquals(4, firstPage.size(),
+                        "Размер первой страницы должен быть 4"),
+                () -> assertEquals(1, firstPage.get(0).getId()),
+                () -> assertEquals(4, firstPage.get(3).getId()),
+                () -> assertEquals(2, secondPage.size(),
+                        "Размер второй страницы должен быть 2"),
+                () -> assertEquals(5, secondPage.get(0).getId()),
+                () -> assertEquals(6, secondPage.get(1).getId())
+        );
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Тест отказа в сохранении и удалении жанра по ограничениям БД")
+    @Story(value = "Тестирование ограничений схемы")
+    void constraintViolations() throws SQLException {
+        //жанр genre1 уже есть, у жанра 1 есть книги
+        int addedId = genreDAO.save(getGenre(0, "genre1"));
+        int rowUpdated = genreDAO.update(getGenre(2, "genre1"));
+        int rowDeleted = genreDAO.deleteById(1);
+
+        List<Genre> genreListFromBD = genreDAO.findAll();
+
+        Assertions.assertAll("Проверка ограничений жанров",
+                () -> assertEquals(-1, addedId, "Жанр с таким названием уже есть в БД"),
+                () -> assertEquals(-1, rowUpdated, "Название занято другим жанром"),
+                () -> assertEquals(-1, rowDeleted, "У жанра есть книги"),
+                () -> assertEquals(6, genreListFromBD.size(),
+                        "Размер полученного списка должен быть 6"),
+                () -> assertEquals("genre2", genreDAO.findById(2).get().getName())
+        );
+    }
+}
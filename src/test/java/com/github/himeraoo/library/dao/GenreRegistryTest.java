@@ -0,0 +1,141 @@
+package com.github.himeraoo.library.dao;
+
+import com.github.himeraoo.library.models.Genre;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Epic(value = "Тестирование слоя DAO")
+@Feature(value = "Тестирование GenreRegistry")
+class GenreRegistryTest {
+
+    private Connection connection;
+    private ResultSet genres;
+    private GenreRegistry genreRegistry;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = Mockito.mock(Connection.class);
+        PreparedStatement pst = Mockito.mock(PreparedStatement.class);
+        genres = Mockito.mock(ResultSet.class);
+
+        lenient().when(connection.prepareStatement(anyString())).thenReturn(pst);
+        lenient().when(pst.executeQuery()).thenReturn(genres);
+        lenient().when(genres.next()).thenReturn(true, true, false);
+        lenient().when(genres.getInt("id")).thenReturn(1, 2);
+        lenient().when(genres.getString("name")).thenReturn("genre1", "genre2");
+
+        genreRegistry = new GenreRegistry();
+    }
+
+    @Test
+    @DisplayName("Тест однократной загрузки справочника")
+    @Story(value = "Тестирование поиска жанра")
+    void loadOnce() throws SQLException {
+        Integer genre1 = genreRegistry.findId("genre1", connection);
+        Integer genre2 = genreRegistry.findId("genre2", connection);
+        Integer unknown = genreRegistry.findId("genre3", connection);
+
+        Assertions.assertAll("Проверка поиска жанра",
+                () -> assertEquals(1, genre1),
+                () -> assertEquals(2, genre2),
+                () -> assertNull(unknown),
+                () -> verify(connection, times(1)).prepareStatement(anyString())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест изменения справочника без повторной загрузки")
+    @Story(value = "Тестирование изменения справочника")
+    void changeWithoutReload() throws SQLException {
+        genreRegistry.findId("genre1", connection);
+
+        genreRegistry.register(2, "genre2_upd");
+        genreRegistry.remove(1);
+        genreRegistry.registerAll(Collections.singletonList(genre(7, "genre7")), genreRegistry.version());
+
+        Assertions.assertAll("Проверка изменения справочника",
+                () -> assertNull(genreRegistry.findId("genre1", connection)),
+                () -> assertNull(genreRegistry.findId("genre2", connection)),
+                () -> assertEquals(2, genreRegistry.findId("genre2_upd", connection)),
+                () -> assertEquals(7, genreRegistry.findId("genre7", connection)),
+                () -> verify(connection, times(1)).prepareStatement(anyString())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест повторной загрузки после сброса")
+    @Story(value = "Тестирование изменения справочника")
+    void reloadAfterInvalidate() throws SQLException {
+        genreRegistry.findId("genre1", connection);
+        genreRegistry.invalidate();
+        Mockito.when(genres.next()).thenReturn(true, false);
+        Mockito.when(genres.getInt("id")).thenReturn(2);
+        Mockito.when(genres.getString("name")).thenReturn("genre2");
+
+        Assertions.assertAll("Проверка повторной загрузки",
+                () -> assertNull(genreRegistry.findId("genre1", connection)),
+                () -> assertEquals(2, genreRegistry.findId("genre2", connection)),
+                () -> verify(connection, times(2)).prepareStatement(anyString())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест публикации жанров операции, во время которой жанр переименован")
+    @Story(value = "Тестирование изменения справочника")
+    void skipRegisterAllAfterConcurrentRename() throws SQLException {
+        //операция начинается и находит жанр genre1 в справочнике
+        long operationVersion = genreRegistry.version();
+        Integer genreId = genreRegistry.findId("genre1", connection);
+        //до фиксации операции другой запрос переименовывает этот жанр
+        genreRegistry.register(1, "genre1_upd");
+        //операция фиксируется и публикует жанр со старым названием
+        genreRegistry.registerAll(Collections.singletonList(genre(genreId, "genre1")), operationVersion);
+
+        Assertions.assertAll("Проверка справочника после переименования",
+                () -> assertNull(genreRegistry.findId("genre1", connection)),
+                () -> assertEquals(1, genreRegistry.findId("genre1_upd", connection)),
+                () -> verify(connection, times(1)).prepareStatement(anyString())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест поиска жанра без учёта регистра")
+    @Story(value = "Тестирование поиска жанра")
+    void findIgnoringCase() throws SQLException {
+        Genre genre = genreRegistry.find("GENRE1", connection);
+        genreRegistry.register(2, "Genre2_upd");
+
+        Assertions.assertAll("Проверка поиска жанра в другом регистре",
+                () -> assertEquals(1, genre.getId()),
+                () -> assertEquals("genre1", genre.getName(), "Название берётся из справочника"),
+                () -> assertEquals(2, genreRegistry.findId("genre2_UPD", connection)),
+                () -> assertNull(genreRegistry.findId("genre2", connection))
+        );
+    }
+
+    private static Genre genre(int id, String name) {
+        Genre genre = new Genre();
+        genre.setId(id);
+        genre.setName(name);
+        return genre;
+    }
+}
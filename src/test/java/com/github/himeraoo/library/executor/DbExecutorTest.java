@@ -0,0 +1,93 @@
+package com.github.himeraoo.library.executor;
+
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Epic(value = "Тестирование исполнителя запросов к БД")
+@Feature(value = "Тестирование DbExecutor")
+class DbExecutorTest {
+
+    private DbExecutor dbExecutor;
+
+    @BeforeEach
+    void setUp() {
+        DbExecutorConfig config = new DbExecutorConfig();
+        config.setThreads(1);
+        config.setQueueSize(1);
+        dbExecutor = new DbExecutor(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Тест отказа при заполненной очереди")
+    @Story(value = "Тестирование ограничения числа задач")
+    void rejectWhenSaturated() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        };
+
+        dbExecutor.execute(blocking);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        dbExecutor.execute(finished::countDown);
+
+        int activeCount = dbExecutor.getActiveCount();
+        int queuedCount = dbExecutor.getQueuedCount();
+        assertThrows(RejectedExecutionException.class, () -> dbExecutor.execute(() -> {
+        }));
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        Assertions.assertAll("Проверка ограничения числа задач",
+                () -> assertEquals(1, activeCount),
+                () -> assertEquals(1, queuedCount),
+                () -> assertEquals(2, dbExecutor.getSubmittedCount()),
+                () -> assertEquals(1, dbExecutor.getRejectedCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест приёма задач после освобождения места")
+    @Story(value = "Тестирование ограничения числа задач")
+    void acceptAfterCompletion() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            CountDownLatch done = new CountDownLatch(1);
+            dbExecutor.execute(done::countDown);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+        dbExecutor.shutdown();
+
+        Assertions.assertAll("Проверка приёма задач",
+                () -> assertEquals(5, dbExecutor.getSubmittedCount()),
+                () -> assertEquals(5, dbExecutor.getCompletedCount()),
+                () -> assertEquals(0, dbExecutor.getRejectedCount()),
+                () -> assertEquals(0, dbExecutor.getQueuedCount())
+        );
+    }
+}
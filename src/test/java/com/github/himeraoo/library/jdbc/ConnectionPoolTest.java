@@ -0,0 +1,216 @@
+package com.github.himeraoo.library.jdbc;
+
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@Epic(value = "Тестирование слоя JDBC")
+@Feature(value = "Тестирование ConnectionPool")
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:pooltest:library";
+    private static final StubDriver DRIVER = new StubDriver();
+
+    private ConnectionPool pool;
+
+    @BeforeAll
+    static void registerDriver() throws SQLException {
+        DriverManager.registerDriver(DRIVER);
+    }
+
+    @AfterAll
+    static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(DRIVER);
+    }
+
+    @BeforeEach
+    void setUp() {
+        DRIVER.created.clear();
+        PoolConfig config = new PoolConfig();
+        config.setMaxPoolSize(2);
+        config.setMinIdle(0);
+        config.setConnectionTimeoutMs(200);
+        config.setValidationWindowMs(60_000);
+        config.setLeakDetectionThresholdMs(0);
+        pool = new ConnectionPool(URL, "user", "password", config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Тест повторного использования соединения")
+    @Story(value = "Тестирование выдачи соединений")
+    void reuseConnection() throws SQLException {
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+
+        Assertions.assertAll("Проверка повторного использования соединения",
+                () -> assertTrue(first.isClosed()),
+                () -> assertFalse(second.isClosed()),
+                () -> assertEquals(1, DRIVER.created.size(), "Должно быть создано одно физическое соединение"),
+                () -> assertEquals(1, pool.getTotalConnections())
+        );
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Тест пропуска проверки соединения в пределах окна")
+    @Story(value = "Тестирование проверки соединений")
+    void skipValidationWithinWindow() throws SQLException {
+        pool.getConnection().close();
+        pool.getConnection().close();
+        pool.getConnection().close();
+
+        Assertions.assertAll("Проверка счётчиков проверок",
+                () -> assertEquals(2, pool.getValidationsSkipped()),
+                () -> assertEquals(0, pool.getValidationsPerformed()),
+                () -> Mockito.verify(DRIVER.created.get(0), Mockito.never()).isValid(anyInt())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест замены соединения, не прошедшего проверку")
+    @Story(value = "Тестирование проверки соединений")
+    void replaceInvalidConnection() throws SQLException {
+        pool.getConfig().setValidationWindowMs(0);
+        pool.getConnection().close();
+        Mockito.when(DRIVER.created.get(0).isValid(anyInt())).thenReturn(false);
+
+        Connection connection = pool.getConnection();
+
+        Assertions.assertAll("Проверка замены соединения",
+                () -> assertEquals(1, pool.getValidationsPerformed()),
+                () -> assertEquals(1, pool.getValidationsFailed()),
+                () -> assertEquals(2, DRIVER.created.size()),
+                () -> assertEquals(1, pool.getTotalConnections())
+        );
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Тест отката незавершённой транзакции при возврате соединения")
+    @Story(value = "Тестирование возврата соединений")
+    void rollbackOnRelease() throws SQLException {
+        Connection connection = pool.getConnection();
+        Connection physical = DRIVER.created.get(0);
+        Mockito.when(physical.getAutoCommit()).thenReturn(false);
+
+        connection.close();
+
+        Mockito.verify(physical, Mockito.times(1)).rollback();
+        Mockito.verify(physical, Mockito.times(1)).setAutoCommit(true);
+    }
+
+    @Test
+    @DisplayName("Тест кэша подготовленных запросов между выдачами соединения")
+    @Story(value = "Тестирование кэша запросов")
+    void reuseStatementAcrossBorrows() throws SQLException {
+        Connection connection = pool.getConnection();
+        Connection physical = DRIVER.created.get(0);
+        Mockito.when(physical.prepareStatement(anyString(), anyInt())).thenReturn(Mockito.mock(PreparedStatement.class));
+
+        ((StatementCachingConnection) connection).prepareCached("key", "select 1", Statement.NO_GENERATED_KEYS).close();
+        connection.close();
+        connection = pool.getConnection();
+        ((StatementCachingConnection) connection).prepareCached("key", "select 1", Statement.NO_GENERATED_KEYS).close();
+        connection.close();
+
+        Assertions.assertAll("Проверка счётчиков кэша запросов",
+                () -> assertEquals(1, pool.getStatementCacheHits()),
+                () -> assertEquals(1, pool.getStatementCacheMisses()),
+                () -> Mockito.verify(physical, Mockito.times(1)).prepareStatement(anyString(), anyInt())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест ошибки ожидания свободного соединения")
+    @Story(value = "Тестирование выдачи соединений")
+    void borrowTimeout() throws SQLException {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        Assertions.assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+
+        first.close();
+        second.close();
+    }
+
+    public static class StubDriver implements Driver {
+
+        private final List<Connection> created = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = Mockito.mock(Connection.class);
+            Mockito.when(connection.getAutoCommit()).thenReturn(true);
+            Mockito.when(connection.isValid(anyInt())).thenReturn(true);
+            created.add(connection);
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:pooltest:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
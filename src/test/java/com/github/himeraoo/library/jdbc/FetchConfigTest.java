@@ -0,0 +1,63 @@
+package com.github.himeraoo.library.jdbc;
+
+import com.github.himeraoo.library.dao.SQLQuery;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Epic(value = "Тестирование слоя JDBC")
+@Feature(value = "Тестирование FetchConfig")
+class FetchConfigTest {
+
+    @Test
+    @DisplayName("Тест чтения стратегий из настроек")
+    @Story(value = "Тестирование настроек")
+    void fromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("fetchSize", "250");
+        properties.setProperty("fetchStrategy.QUERY_BookFindAll", "cursor");
+
+        FetchConfig config = FetchConfig.fromProperties(properties);
+
+        Assertions.assertAll("Проверка настроек",
+                () -> assertEquals(250, config.getFetchSize()),
+                () -> assertEquals(FetchStrategy.CURSOR, config.strategyFor("QUERY_BookFindAll", FetchStrategy.STREAMING)),
+                () -> assertEquals(FetchStrategy.STREAMING, config.strategyFor("QUERY_AuthorFindAll", FetchStrategy.STREAMING)),
+                () -> Assertions.assertThrows(IllegalArgumentException.class, () -> config.setFetchSize(0))
+        );
+    }
+
+    @Test
+    @DisplayName("Тест применения стратегии к запросу")
+    @Story(value = "Тестирование стратегий")
+    void prepare() throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        PreparedStatement pst = Mockito.mock(PreparedStatement.class);
+        Mockito.when(connection.prepareStatement(Mockito.anyString(), Mockito.eq(ResultSet.TYPE_FORWARD_ONLY), Mockito.eq(ResultSet.CONCUR_READ_ONLY))).thenReturn(pst);
+        FetchConfig config = new FetchConfig();
+        config.setFetchSize(500);
+        config.setStrategy("QUERY_GenreFindAll", FetchStrategy.CURSOR);
+
+        SQLQuery.QUERY_BookFindAll.prepare(connection, config);
+        SQLQuery.QUERY_GenreFindAll.prepare(connection, config);
+        SQLQuery.QUERY_BookFindPage.prepare(connection, config);
+
+        //полная выборка книг - поток по умолчанию, жанры - курсор из настроек, страница - буфер драйвера
+        Mockito.verify(pst, Mockito.times(1)).setFetchSize(Integer.MIN_VALUE);
+        Mockito.verify(pst, Mockito.times(1)).setFetchSize(500);
+        Mockito.verify(pst, Mockito.times(1)).setFetchSize(0);
+        Mockito.verify(pst, Mockito.times(3)).setFetchSize(Mockito.anyInt());
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.himeraoo.library.jdbc;
+
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Epic(value = "Тестирование слоя JDBC")
+@Feature(value = "Тестирование InstrumentedConnection")
+class InstrumentedConnectionTest {
+
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private QueryListener listener;
+    private Connection pooled;
+    private StatementCachingConnection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pooled = Mockito.mock(Connection.class, Mockito.withSettings().extraInterfaces(StatementCachingConnection.class));
+        statement = Mockito.mock(PreparedStatement.class);
+        resultSet = Mockito.mock(ResultSet.class);
+        listener = Mockito.mock(QueryListener.class);
+
+        lenient().when(((StatementCachingConnection) pooled).prepareCached(Mockito.any(), anyString(), Mockito.anyInt())).thenReturn(statement);
+        lenient().when(((StatementCachingConnection) pooled).prepareUncached(Mockito.any(), anyString())).thenReturn(statement);
+        lenient().when(pooled.prepareStatement(anyString())).thenReturn(statement);
+        lenient().when(statement.executeQuery()).thenReturn(resultSet);
+        lenient().when(resultSet.next()).thenReturn(true, true, false);
+
+        connection = (StatementCachingConnection) InstrumentedConnection.wrap(pooled, listener, 0);
+    }
+
+    @Test
+    @DisplayName("Тест замера запроса с результатом")
+    @Story(value = "Тестирование замера запросов")
+    void query() throws SQLException {
+        try (PreparedStatement pst = connection.prepareCached("QUERY_GenreFindAll", "select id, name from genre", Statement.NO_GENERATED_KEYS);
+             ResultSet rs = pst.executeQuery()) {
+            while (rs.next()) {
+                verify(listener, never()).onQuery(anyString(), anyLong(), anyLong(), anyBoolean());
+            }
+        }
+
+        Assertions.assertAll("Проверка замера запроса",
+                () -> verify(listener).onQuery(eq("QUERY_GenreFindAll"), anyLong(), eq(2L), eq(false)),
+                () -> verify(resultSet).close(),
+                () -> verify(statement).close()
+        );
+    }
+
+    @Test
+    @DisplayName("Тест замера изменения и ошибки")
+    @Story(value = "Тестирование замера запросов")
+    void updateAndFailure() throws SQLException {
+        Mockito.when(statement.executeUpdate()).thenReturn(1).thenThrow(new SQLException("Duplicate entry"));
+        Mockito.when(statement.executeBatch()).thenReturn(new int[]{1, 1, Statement.SUCCESS_NO_INFO});
+
+        PreparedStatement pst = connection.prepareUncached("QUERY_GenreSave", "insert into genre (name) VALUES (?)");
+        pst.executeUpdate();
+        pst.executeBatch();
+        assertThrows(SQLException.class, pst::executeUpdate);
+        ((Connection) connection).prepareStatement("select 1").executeQuery().close();
+
+        Assertions.assertAll("Проверка замера изменения",
+                () -> verify(listener).onQuery(eq("QUERY_GenreSave"), anyLong(), eq(1L), eq(false)),
+                () -> verify(listener).onQuery(eq("QUERY_GenreSave"), anyLong(), eq(2L), eq(false)),
+                () -> verify(listener).onQuery(eq("QUERY_GenreSave"), anyLong(), eq(0L), eq(true)),
+                () -> verify(listener).onQuery(eq(InstrumentedConnection.UNNAMED), anyLong(), anyLong(), anyBoolean())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест подсчёта обращений к БД за операцию")
+    @Story(value = "Тестирование журнала медленных запросов")
+    void operationRoundTrips() throws SQLException {
+        //порог в 1 нс: каждый запрос и операция попадают в журнал медленных запросов
+        Connection session = InstrumentedConnection.wrap(pooled, listener, 1);
+        Mockito.when(statement.executeBatch()).thenReturn(new int[]{1, 1});
+
+        try (Connection connection = session) {
+            PreparedStatement pst = ((StatementCachingConnection) connection).prepareCached("QUERY_AddRelationAuthorsBooks",
+                    "insert into authors_books (author_id, book_id) values (?, ?)", Statement.NO_GENERATED_KEYS);
+            pst.setInt(1, 1);
+            pst.setInt(2, 2);
+            pst.addBatch();
+            pst.setInt(1, 1);
+            pst.setInt(2, 3);
+            pst.addBatch();
+            pst.executeBatch();
+            pst.executeQuery().close();
+            pst.close();
+            connection.commit();
+        }
+        session.close();
+
+        Assertions.assertAll("Проверка обращений к БД",
+                () -> verify(listener).onQuery(eq("QUERY_AddRelationAuthorsBooks"), anyLong(), eq(2L), eq(false)),
+                () -> verify(listener).onQuery(eq("QUERY_AddRelationAuthorsBooks"), anyLong(), eq(0L), eq(false)),
+                () -> verify(listener, times(1)).onOperation(eq(3), anyLong()),
+                () -> verify(pooled).commit()
+        );
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.himeraoo.library.jdbc;
+
+import com.github.himeraoo.library.exception.SessionManagerException;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Epic(value = "Тестирование слоя JDBC")
+@Feature(value = "Тестирование SchemaMigrator")
+class SchemaMigratorTest {
+
+    private final SchemaMigrator.Migration first = SchemaMigrator.Migration.of("V1__create_tables.sql",
+            "-- таблица\nCREATE TABLE a (\n    id INT);\n\nCREATE TABLE b (id INT);\n");
+    private final SchemaMigrator.Migration second = SchemaMigrator.Migration.of("V2__add_indexes.sql",
+            "ALTER TABLE a ADD KEY idx_a (id);\n");
+    private final SchemaMigrator.Migration checked = SchemaMigrator.Migration.of("V2__add_unique.sql",
+            "-- check: повторы\nSELECT name FROM a GROUP BY name HAVING COUNT(*) > 1;\n\nALTER TABLE a ADD UNIQUE KEY uq_a (name);\n");
+
+    private Connection connection;
+    private PreparedStatement versionQuery;
+    private ResultSet versions;
+    private Statement statement;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = Mockito.mock(Connection.class);
+        versionQuery = Mockito.mock(PreparedStatement.class);
+        versions = Mockito.mock(ResultSet.class);
+        statement = Mockito.mock(Statement.class);
+        ResultSet lockResult = Mockito.mock(ResultSet.class);
+        PreparedStatement other = Mockito.mock(PreparedStatement.class);
+
+        lenient().when(connection.prepareStatement(anyString())).thenReturn(other);
+        lenient().when(connection.prepareStatement(startsWith("select version"))).thenReturn(versionQuery);
+        lenient().when(connection.createStatement()).thenReturn(statement);
+        lenient().when(versionQuery.executeQuery()).thenReturn(versions);
+        lenient().when(other.executeQuery()).thenReturn(lockResult);
+        lenient().when(lockResult.next()).thenReturn(true);
+        lenient().when(lockResult.getInt(1)).thenReturn(1);
+    }
+
+    @Test
+    @DisplayName("Тест запуска на актуальной схеме")
+    @Story(value = "Тестирование применения скриптов")
+    void skipWhenCurrent() throws SQLException {
+        Mockito.when(versions.next()).thenReturn(true, true, false);
+        Mockito.when(versions.getInt(1)).thenReturn(1, 2);
+        Mockito.when(versions.getLong(2)).thenReturn(first.checksum, second.checksum);
+
+        new SchemaMigrator(Arrays.asList(second, first)).migrate(connection);
+
+        verify(connection, times(1)).prepareStatement(anyString());
+        verify(connection, never()).createStatement();
+    }
+
+    @Test
+    @DisplayName("Тест применения недостающих скриптов")
+    @Story(value = "Тестирование применения скриптов")
+    void applyPending() throws SQLException {
+        Mockito.when(versions.next()).thenReturn(true, false, true, false);
+        Mockito.when(versions.getInt(1)).thenReturn(1);
+        Mockito.when(versions.getLong(2)).thenReturn(first.checksum);
+
+        new SchemaMigrator(Arrays.asList(first, second)).migrate(connection);
+
+        List<String> statements = first.statements();
+        Assertions.assertAll("Проверка применения скриптов",
+                () -> assertEquals(Arrays.asList("CREATE TABLE a (\n    id INT)", "CREATE TABLE b (id INT)"), statements),
+                () -> verify(statement, never()).execute(statements.get(0)),
+                () -> verify(statement).execute("ALTER TABLE a ADD KEY idx_a (id)"),
+                () -> verify(connection).prepareStatement(startsWith("insert into schema_version")),
+                () -> verify(connection).prepareStatement("select release_lock(?)")
+        );
+    }
+
+    @Test
+    @DisplayName("Тест изменённого после применения скрипта")
+    @Story(value = "Тестирование контрольных сумм")
+    void rejectChangedScript() throws SQLException {
+        Mockito.when(versions.next()).thenReturn(true, false);
+        Mockito.when(versions.getInt(1)).thenReturn(1);
+        Mockito.when(versions.getLong(2)).thenReturn(first.checksum + 1);
+
+        SchemaMigrator migrator = new SchemaMigrator(Arrays.asList(first, second));
+
+        assertThrows(SessionManagerException.class, () -> migrator.migrate(connection));
+        verify(connection, never()).createStatement();
+    }
+
+    @Test
+    @DisplayName("Тест скрипта, проверка данных которого нашла строки")
+    @Story(value = "Тестирование проверок данных")
+    void rejectFailedCheck() throws SQLException {
+        Mockito.when(versions.next()).thenReturn(true, false, true, false);
+        Mockito.when(versions.getInt(1)).thenReturn(1);
+        Mockito.when(versions.getLong(2)).thenReturn(first.checksum);
+        ResultSet duplicates = Mockito.mock(ResultSet.class);
+        ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        Mockito.when(statement.executeQuery(startsWith("SELECT name"))).thenReturn(duplicates);
+        Mockito.when(duplicates.getMetaData()).thenReturn(metaData);
+        Mockito.when(metaData.getColumnCount()).thenReturn(1);
+        Mockito.when(duplicates.next()).thenReturn(true, false);
+        Mockito.when(duplicates.getString(1)).thenReturn("Fantasy");
+
+        SchemaMigrator migrator = new SchemaMigrator(Arrays.asList(first, checked));
+
+        SessionManagerException ex = assertThrows(SessionManagerException.class, () -> migrator.migrate(connection));
+        Assertions.assertAll("Проверка остановки запуска",
+                () -> assertEquals(Collections.singletonList("ALTER TABLE a ADD UNIQUE KEY uq_a (name)"), checked.statements()),
+                () -> assertTrue(ex.getMessage().contains("повторы (1):"), ex.getMessage()),
+                () -> assertTrue(ex.getMessage().contains("Fantasy"), ex.getMessage()),
+                () -> verify(statement, never()).execute(startsWith("ALTER")),
+                () -> verify(connection, never()).prepareStatement(startsWith("insert into schema_version")),
+                () -> verify(connection).prepareStatement("select release_lock(?)")
+        );
+    }
+
+    @Test
+    @DisplayName("Тест скрипта, проверка данных которого не нашла строк")
+    @Story(value = "Тестирование проверок данных")
+    void applyPassedCheck() throws SQLException {
+        Mockito.when(versions.next()).thenReturn(true, false, true, false);
+        Mockito.when(versions.getInt(1)).thenReturn(1);
+        Mockito.when(versions.getLong(2)).thenReturn(first.checksum);
+        ResultSet duplicates = Mockito.mock(ResultSet.class);
+        ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        Mockito.when(statement.executeQuery(startsWith("SELECT name"))).thenReturn(duplicates);
+        Mockito.when(duplicates.getMetaData()).thenReturn(metaData);
+
+        new SchemaMigrator(Arrays.asList(first, checked)).migrate(connection);
+
+        Assertions.assertAll("Проверка применения скрипта",
+                () -> verify(statement).execute("ALTER TABLE a ADD UNIQUE KEY uq_a (name)"),
+                () -> verify(connection).prepareStatement(startsWith("insert into schema_version"))
+        );
+    }
+}
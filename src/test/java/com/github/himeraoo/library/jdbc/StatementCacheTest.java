@@ -0,0 +1,118 @@
+package com.github.himeraoo.library.jdbc;
+
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@Epic(value = "Тестирование слоя JDBC")
+@Feature(value = "Тестирование StatementCache")
+class StatementCacheTest {
+
+    private static final String SQL = "select id, name from genre where id = ?";
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private Connection connection;
+    private StatementCache cache;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.prepareStatement(anyString(), anyInt()))
+                .thenAnswer(invocation -> Mockito.mock(PreparedStatement.class));
+        cache = new StatementCache(2, hits, misses, evictions);
+    }
+
+    private PreparedStatement prepare(Object key) throws SQLException {
+        return cache.prepare(connection, connection, key, SQL, Statement.NO_GENERATED_KEYS);
+    }
+
+    @Test
+    @DisplayName("Тест повторного использования подготовленного запроса")
+    @Story(value = "Тестирование выдачи запросов")
+    void reuseStatement() throws SQLException {
+        PreparedStatement first = prepare("genre");
+        first.setInt(1, 1);
+        first.close();
+        PreparedStatement second = prepare("genre");
+        second.close();
+
+        Assertions.assertAll("Проверка повторного использования запроса",
+                () -> assertTrue(first.isClosed()),
+                () -> assertSame(connection, second.getConnection()),
+                () -> assertEquals(1, hits.sum()),
+                () -> assertEquals(1, misses.sum()),
+                () -> Mockito.verify(connection, Mockito.times(1)).prepareStatement(anyString(), anyInt())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест выдачи запроса, который уже используется")
+    @Story(value = "Тестирование выдачи запросов")
+    void statementInUse() throws SQLException {
+        PreparedStatement first = prepare("genre");
+        PreparedStatement second = prepare("genre");
+        second.close();
+        first.close();
+
+        Assertions.assertAll("Проверка выдачи занятого запроса",
+                () -> assertEquals(0, hits.sum()),
+                () -> assertEquals(2, misses.sum()),
+                () -> assertEquals(1, cache.size()),
+                () -> Mockito.verify(second, Mockito.times(1)).close()
+        );
+    }
+
+    @Test
+    @DisplayName("Тест вытеснения давно не использованного запроса")
+    @Story(value = "Тестирование вытеснения")
+    void evictLeastRecentlyUsed() throws SQLException {
+        prepare("genre").close();
+        prepare("book").close();
+        prepare("genre").close();
+        prepare("author").close();
+        prepare("book").close();
+
+        Assertions.assertAll("Проверка вытеснения",
+                () -> assertEquals(2, cache.size()),
+                () -> assertEquals(2, evictions.sum()),
+                () -> assertEquals(1, hits.sum()),
+                () -> assertEquals(4, misses.sum())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест сброса fetch size при возврате запроса в кэш")
+    @Story(value = "Тестирование выдачи запросов")
+    void resetFetchSizeOnCheckin() throws SQLException {
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+        PreparedStatement first = prepare("genre");
+        first.setFetchSize(Integer.MIN_VALUE);
+        first.close();
+        PreparedStatement second = prepare("genre");
+        second.close();
+
+        //поток задан первым пользователем, сброс - при каждом возврате запроса
+        Mockito.verify(statement, Mockito.times(1)).setFetchSize(Integer.MIN_VALUE);
+        Mockito.verify(statement, Mockito.times(2)).setFetchSize(0);
+    }
+}
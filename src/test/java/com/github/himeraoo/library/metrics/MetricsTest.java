@@ -0,0 +1,86 @@
+package com.github.himeraoo.library.metrics;
+
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Epic(value = "Тестирование метрик")
+@Feature(value = "Тестирование Metrics")
+class MetricsTest {
+
+    @Test
+    @DisplayName("Тест выбора корзины гистограммы")
+    @Story(value = "Тестирование гистограммы")
+    void bucket() {
+        Assertions.assertAll("Проверка корзин",
+                () -> assertEquals(0, LatencyHistogram.bucket(0)),
+                () -> assertEquals(0, LatencyHistogram.bucket(50_000)),
+                () -> assertEquals(1, LatencyHistogram.bucket(50_001)),
+                () -> assertEquals(1, LatencyHistogram.bucket(100_000)),
+                () -> assertEquals(2, LatencyHistogram.bucket(100_001)),
+                () -> assertEquals(5, LatencyHistogram.bucket(1_600_000)),
+                () -> assertEquals(LatencyHistogram.BUCKETS, LatencyHistogram.bucket(Long.MAX_VALUE))
+        );
+    }
+
+    @Test
+    @DisplayName("Тест вывода в формате Prometheus")
+    @Story(value = "Тестирование вывода")
+    void writeTo() throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.recordRequest("GET", "/api/rest/book/{id}", 200, 40_000);
+        metrics.recordRequest("GET", "/api/rest/book/{id}", 200, 150_000);
+        metrics.recordRequest("GET", "/api/rest/book/{id}", 404, 150_000);
+        metrics.onQuery("QUERY_BookFindByIdWithAuthors", 80_000, 3, false);
+        metrics.onQuery("QUERY_BookFindByIdWithAuthors", 60_000, 0, true);
+        metrics.onOperation(4, 300_000);
+
+        StringWriter out = new StringWriter();
+        metrics.writeTo(out);
+        String text = out.toString();
+
+        Assertions.assertAll("Проверка вывода",
+                () -> assertTrue(text.contains("# TYPE library_http_request_duration_seconds histogram\n")),
+                () -> assertTrue(text.contains("library_http_requests_total{method=\"GET\",route=\"/api/rest/book/{id}\",status=\"200\"} 2\n")),
+                () -> assertTrue(text.contains("library_http_requests_total{method=\"GET\",route=\"/api/rest/book/{id}\",status=\"404\"} 1\n")),
+                () -> assertTrue(text.contains("library_http_request_duration_seconds_bucket{method=\"GET\",route=\"/api/rest/book/{id}\",le=\"0.00005\"} 1\n")),
+                () -> assertTrue(text.contains("library_http_request_duration_seconds_bucket{method=\"GET\",route=\"/api/rest/book/{id}\",le=\"0.0002\"} 3\n")),
+                () -> assertTrue(text.contains("library_http_request_duration_seconds_bucket{method=\"GET\",route=\"/api/rest/book/{id}\",le=\"+Inf\"} 3\n")),
+                () -> assertTrue(text.contains("library_http_request_duration_seconds_count{method=\"GET\",route=\"/api/rest/book/{id}\"} 3\n")),
+                () -> assertTrue(text.contains("library_db_query_duration_seconds_bucket{query=\"QUERY_BookFindByIdWithAuthors\",le=\"0.0001\"} 2\n")),
+                () -> assertTrue(text.contains("library_db_query_rows_total{query=\"QUERY_BookFindByIdWithAuthors\"} 3\n")),
+                () -> assertTrue(text.contains("library_db_query_errors_total{query=\"QUERY_BookFindByIdWithAuthors\"} 1\n")),
+                () -> assertTrue(text.contains("library_db_operation_duration_seconds_bucket{le=\"0.0004\"} 1\n")),
+                () -> assertTrue(text.contains("library_db_operation_duration_seconds_count 1\n")),
+                () -> assertTrue(text.contains("library_db_operation_round_trips_total 4\n"))
+        );
+    }
+
+    @Test
+    @DisplayName("Тест ограничения числа маршрутов")
+    @Story(value = "Тестирование записи")
+    void routeLimit() throws IOException {
+        Metrics metrics = new Metrics();
+        for (int i = 0; i < Metrics.MAX_ROUTES + 10; i++) {
+            metrics.recordRequest("GET", "/api/rest/book/x" + i, 400, 1000);
+        }
+
+        StringWriter out = new StringWriter();
+        metrics.writeTo(out);
+        String text = out.toString();
+
+        Assertions.assertAll("Проверка ограничения маршрутов",
+                () -> assertTrue(text.contains("library_http_requests_total{method=\"GET\",route=\"" + Metrics.OTHER_ROUTE + "\",status=\"400\"} 10\n")),
+                () -> assertEquals(Metrics.MAX_ROUTES + 1, text.split("library_http_requests_total\\{", -1).length - 1)
+        );
+    }
+}
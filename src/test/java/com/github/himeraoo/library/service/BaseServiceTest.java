@@ -55,6 +55,8 @@ public class BaseServiceTest {
         List<Book> bookList = Collections.singletonList(book);
         lenient().when(bookDAO.findById(bookId)).thenReturn(Optional.of(book));
         lenient().when(bookDAO.findAll()).thenReturn(bookList);
+        lenient().when(bookDAO.findAll(0, 1)).thenReturn(bookList);
+        lenient().when(bookDAO.findAll(1, 1)).thenReturn(Collections.emptyList());
         lenient().when(bookDAO.save(book)).thenReturn(1);
         Book bookSaveNotAdded = getBookWithoutAuthors(0, "NotAdded", getFullGenre(1));
         lenient().when(bookDAO.save(bookSaveNotAdded)).thenReturn(0);
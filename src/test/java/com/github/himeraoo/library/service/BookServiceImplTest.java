@@ -1,6 +1,8 @@
 package com.github.himeraoo.library.service;
 
 import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.ImportReport;
+import com.github.himeraoo.library.dto.ImportResult;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
@@ -16,8 +18,10 @@ import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.mockito.Mockito;
 
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.github.himeraoo.library.util.TestUtils.getBookDTO;
 import static com.github.himeraoo.library.util.TestUtils.getBookWithoutAuthors;
@@ -81,6 +85,21 @@ class BookServiceImplTest extends BaseServiceTest {
         });
     }
 
+    @Test
+    @DisplayName("Тест постраничного поиска книг")
+    @Story(value = "Тестирование метода постраничного поиска")
+    void findAllPage() throws SQLException {
+        List<BookDTO> expectedBookDTOList = Collections.singletonList(getBookDTO(getFullBook(1)));
+
+        List<BookDTO> firstPage = bookService.findAll(0, 1);
+        List<BookDTO> lastPage = bookService.findAll(1, 1);
+
+        Mockito.verify(bookDAO, Mockito.times(1)).findAll(0, 1);
+        Assertions.assertAll("Проверка постраничного поиска",
+                () -> Assertions.assertEquals(expectedBookDTOList, firstPage),
+                () -> Assertions.assertTrue(lastPage.isEmpty(), "Последняя страница должна быть пустой"));
+    }
+
     @Test
     @DisplayName("Тест сохранения новой книги")
     @Story(value = "Тестирование метода сохранения элемента")
@@ -191,4 +210,30 @@ class BookServiceImplTest extends BaseServiceTest {
             bookService.deleteById(bookID);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Тест пакетного импорта книг")
+    @Story(value = "Тестирование метода пакетного импорта")
+    void importBooks() throws SQLException {
+        BookService chunkedBookService = new BookServiceImpl(bookDAO, 2);
+        Mockito.when(bookDAO.saveAll(Mockito.anyList())).thenReturn(Arrays.asList(10, 11), Collections.singletonList(-1));
+
+        BookImport bookImport = chunkedBookService.startImport();
+        bookImport.add(getBookDTO(getFullBook(0, "import1")));
+        bookImport.add(getBookDTO(getFullBook(0, " ")));
+        bookImport.add(getBookDTO(getFullBook(0, "import2")));
+        bookImport.add(getBookDTO(getFullBook(0, "book1")));
+        ImportReport report = bookImport.finish();
+
+        Mockito.verify(bookDAO, Mockito.times(2)).saveAll(Mockito.anyList());
+        Assertions.assertAll("Проверка отчёта об импорте",
+                () -> Assertions.assertEquals(4, report.getTotal()),
+                () -> Assertions.assertEquals(2, report.getCreated()),
+                () -> Assertions.assertEquals(1, report.getDuplicates()),
+                () -> Assertions.assertEquals(1, report.getInvalid()),
+                () -> Assertions.assertEquals(Arrays.asList(ImportResult.Status.CREATED, ImportResult.Status.INVALID, ImportResult.Status.CREATED, ImportResult.Status.DUPLICATE),
+                        report.getResults().stream().map(ImportResult::getStatus).collect(Collectors.toList())),
+                () -> Assertions.assertEquals(11, report.getResults().get(2).getId())
+        );
+    }
+}
@@ -17,16 +17,16 @@ import org.mockito.Mockito;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
 
 import static com.github.himeraoo.library.util.TestUtils.getAuthorDTO;
 import static com.github.himeraoo.library.util.TestUtils.getFullAuthor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 
 @Epic(value = "Тестирование слоя RESTServlet")
@@ -70,7 +70,7 @@ class AuthorRESTServletTest extends BaseRestServletTest {
 
         authorRESTServlet.doGet(req, resp);
 
-        Mockito.verify(authorService, Mockito.times(1)).findById(1);
+        Mockito.verify(authorService, Mockito.times(1)).findById(eq(1), any());
         Mockito.verify(resp.getWriter(), Mockito.times(1)).write(json);
     }
 
@@ -99,13 +99,11 @@ class AuthorRESTServletTest extends BaseRestServletTest {
         HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
         HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
         PrintWriter writer = Mockito.mock(PrintWriter.class);
-        BufferedReader reader = Mockito.mock(BufferedReader.class);
 
         lenient().when(req.getRequestURI()).thenReturn("/api/rest/author/1");
         lenient().when(resp.getWriter()).thenReturn(writer);
-        lenient().when(req.getReader()).thenReturn(reader);
         String json = "{ \"id\": 1, \"name\": \"author_name1\", \"surname\": \"author_surname1\", \"bookList\": [ { \"id\": 1, \"title\": \"book1\", \"genre\": { \"id\": 1, \"name\": \"genre1\" }, \"authorList\": [] }, { \"id\": 5, \"title\": \"book5\", \"genre\": { \"id\": 5, \"name\": \"genre5\" }, \"authorList\": [] } ] }";
-        lenient().when(reader.lines()).thenReturn(Stream.of(json));
+        lenient().when(req.getInputStream()).thenReturn(getServletInputStream(json));
         ObjectMapper mapper = new ObjectMapper();
         AuthorDTO authorDTO = mapper.readValue(json, AuthorDTO.class);
 
@@ -124,13 +122,11 @@ class AuthorRESTServletTest extends BaseRestServletTest {
         HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
         HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
         PrintWriter writer = Mockito.mock(PrintWriter.class);
-        BufferedReader reader = Mockito.mock(BufferedReader.class);
 
         lenient().when(req.getRequestURI()).thenReturn("/api/rest/author/");
         lenient().when(resp.getWriter()).thenReturn(writer);
-        lenient().when(req.getReader()).thenReturn(reader);
         String json = "{ \"id\": 1, \"name\": \"author_name1\", \"surname\": \"author_surname1\", \"bookList\": [ { \"id\": 1, \"title\": \"book1\", \"genre\": { \"id\": 1, \"name\": \"genre1\" }, \"authorList\": [] }, { \"id\": 5, \"title\": \"book5\", \"genre\": { \"id\": 5, \"name\": \"genre5\" }, \"authorList\": [] } ] }";
-        lenient().when(reader.lines()).thenReturn(Stream.of(json));
+        lenient().when(req.getInputStream()).thenReturn(getServletInputStream(json));
         ObjectMapper mapper = new ObjectMapper();
         AuthorDTO authorDTO = mapper.readValue(json, AuthorDTO.class);
 
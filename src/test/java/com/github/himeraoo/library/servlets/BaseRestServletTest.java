@@ -19,10 +19,16 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.servlet.ReadListener;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.Collections;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,6 +56,7 @@ public class BaseRestServletTest {
         lenient().when(servletContext.getAttribute("authorService")).thenReturn(authorService);
         lenient().when(servletContext.getAttribute("bookService")).thenReturn(bookService);
         lenient().when(servletContext.getAttribute("genreService")).thenReturn(genreService);
+        lenient().when(servletContext.getAttribute(JsonCodec.ATTRIBUTE)).thenReturn(new JsonCodec());
         Mockito.doReturn(servletContext).when(authorRESTServlet).getServletContext();
         Mockito.doReturn(servletContext).when(bookRESTServlet).getServletContext();
         Mockito.doReturn(servletContext).when(genreRESTServlet).getServletContext();
@@ -63,9 +70,33 @@ public class BaseRestServletTest {
         initGenreRESTServletMock();
     }
 
+    protected static ServletInputStream getServletInputStream(String json) {
+        ByteArrayInputStream body = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return body.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+
+            @Override
+            public int read() {
+                return body.read();
+            }
+        };
+    }
+
     private void initAuthorRESTServletMock() throws SQLException, ElementHasNotFoundException, JsonProcessingException, ElementHasNotUpdatedException, ElementHasNotAddedException {
         lenient().when(authorService.findAll()).thenReturn(Collections.singletonList(TestUtils.getAuthorDTO(TestUtils.getFullAuthor(1))));
-        lenient().when(authorService.findById(1)).thenReturn(TestUtils.getAuthorDTO(TestUtils.getFullAuthor(1)));
+        lenient().when(authorService.findById(eq(1), any())).thenReturn(TestUtils.getAuthorDTO(TestUtils.getFullAuthor(1)));
         lenient().when(authorService.deleteById(1)).thenReturn(1);
 
         String json = "{ \"id\": 1, \"name\": \"author_name1\", \"surname\": \"author_surname1\", \"bookList\": [ { \"id\": 1, \"title\": \"book1\", \"genre\": { \"id\": 1, \"name\": \"genre1\" }, \"authorList\": [] }, { \"id\": 5, \"title\": \"book5\", \"genre\": { \"id\": 5, \"name\": \"genre5\" }, \"authorList\": [] } ] }";
@@ -78,7 +109,8 @@ public class BaseRestServletTest {
 
     private void initBookRESTServletMock() throws SQLException, ElementHasNotFoundException, JsonProcessingException, ElementHasNotUpdatedException, ElementHasNotAddedException {
         lenient().when(bookService.findAll()).thenReturn(Collections.singletonList(TestUtils.getBookDTO(TestUtils.getFullBook(1))));
-        lenient().when(bookService.findById(1)).thenReturn(TestUtils.getBookDTO(TestUtils.getFullBook(1)));
+        lenient().when(bookService.findAll(0, 1)).thenReturn(Collections.singletonList(TestUtils.getBookDTO(TestUtils.getFullBook(1))));
+        lenient().when(bookService.findById(eq(1), any())).thenReturn(TestUtils.getBookDTO(TestUtils.getFullBook(1)));
         lenient().when(bookService.deleteById(1)).thenReturn(1);
 
         String json = "{ \"id\": 1, \"title\": \"book1\", \"genre\": { \"id\": 1, \"name\": \"genre1\" }, \"authorList\": [ { \"id\": 1, \"name\": \"author_name1\", \"surname\": \"author_surname1\", \"bookList\": [] }, { \"id\": 0, \"name\": \"author_name5\", \"surname\": \"author_surname5\", \"bookList\": [] } ] }";
@@ -91,7 +123,7 @@ public class BaseRestServletTest {
 
     private void initGenreRESTServletMock() throws SQLException, ElementHasNotDeletedException, ElementHasNotFoundException, JsonProcessingException, ElementHasNotUpdatedException, ElementHasNotAddedException {
         lenient().when(genreService.findAll()).thenReturn(Collections.singletonList(TestUtils.getGenreDTO(TestUtils.getFullGenre(1))));
-        lenient().when(genreService.findById(1)).thenReturn(TestUtils.getGenreDTO(TestUtils.getFullGenre(1)));
+        lenient().when(genreService.findById(eq(1), any())).thenReturn(TestUtils.getGenreDTO(TestUtils.getFullGenre(1)));
         lenient().when(genreService.deleteById(1)).thenReturn(1);
 
         String json = "{\"id\": 1,\"name\": \"GENRE1\"}";
@@ -1,10 +1,13 @@
 package com.github.himeraoo.library.servlets;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.himeraoo.library.dao.EntityConsumer;
 import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.ImportReport;
 import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.service.BookImport;
 import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Story;
@@ -15,18 +18,23 @@ import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.mockito.Mockito;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
 
 import static com.github.himeraoo.library.util.TestUtils.getBookDTO;
 import static com.github.himeraoo.library.util.TestUtils.getFullBook;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 
 @Epic(value = "Тестирование слоя RESTServlet")
@@ -54,6 +62,89 @@ class BookRESTServletTest extends BaseRestServletTest {
         Mockito.verify(resp.getWriter(), Mockito.times(1)).write(json);
     }
 
+    @Test
+    @DisplayName("Тест постраничного поиска книг")
+    @Story(value = "Тестирование метода постраничного поиска")
+    void doGetPage() throws IOException, ServletException, SQLException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/book/");
+        lenient().when(req.getParameter("after")).thenReturn("0");
+        lenient().when(req.getParameter("limit")).thenReturn("1");
+        lenient().when(resp.getWriter()).thenReturn(writer);
+
+        List<BookDTO> expectedBookDTOList = Collections.singletonList(getBookDTO(getFullBook(1)));
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(expectedBookDTOList);
+
+        bookRESTServlet.doGet(req, resp);
+
+        Mockito.verify(bookService, Mockito.times(1)).findAll(0, 1);
+        Mockito.verify(resp, Mockito.times(1)).setHeader(PageRequest.NEXT_CURSOR_HEADER, "1");
+        Mockito.verify(resp.getWriter(), Mockito.times(1)).write(json);
+    }
+
+    @Test
+    @DisplayName("Тест ошибки в параметрах постраничного поиска книг")
+    @Story(value = "Тестирование метода постраничного поиска")
+    void doGetPageBadRequest() throws IOException, ServletException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/book/");
+        lenient().when(req.getParameter("limit")).thenReturn("-1");
+        lenient().when(resp.getWriter()).thenReturn(writer);
+
+        bookRESTServlet.doGet(req, resp);
+
+        Mockito.verifyNoInteractions(bookService);
+        Mockito.verify(resp, Mockito.times(1)).setStatus(400);
+    }
+
+    @Test
+    @DisplayName("Тест потоковой выдачи всех книг")
+    @Story(value = "Тестирование метода потоковой выдачи")
+    void doGetStream() throws IOException, ServletException, SQLException, ElementHasNotFoundException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/book/");
+        lenient().when(req.getParameter(JsonArrayWriter.STREAM_PARAMETER)).thenReturn("true");
+        lenient().when(resp.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        });
+        Mockito.doAnswer(invocation -> {
+            EntityConsumer<BookDTO, IOException> consumer = invocation.getArgument(0);
+            consumer.accept(getBookDTO(getFullBook(1)));
+            consumer.accept(getBookDTO(getFullBook(2)));
+            return null;
+        }).when(bookService).streamAll(Mockito.any());
+
+        List<BookDTO> expectedBookDTOList = Arrays.asList(getBookDTO(getFullBook(1)), getBookDTO(getFullBook(2)));
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(expectedBookDTOList);
+
+        bookRESTServlet.doGet(req, resp);
+
+        Mockito.verify(bookService, Mockito.never()).findAll();
+        Mockito.verify(resp, Mockito.never()).getWriter();
+        Mockito.verify(resp, Mockito.times(1)).setStatus(200);
+        assertEquals(json, body.toString("UTF-8"));
+    }
+
     @Test
     @DisplayName("Тест поиска книги по ID")
     @Story(value = "Тестирование метода поиска по ID")
@@ -70,7 +161,7 @@ class BookRESTServletTest extends BaseRestServletTest {
 
         bookRESTServlet.doGet(req, resp);
 
-        Mockito.verify(bookService, Mockito.times(1)).findById(1);
+        Mockito.verify(bookService, Mockito.times(1)).findById(eq(1), any());
         Mockito.verify(resp.getWriter(), Mockito.times(1)).write(json);
     }
 
@@ -99,13 +190,11 @@ class BookRESTServletTest extends BaseRestServletTest {
         HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
         HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
         PrintWriter writer = Mockito.mock(PrintWriter.class);
-        BufferedReader reader = Mockito.mock(BufferedReader.class);
 
         lenient().when(req.getRequestURI()).thenReturn("/api/rest/book/1");
         lenient().when(resp.getWriter()).thenReturn(writer);
-        lenient().when(req.getReader()).thenReturn(reader);
         String json = "{ \"id\": 1, \"title\": \"book1\", \"genre\": { \"id\": 1, \"name\": \"genre1\" }, \"authorList\": [ { \"id\": 1, \"name\": \"author_name1\", \"surname\": \"author_surname1\", \"bookList\": [] }, { \"id\": 0, \"name\": \"author_name5\", \"surname\": \"author_surname5\", \"bookList\": [] } ] }";
-        lenient().when(reader.lines()).thenReturn(Stream.of(json));
+        lenient().when(req.getInputStream()).thenReturn(getServletInputStream(json));
         ObjectMapper mapper = new ObjectMapper();
         BookDTO bookDTO = mapper.readValue(json, BookDTO.class);
 
@@ -124,13 +213,11 @@ class BookRESTServletTest extends BaseRestServletTest {
         HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
         HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
         PrintWriter writer = Mockito.mock(PrintWriter.class);
-        BufferedReader reader = Mockito.mock(BufferedReader.class);
 
         lenient().when(req.getRequestURI()).thenReturn("/api/rest/book/");
         lenient().when(resp.getWriter()).thenReturn(writer);
-        lenient().when(req.getReader()).thenReturn(reader);
         String json = "{ \"id\": 1, \"title\": \"book1\", \"genre\": { \"id\": 1, \"name\": \"genre1\" }, \"authorList\": [ { \"id\": 1, \"name\": \"author_name1\", \"surname\": \"author_surname1\", \"bookList\": [] }, { \"id\": 0, \"name\": \"author_name5\", \"surname\": \"author_surname5\", \"bookList\": [] } ] }";
-        lenient().when(reader.lines()).thenReturn(Stream.of(json));
+        lenient().when(req.getInputStream()).thenReturn(getServletInputStream(json));
         ObjectMapper mapper = new ObjectMapper();
         BookDTO bookDTO = mapper.readValue(json, BookDTO.class);
 
@@ -141,4 +228,37 @@ class BookRESTServletTest extends BaseRestServletTest {
         Mockito.verify(bookService, Mockito.times(1)).save(bookDTO);
         Mockito.verify(resp.getWriter(), Mockito.times(1)).write("Добавлена запись с id " + added);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Тест пакетного импорта книг")
+    @Story(value = "Тестирование метода пакетного импорта")
+    void doPostImport() throws IOException, ServletException, SQLException {
+        BookDTO first = getBookDTO(getFullBook(0, "import1"));
+        BookDTO second = getBookDTO(getFullBook(0, "import2"));
+        ObjectMapper mapper = new ObjectMapper();
+        String ndjson = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+        String jsonArray = mapper.writeValueAsString(Arrays.asList(first, second));
+
+        for (String body : Arrays.asList(ndjson, jsonArray)) {
+            HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+            HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+            PrintWriter writer = Mockito.mock(PrintWriter.class);
+            BookImport bookImport = Mockito.mock(BookImport.class);
+            ImportReport report = new ImportReport();
+            report.setTotal(2);
+
+            lenient().when(req.getRequestURI()).thenReturn("/api/rest/book/import");
+            lenient().when(resp.getWriter()).thenReturn(writer);
+            lenient().when(req.getInputStream()).thenReturn(getServletInputStream(body));
+            lenient().when(bookService.startImport()).thenReturn(bookImport);
+            lenient().when(bookImport.finish()).thenReturn(report);
+
+            bookRESTServlet.doPost(req, resp);
+
+            Mockito.verify(bookImport, Mockito.times(1)).add(first);
+            Mockito.verify(bookImport, Mockito.times(1)).add(second);
+            Mockito.verify(resp.getWriter(), Mockito.times(1)).write(mapper.writeValueAsString(report));
+            Mockito.verify(resp).setStatus(200);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.himeraoo.library.dao.EntityConsumer;
+import com.github.himeraoo.library.dto.AuthorDTO;
+import com.github.himeraoo.library.dto.BookDTO;
+import com.github.himeraoo.library.dto.GenreDTO;
+import com.github.himeraoo.library.service.ExportService;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.zip.GZIPInputStream;
+
+import static com.github.himeraoo.library.util.TestUtils.getAuthorDTO;
+import static com.github.himeraoo.library.util.TestUtils.getBookDTO;
+import static com.github.himeraoo.library.util.TestUtils.getFullAuthor;
+import static com.github.himeraoo.library.util.TestUtils.getFullBook;
+import static com.github.himeraoo.library.util.TestUtils.getFullGenre;
+import static com.github.himeraoo.library.util.TestUtils.getGenreDTO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.lenient;
+
+@Epic(value = "Тестирование слоя RESTServlet")
+@Feature(value = "Тестирование ExportServlet")
+@ExtendWith(MockitoExtension.class)
+class ExportServletTest {
+
+    @Mock
+    private ExportService exportService;
+    @Mock
+    private ServletContext servletContext;
+    @Mock
+    private HttpServletRequest req;
+    @Mock
+    private HttpServletResponse resp;
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private ExportServlet exportServlet;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        exportServlet = Mockito.spy(new ExportServlet());
+        lenient().when(servletContext.getAttribute("exportService")).thenReturn(exportService);
+        lenient().when(servletContext.getAttribute(JsonCodec.ATTRIBUTE)).thenReturn(new JsonCodec());
+        Mockito.doReturn(servletContext).when(exportServlet).getServletContext();
+        exportServlet.init();
+
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/export/");
+        lenient().when(resp.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        });
+        Mockito.doAnswer(invocation -> {
+            EntityConsumer<GenreDTO, IOException> genreConsumer = invocation.getArgument(0);
+            EntityConsumer<AuthorDTO, IOException> authorConsumer = invocation.getArgument(1);
+            EntityConsumer<BookDTO, IOException> bookConsumer = invocation.getArgument(2);
+            genreConsumer.accept(getGenreDTO(getFullGenre(1)));
+            authorConsumer.accept(getAuthorDTO(getFullAuthor(1)));
+            bookConsumer.accept(getBookDTO(getFullBook(1)));
+            return null;
+        }).when(exportService).exportSnapshot(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    private String expectedNdjson() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        return "{\"type\":\"genre\",\"data\":" + mapper.writeValueAsString(getGenreDTO(getFullGenre(1))) + "}\n"
+                + "{\"type\":\"author\",\"data\":" + mapper.writeValueAsString(getAuthorDTO(getFullAuthor(1))) + "}\n"
+                + "{\"type\":\"book\",\"data\":" + mapper.writeValueAsString(getBookDTO(getFullBook(1))) + "}\n";
+    }
+
+    @Test
+    @DisplayName("Тест выгрузки каталога в NDJSON")
+    @Story(value = "Тестирование метода выгрузки")
+    void doGetExport() throws IOException, ServletException {
+        exportServlet.doGet(req, resp);
+
+        Mockito.verify(resp).setContentType(NdjsonWriter.CONTENT_TYPE);
+        Mockito.verify(resp).setStatus(200);
+        Mockito.verify(resp, Mockito.never()).setHeader("Content-Encoding", "gzip");
+        assertEquals(expectedNdjson(), body.toString("UTF-8"));
+    }
+
+    @Test
+    @DisplayName("Тест выгрузки каталога со сжатием gzip")
+    @Story(value = "Тестирование метода выгрузки")
+    void doGetExportGzip() throws IOException, ServletException {
+        lenient().when(req.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+
+        exportServlet.doGet(req, resp);
+
+        ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                unzipped.write(buffer, 0, read);
+            }
+        }
+        Mockito.verify(resp).setHeader("Content-Encoding", "gzip");
+        Assertions.assertEquals(expectedNdjson(), new String(unzipped.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -6,6 +6,9 @@ import com.github.himeraoo.library.exception.ElementHasNotAddedException;
 import com.github.himeraoo.library.exception.ElementHasNotDeletedException;
 import com.github.himeraoo.library.exception.ElementHasNotFoundException;
 import com.github.himeraoo.library.exception.ElementHasNotUpdatedException;
+import com.github.himeraoo.library.executor.DbExecutor;
+import com.github.himeraoo.library.executor.DbExecutorConfig;
+import com.github.himeraoo.library.models.EntityVersion;
 import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Story;
@@ -13,21 +16,31 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static com.github.himeraoo.library.util.TestUtils.getFullGenre;
 import static com.github.himeraoo.library.util.TestUtils.getGenreDTO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 
 @Epic(value = "Тестирование слоя RESTServlet")
@@ -71,10 +84,88 @@ class GenreRESTServletTest extends BaseRestServletTest {
 
         genreRESTServlet.doGet(req, resp);
 
-        Mockito.verify(genreService, Mockito.times(1)).findById(1);
+        Mockito.verify(genreService, Mockito.times(1)).findById(eq(1), any());
         Mockito.verify(resp.getWriter(), Mockito.times(1)).write(json);
     }
 
+    @Test
+    @DisplayName("Тест условного поиска неизменённого жанра по ID")
+    @Story(value = "Тестирование условного GET")
+    void doGetFindByIdNotModified() throws SQLException, ElementHasNotFoundException, ServletException, IOException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/1");
+        lenient().when(req.getHeader("If-None-Match")).thenReturn("\"other\", W/\"v1\"");
+        lenient().when(genreService.findVersionById(1)).thenReturn(Optional.of(new EntityVersion("v1", 1_700_000_000_123L)));
+
+        genreRESTServlet.doGet(req, resp);
+
+        Mockito.verify(resp).setHeader("ETag", "\"v1\"");
+        Mockito.verify(resp).setDateHeader("Last-Modified", 1_700_000_000_000L);
+        Mockito.verify(resp).setStatus(304);
+        Mockito.verify(genreService, Mockito.never()).findById(eq(1), any());
+        Mockito.verify(resp, Mockito.never()).getWriter();
+    }
+
+    @Test
+    @DisplayName("Тест условного поиска изменённого жанра по ID")
+    @Story(value = "Тестирование условного GET")
+    void doGetFindByIdModified() throws SQLException, ElementHasNotFoundException, ServletException, IOException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/1");
+        lenient().when(req.getHeader("If-None-Match")).thenReturn("\"v1\"");
+        lenient().when(resp.getWriter()).thenReturn(writer);
+        lenient().when(genreService.findVersionById(1)).thenReturn(Optional.of(new EntityVersion("v2", 1_700_000_000_123L)));
+
+        String json = new ObjectMapper().writeValueAsString(getGenreDTO(getFullGenre(1)));
+
+        genreRESTServlet.doGet(req, resp);
+
+        Mockito.verify(resp).setHeader("ETag", "\"v2\"");
+        Mockito.verify(genreService, Mockito.times(1)).findById(1, new EntityVersion("v2", 1_700_000_000_123L));
+        Mockito.verify(resp.getWriter(), Mockito.times(1)).write(json);
+        Mockito.verify(resp, Mockito.never()).setStatus(304);
+    }
+
+    @Test
+    @DisplayName("Тест условного поиска всех жанров по времени изменения")
+    @Story(value = "Тестирование условного GET")
+    void doGetAllIgnoresModifiedSince() throws SQLException, ElementHasNotFoundException, ServletException, IOException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/");
+        lenient().when(resp.getWriter()).thenReturn(writer);
+        //удаление жанра не сдвигает время изменения списка, поэтому по нему список не считается неизменённым
+        lenient().when(req.getDateHeader("If-Modified-Since")).thenReturn(1_700_000_000_000L);
+        lenient().when(genreService.findAllVersion()).thenReturn(new EntityVersion("v1", 1_700_000_000_999L));
+
+        genreRESTServlet.doGet(req, resp);
+
+        Mockito.verify(resp).setHeader("ETag", "\"v1\"");
+        Mockito.verify(resp, Mockito.never()).setDateHeader(eq("Last-Modified"), anyLong());
+        Mockito.verify(resp, Mockito.never()).setStatus(304);
+        Mockito.verify(genreService, Mockito.times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Тест условного поиска неизменённого списка жанров")
+    @Story(value = "Тестирование условного GET")
+    void doGetAllNotModified() throws SQLException, ElementHasNotFoundException, ServletException, IOException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/");
+        lenient().when(req.getHeader("If-None-Match")).thenReturn("\"v1\"");
+        lenient().when(genreService.findAllVersion()).thenReturn(new EntityVersion("v1", 1_700_000_000_999L));
+
+        genreRESTServlet.doGet(req, resp);
+
+        Mockito.verify(resp).setStatus(304);
+        Mockito.verify(genreService, Mockito.never()).findAll();
+    }
+
     @Test
     @DisplayName("Тест удаления жанра по ID")
     @Story(value = "Тестирование метода удаления элемента по ID")
@@ -100,13 +191,11 @@ class GenreRESTServletTest extends BaseRestServletTest {
         HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
         HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
         PrintWriter writer = Mockito.mock(PrintWriter.class);
-        BufferedReader reader = Mockito.mock(BufferedReader.class);
 
         lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/1");
         lenient().when(resp.getWriter()).thenReturn(writer);
-        lenient().when(req.getReader()).thenReturn(reader);
         String json = "{\"id\": 1,\"name\": \"GENRE1\"}";
-        lenient().when(reader.lines()).thenReturn(Stream.of(json));
+        lenient().when(req.getInputStream()).thenReturn(getServletInputStream(json));
         ObjectMapper mapper = new ObjectMapper();
         GenreDTO genreDTO = mapper.readValue(json, GenreDTO.class);
 
@@ -125,13 +214,11 @@ class GenreRESTServletTest extends BaseRestServletTest {
         HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
         HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
         PrintWriter writer = Mockito.mock(PrintWriter.class);
-        BufferedReader reader = Mockito.mock(BufferedReader.class);
 
         lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/");
         lenient().when(resp.getWriter()).thenReturn(writer);
-        lenient().when(req.getReader()).thenReturn(reader);
         String json = "{\"id\": 1,\"name\": \"GENRE1\"}";
-        lenient().when(reader.lines()).thenReturn(Stream.of(json));
+        lenient().when(req.getInputStream()).thenReturn(getServletInputStream(json));
         ObjectMapper mapper = new ObjectMapper();
         GenreDTO genreDTO = mapper.readValue(json, GenreDTO.class);
 
@@ -142,4 +229,197 @@ class GenreRESTServletTest extends BaseRestServletTest {
         Mockito.verify(genreService, Mockito.times(1)).save(genreDTO);
         Mockito.verify(resp.getWriter(), Mockito.times(1)).write("Добавлена запись с id " + added);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Тест выполнения запроса на исполнителе БД")
+    @Story(value = "Тестирование асинхронной обработки")
+    void serviceAsync() throws SQLException, ElementHasNotFoundException, ServletException, IOException, InterruptedException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        CountDownLatch completed = new CountDownLatch(1);
+        DbExecutor dbExecutor = new DbExecutor(new DbExecutorConfig());
+        lenient().when(servletContext.getAttribute(DbExecutor.ATTRIBUTE)).thenReturn(dbExecutor);
+        lenient().when(req.getMethod()).thenReturn("GET");
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/1");
+        lenient().when(req.isAsyncSupported()).thenReturn(true);
+        lenient().when(req.startAsync(req, resp)).thenReturn(asyncContext);
+        lenient().when(resp.getWriter()).thenReturn(writer);
+        Mockito.doAnswer(invocation -> {
+            completed.countDown();
+            return null;
+        }).when(asyncContext).complete();
+
+        genreRESTServlet.service(req, resp);
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        dbExecutor.shutdown();
+        Mockito.verify(genreService, Mockito.times(1)).findById(eq(1), any());
+        Mockito.verify(resp).setStatus(200);
+        assertEquals(1, dbExecutor.getCompletedCount());
+    }
+
+    @Test
+    @DisplayName("Тест отказа при перегрузке исполнителя БД")
+    @Story(value = "Тестирование асинхронной обработки")
+    void serviceRejected() throws SQLException, ElementHasNotFoundException, ServletException, IOException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        DbExecutor dbExecutor = new DbExecutor(new DbExecutorConfig());
+        dbExecutor.shutdown();
+        lenient().when(servletContext.getAttribute(DbExecutor.ATTRIBUTE)).thenReturn(dbExecutor);
+        lenient().when(req.isAsyncSupported()).thenReturn(true);
+        lenient().when(req.startAsync(req, resp)).thenReturn(asyncContext);
+        lenient().when(resp.getWriter()).thenReturn(writer);
+
+        genreRESTServlet.service(req, resp);
+
+        Mockito.verify(genreService, Mockito.never()).findById(Mockito.anyInt(), any());
+        Mockito.verify(resp).setStatus(503);
+        Mockito.verify(asyncContext).complete();
+    }
+
+    @Test
+    @DisplayName("Тест таймаута при чтении тела запроса")
+    @Story(value = "Тестирование асинхронной обработки")
+    void serviceTimeoutReadingBody() throws SQLException, ElementHasNotAddedException, ServletException, IOException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        DbExecutor dbExecutor = new DbExecutor(new DbExecutorConfig());
+        lenient().when(servletContext.getAttribute(DbExecutor.ATTRIBUTE)).thenReturn(dbExecutor);
+        lenient().when(servletContext.getAttribute(AsyncRESTServlet.ASYNC_TIMEOUT_ATTRIBUTE)).thenReturn(1000L);
+        lenient().when(req.getMethod()).thenReturn("POST");
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/");
+        lenient().when(req.isAsyncSupported()).thenReturn(true);
+        lenient().when(req.startAsync(req, resp)).thenReturn(asyncContext);
+        //клиент прислал заголовки, но не тело: данные никогда не будут готовы
+        lenient().when(req.getInputStream()).thenReturn(getServletInputStream("{"));
+        lenient().when(resp.getWriter()).thenReturn(writer);
+
+        genreRESTServlet.service(req, resp);
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        Mockito.verify(asyncContext).addListener(listener.capture());
+        listener.getValue().onTimeout(Mockito.mock(AsyncEvent.class));
+        dbExecutor.shutdown();
+
+        Mockito.verify(asyncContext).setTimeout(1000L);
+        Mockito.verify(genreService, Mockito.never()).save(any());
+        Mockito.verify(resp).setStatus(408);
+        Mockito.verify(asyncContext, Mockito.times(1)).complete();
+    }
+
+    @Test
+    @DisplayName("Тест таймаута в очереди исполнителя БД")
+    @Story(value = "Тестирование асинхронной обработки")
+    void serviceTimeoutOnExecutor() throws SQLException, ElementHasNotFoundException, ServletException, IOException, InterruptedException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        DbExecutorConfig config = new DbExecutorConfig();
+        config.setThreads(1);
+        DbExecutor dbExecutor = new DbExecutor(config);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch queuedDone = new CountDownLatch(1);
+        lenient().when(servletContext.getAttribute(DbExecutor.ATTRIBUTE)).thenReturn(dbExecutor);
+        lenient().when(req.getMethod()).thenReturn("GET");
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/1");
+        lenient().when(req.isAsyncSupported()).thenReturn(true);
+        lenient().when(req.startAsync(req, resp)).thenReturn(asyncContext);
+        lenient().when(resp.getWriter()).thenReturn(writer);
+
+        //единственный поток исполнителя занят, запрос ждёт в очереди
+        dbExecutor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        genreRESTServlet.service(req, resp);
+        dbExecutor.execute(queuedDone::countDown);
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        Mockito.verify(asyncContext).addListener(listener.capture());
+        listener.getValue().onTimeout(Mockito.mock(AsyncEvent.class));
+        release.countDown();
+
+        assertTrue(queuedDone.await(5, TimeUnit.SECONDS));
+        dbExecutor.shutdown();
+        Mockito.verify(genreService, Mockito.never()).findById(Mockito.anyInt(), any());
+        Mockito.verify(resp).setStatus(503);
+        Mockito.verify(asyncContext, Mockito.times(1)).complete();
+    }
+
+    @Test
+    @DisplayName("Тест таймаута во время выполнения на исполнителе БД")
+    @Story(value = "Тестирование асинхронной обработки")
+    void serviceTimeoutRunning() throws SQLException, ElementHasNotFoundException, ServletException, IOException, InterruptedException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        PrintWriter writer = Mockito.mock(PrintWriter.class);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        DbExecutorConfig config = new DbExecutorConfig();
+        config.setThreads(1);
+        DbExecutor dbExecutor = new DbExecutor(config);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch taskDone = new CountDownLatch(1);
+        lenient().when(servletContext.getAttribute(DbExecutor.ATTRIBUTE)).thenReturn(dbExecutor);
+        lenient().when(req.getMethod()).thenReturn("GET");
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/1");
+        lenient().when(req.isAsyncSupported()).thenReturn(true);
+        lenient().when(req.startAsync(req, resp)).thenReturn(asyncContext);
+        lenient().when(resp.getWriter()).thenReturn(writer);
+        //запрос к БД идёт дольше таймаута
+        lenient().when(genreService.findById(eq(1), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return getGenreDTO(getFullGenre(1));
+        });
+
+        genreRESTServlet.service(req, resp);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        Mockito.verify(asyncContext).addListener(listener.capture());
+        listener.getValue().onTimeout(Mockito.mock(AsyncEvent.class));
+        release.countDown();
+        dbExecutor.execute(taskDone::countDown);
+
+        assertTrue(taskDone.await(5, TimeUnit.SECONDS));
+        dbExecutor.shutdown();
+        String json = new ObjectMapper().writeValueAsString(getGenreDTO(getFullGenre(1)));
+        //задача доработала, но ответ после таймаута уже не её
+        Mockito.verify(resp).setStatus(503);
+        Mockito.verify(resp, Mockito.never()).setStatus(200);
+        Mockito.verify(writer, Mockito.never()).write(json);
+        Mockito.verify(asyncContext, Mockito.times(1)).complete();
+    }
+
+    @Test
+    @DisplayName("Тест потокового списка без таймаута")
+    @Story(value = "Тестирование асинхронной обработки")
+    void serviceStreamWithoutTimeout() throws ServletException, IOException {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        DbExecutor dbExecutor = new DbExecutor(new DbExecutorConfig());
+        dbExecutor.shutdown();
+        lenient().when(servletContext.getAttribute(DbExecutor.ATTRIBUTE)).thenReturn(dbExecutor);
+        lenient().when(servletContext.getAttribute(AsyncRESTServlet.ASYNC_TIMEOUT_ATTRIBUTE)).thenReturn(1000L);
+        lenient().when(req.getMethod()).thenReturn("GET");
+        lenient().when(req.getRequestURI()).thenReturn("/api/rest/genre/");
+        lenient().when(req.getParameter("stream")).thenReturn("true");
+        lenient().when(req.isAsyncSupported()).thenReturn(true);
+        lenient().when(req.startAsync(req, resp)).thenReturn(asyncContext);
+        lenient().when(resp.getWriter()).thenReturn(Mockito.mock(PrintWriter.class));
+
+        genreRESTServlet.service(req, resp);
+
+        Mockito.verify(asyncContext).setTimeout(0L);
+    }
+}
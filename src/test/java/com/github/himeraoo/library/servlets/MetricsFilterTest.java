@@ -0,0 +1,70 @@
+package com.github.himeraoo.library.servlets;
+
+import com.github.himeraoo.library.metrics.Metrics;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+
+@Epic(value = "Тестирование слоя RESTServlet")
+@Feature(value = "Тестирование MetricsFilter")
+class MetricsFilterTest {
+
+    @Test
+    @DisplayName("Тест маршрута запроса")
+    @Story(value = "Тестирование маршрута")
+    void route() {
+        Assertions.assertAll("Проверка маршрута",
+                () -> assertEquals("/api/rest/book/{id}", MetricsFilter.route(request("/api/rest/book", "/17"))),
+                () -> assertEquals("/api/rest/book/", MetricsFilter.route(request("/api/rest/book", "/"))),
+                () -> assertEquals("/api/rest/book/import", MetricsFilter.route(request("/api/rest/book", "/import"))),
+                () -> assertEquals("/api/rest/book/{id}/", MetricsFilter.route(request("/api/rest/book", "/1/"))),
+                () -> assertEquals("/api/rest/export", MetricsFilter.route(request("/api/rest/export", null)))
+        );
+    }
+
+    @Test
+    @DisplayName("Тест записи синхронного запроса")
+    @Story(value = "Тестирование записи")
+    void recordRequest() throws IOException, ServletException {
+        Metrics metrics = Mockito.mock(Metrics.class);
+        ServletContext servletContext = Mockito.mock(ServletContext.class);
+        FilterConfig filterConfig = Mockito.mock(FilterConfig.class);
+        lenient().when(filterConfig.getServletContext()).thenReturn(servletContext);
+        lenient().when(servletContext.getAttribute(Metrics.ATTRIBUTE)).thenReturn(metrics);
+        HttpServletRequest req = request("/api/rest/genre", "/2");
+        lenient().when(req.getMethod()).thenReturn("DELETE");
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        lenient().when(resp.getStatus()).thenReturn(204);
+
+        MetricsFilter filter = new MetricsFilter();
+        filter.init(filterConfig);
+        filter.doFilter(req, resp, Mockito.mock(FilterChain.class));
+
+        verify(metrics).recordRequest(eq("DELETE"), eq("/api/rest/genre/{id}"), eq(204), anyLong());
+    }
+
+    private static HttpServletRequest request(String servletPath, String pathInfo) {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        lenient().when(req.getServletPath()).thenReturn(servletPath);
+        lenient().when(req.getPathInfo()).thenReturn(pathInfo);
+        return req;
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.himeraoo.library.servlets;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.himeraoo.library.dto.BookDTO;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Epic(value = "Тестирование слоя RESTServlet")
+@Feature(value = "Тестирование NonBlockingBodyReader")
+class NonBlockingBodyReaderTest {
+
+    private static final String BOOK_JSON = "{ \"id\": 1, \"title\": \"book1\", \"genre\": { \"id\": 1, \"name\": \"genre1\" }, \"authorList\": [ { \"id\": 1, \"name\": \"author_name1\", \"surname\": \"author_surname1\", \"bookList\": [] } ] }";
+
+    private final JsonCodec jsonCodec = new JsonCodec();
+
+    @Test
+    @DisplayName("Тест чтения тела запроса по частям")
+    @Story(value = "Тестирование неблокирующего чтения")
+    void readInChunks() throws IOException {
+        ChunkedInputStream in = new ChunkedInputStream(BOOK_JSON.getBytes(StandardCharsets.UTF_8), 7);
+        RecordingCallback callback = new RecordingCallback();
+        NonBlockingBodyReader reader = new NonBlockingBodyReader(in, jsonCodec.reader(BookDTO.class), 1024, callback);
+
+        in.deliver(reader);
+
+        BookDTO expected = jsonCodec.reader(BookDTO.class).readValue(BOOK_JSON);
+        Assertions.assertAll("Проверка чтения тела запроса",
+                () -> assertTrue(in.pauses > 1, "Тело должно приходить несколькими частями"),
+                () -> assertNull(callback.error),
+                () -> assertEquals(expected, callback.body),
+                () -> assertEquals(expected.getAuthorList(), ((BookDTO) callback.body).getAuthorList())
+        );
+    }
+
+    @Test
+    @DisplayName("Тест отказа для слишком большого тела запроса")
+    @Story(value = "Тестирование неблокирующего чтения")
+    void rejectTooLarge() throws IOException {
+        ChunkedInputStream in = new ChunkedInputStream(BOOK_JSON.getBytes(StandardCharsets.UTF_8), 16);
+        RecordingCallback callback = new RecordingCallback();
+        NonBlockingBodyReader reader = new NonBlockingBodyReader(in, jsonCodec.reader(BookDTO.class), 32, callback);
+
+        in.deliver(reader);
+
+        Assertions.assertAll("Проверка ограничения размера тела",
+                () -> assertNull(callback.body),
+                () -> assertTrue(callback.error instanceof NonBlockingBodyReader.BodyTooLargeException)
+        );
+    }
+
+    @Test
+    @DisplayName("Тест отказа для некорректного JSON")
+    @Story(value = "Тестирование неблокирующего чтения")
+    void rejectMalformed() throws IOException {
+        ChunkedInputStream in = new ChunkedInputStream("{ \"id\": 1, \"title\": ".getBytes(StandardCharsets.UTF_8), 8);
+        RecordingCallback callback = new RecordingCallback();
+        NonBlockingBodyReader reader = new NonBlockingBodyReader(in, jsonCodec.reader(BookDTO.class), 1024, callback);
+
+        in.deliver(reader);
+
+        Assertions.assertAll("Проверка некорректного тела",
+                () -> assertNull(callback.body),
+                () -> assertTrue(callback.error instanceof JsonProcessingException)
+        );
+    }
+
+    private static final class RecordingCallback implements NonBlockingBodyReader.Callback {
+        private Object body;
+        private Throwable error;
+
+        @Override
+        public void onBody(Object body) {
+            this.body = body;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            this.error = t;
+        }
+    }
+
+    //отдаёт тело частями по chunkSize байт, после каждой части isReady() возвращает false, как при медленном клиенте
+    private static final class ChunkedInputStream extends ServletInputStream {
+        private final byte[] body;
+        private final int chunkSize;
+        private int position;
+        private boolean ready;
+        private int pauses;
+
+        ChunkedInputStream(byte[] body, int chunkSize) {
+            this.body = body;
+            this.chunkSize = chunkSize;
+        }
+
+        void deliver(ReadListener listener) throws IOException {
+            while (!isFinished()) {
+                int before = position;
+                ready = true;
+                pauses++;
+                listener.onDataAvailable();
+                //читатель отказался от тела и больше не читает
+                if (position == before) {
+                    return;
+                }
+            }
+            listener.onAllDataRead();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position == body.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready && !isFinished();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+
+        @Override
+        public int read() {
+            return isFinished() ? -1 : body[position++];
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (isFinished()) {
+                return -1;
+            }
+            int read = Math.min(Math.min(len, chunkSize), body.length - position);
+            System.arraycopy(body, position, b, off, read);
+            position += read;
+            ready = false;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.himeraoo.library.servlets;
+
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Epic(value = "Тестирование слоя RESTServlet")
+@Feature(value = "Тестирование RestPath")
+class RestPathTest {
+
+    private final RestPath path = new RestPath("book");
+
+    @Test
+    @DisplayName("Тест разбора id из пути")
+    @Story(value = "Тестирование разбора пути")
+    void id() {
+        Assertions.assertAll("Проверка разбора id",
+                () -> assertEquals(1, path.id("/api/rest/book/1")),
+                () -> assertEquals(0, path.id("/api/rest/book/0")),
+                () -> assertEquals(Integer.MAX_VALUE, path.id("/api/rest/book/2147483647")),
+                () -> assertEquals(RestPath.NO_ID, path.id("/api/rest/book/2147483648"), "id не помещается в int"),
+                () -> assertEquals(RestPath.NO_ID, path.id("/api/rest/book/")),
+                () -> assertEquals(RestPath.NO_ID, path.id("/api/rest/book/1a")),
+                () -> assertEquals(RestPath.NO_ID, path.id("/api/rest/book/-1")),
+                () -> assertEquals(RestPath.NO_ID, path.id("/api/rest/book/1/")),
+                () -> assertEquals(RestPath.NO_ID, path.id("/api/rest/genre/1"))
+        );
+    }
+
+    @Test
+    @DisplayName("Тест распознавания списка и действия")
+    @Story(value = "Тестирование разбора пути")
+    void collectionAndAction() {
+        Assertions.assertAll("Проверка списка и действия",
+                () -> assertTrue(path.isCollection("/api/rest/book/")),
+                () -> assertFalse(path.isCollection("/api/rest/book")),
+                () -> assertFalse(path.isCollection("/api/rest/book/1")),
+                () -> assertTrue(path.isResource("/api/rest/book")),
+                () -> assertTrue(path.isResource("/api/rest/book/")),
+                () -> assertFalse(path.isResource("/api/rest/boo")),
+                () -> assertTrue(path.isAction("/api/rest/book/import", "import")),
+                () -> assertFalse(path.isAction("/api/rest/book/import/", "import")),
+                () -> assertFalse(path.isAction("/api/rest/genre/import", "import"))
+        );
+    }
+}